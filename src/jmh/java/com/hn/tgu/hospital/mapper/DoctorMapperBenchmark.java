@@ -0,0 +1,56 @@
+package com.hn.tgu.hospital.mapper;
+
+import com.hn.tgu.hospital.benchmark.DoctoresSinteticos;
+import com.hn.tgu.hospital.dto.DoctorDTO;
+import com.hn.tgu.hospital.elasticsearch.DoctorElasticsearch;
+import com.hn.tgu.hospital.entity.Doctor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversiones de DoctorMapper sobre un conjunto fijo de doctores sintéticos
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DoctorMapperBenchmark {
+
+    private static final int TAMANO = 1024;
+
+    private final DoctorMapper mapper = new DoctorMapper();
+
+    private List<Doctor> doctores;
+    private List<DoctorDTO> dtos;
+    private int siguiente;
+
+    @Setup
+    public void preparar() {
+        doctores = DoctoresSinteticos.generar(TAMANO, 42);
+        dtos = mapper.toDTOList(doctores);
+    }
+
+    @Benchmark
+    public DoctorDTO toDTO() {
+        return mapper.toDTO(doctores.get(indice()));
+    }
+
+    @Benchmark
+    public Doctor toEntity() {
+        return mapper.toEntity(dtos.get(indice()));
+    }
+
+    @Benchmark
+    public DoctorElasticsearch toElasticsearch() {
+        return mapper.toElasticsearch(doctores.get(indice()));
+    }
+
+    private int indice() {
+        siguiente = (siguiente + 1) & (TAMANO - 1);
+        return siguiente;
+    }
+}
@@ -0,0 +1,179 @@
+package com.hn.tgu.hospital.repository;
+
+import com.hn.tgu.hospital.benchmark.DoctoresSinteticos;
+import com.hn.tgu.hospital.entity.Doctor;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Sentencias SQL y filas leídas por llamada a DoctorRepository al pedir una página fija
+ * de una tabla cada vez más grande.
+ *
+ * Carga N doctores en un Postgres embebido y pide siempre las primeras PAGINA filas. Las
+ * sentencias se cuentan con las estadísticas de Hibernate y las filas con un DataSource que
+ * cuenta los ResultSet.next() de todas las consultas (doctores y colecciones). Si la carga
+ * de colecciones se limita a la página, las filas por llamada no dependen de N; al final de
+ * cada iteración se imprime la media por llamada.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DoctorRepositoryBenchmark {
+
+    private static final int PAGINA = 20;
+
+    @Param({"1000", "10000", "50000"})
+    private int filas;
+
+    private EmbeddedPostgres postgres;
+    private SessionFactory sessionFactory;
+    private EntityManager entityManager;
+    private DoctorRepository repository;
+    private Statistics estadisticas;
+    private final AtomicLong filasLeidas = new AtomicLong();
+    private List<String> ids;
+    private long llamadas;
+
+    @Setup
+    public void preparar() throws IOException, SQLException {
+        postgres = EmbeddedPostgres.builder().start();
+        Configuration configuracion = new Configuration().addAnnotatedClass(Doctor.class);
+        configuracion.getProperties().put(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE,
+                contarFilas(postgres.getPostgresDatabase(), DataSource.class));
+        configuracion.setProperty(AvailableSettings.HBM2DDL_AUTO, "create");
+        configuracion.setProperty(AvailableSettings.GENERATE_STATISTICS, "true");
+        configuracion.setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, "500");
+        configuracion.setProperty(AvailableSettings.ORDER_INSERTS, "true");
+        sessionFactory = configuracion.buildSessionFactory();
+
+        entityManager = sessionFactory.createEntityManager();
+        entityManager.getTransaction().begin();
+        // En V1 las colecciones tienen clave primaria (doctor_id, ...); hbm2ddl no crea ningún índice
+        for (String tabla : List.of("doctor_tags", "doctor_dias_laborales", "doctor_horarios_disponibles")) {
+            entityManager.createNativeQuery("CREATE INDEX ON " + tabla + " (doctor_id)").executeUpdate();
+        }
+        List<Doctor> generados = DoctoresSinteticos.generar(filas, 42);
+        for (int i = 0; i < generados.size(); i++) {
+            Doctor doctor = generados.get(i);
+            // El id lo genera Hibernate (UUID); con uno asignado persist lo trataría como separado
+            doctor.setId(null);
+            entityManager.persist(doctor);
+            if (i % 1000 == 999) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.getTransaction().commit();
+        entityManager.clear();
+        try (Connection conexion = postgres.getPostgresDatabase().getConnection();
+             Statement sentencia = conexion.createStatement()) {
+            sentencia.execute("ANALYZE");
+        }
+
+        // DoctorNombres no interviene en estas consultas
+        DoctorNombres sinNombres = (prefijo, normalizado, limite) -> List.of();
+        repository = new JpaRepositoryFactory(entityManager)
+                .getRepository(DoctorRepository.class, RepositoryFragments.just(sinNombres));
+        ids = repository.findPageAfter(null, null, null, null, PageRequest.of(0, PAGINA))
+                .stream().map(Doctor::getId).toList();
+        estadisticas = sessionFactory.getStatistics();
+    }
+
+    @Setup(Level.Iteration)
+    public void empezarIteracion() {
+        estadisticas.clear();
+        filasLeidas.set(0);
+        llamadas = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void terminarIteracion() {
+        System.out.printf("%n  %d doctores, página de %d: %.1f sentencias y %.0f filas leídas por llamada%n",
+                filas, PAGINA, (double) estadisticas.getPrepareStatementCount() / llamadas,
+                (double) filasLeidas.get() / llamadas);
+    }
+
+    @TearDown
+    public void cerrar() throws IOException {
+        entityManager.close();
+        sessionFactory.close();
+        postgres.close();
+    }
+
+    // Primera página de /doctors con paginación por clave
+    @Benchmark
+    public List<Doctor> findPageAfter() {
+        return llamar(() -> repository.findPageAfter(null, null, null, null, PageRequest.of(0, PAGINA)));
+    }
+
+    // Primer bloque de un tramo de la sincronización masiva
+    @Benchmark
+    public List<Doctor> findSliceAfter() {
+        return llamar(() -> repository.findSliceAfter(null, null, null, PageRequest.of(0, PAGINA)));
+    }
+
+    // Listado paginado clásico (select + count)
+    @Benchmark
+    public Object findAllPaginado() {
+        return llamar(() -> repository.findAll(PageRequest.of(0, PAGINA)));
+    }
+
+    // Carga por ids de una página (outbox, disponibilidad, fallback de búsqueda)
+    @Benchmark
+    public List<Doctor> findAllById() {
+        return llamar(() -> repository.findAllById(ids));
+    }
+
+    // Sin caché de primer nivel entre llamadas: cada una carga filas y colecciones de cero
+    private <T> T llamar(Supplier<T> consulta) {
+        entityManager.clear();
+        llamadas++;
+        return consulta.get();
+    }
+
+    // Envuelve el DataSource y todo lo que cuelga de él para contar las filas de cada ResultSet
+    private <T> T contarFilas(Object real, Class<T> tipo) {
+        Object proxy = Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, (p, metodo, args) -> {
+            Object resultado;
+            try {
+                resultado = metodo.invoke(real, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (tipo == ResultSet.class && metodo.getName().equals("next") && Boolean.TRUE.equals(resultado)) {
+                filasLeidas.incrementAndGet();
+            }
+            Class<?> devuelto = metodo.getReturnType();
+            if (resultado != null && (devuelto == Connection.class || devuelto == ResultSet.class
+                    || Statement.class.isAssignableFrom(devuelto))) {
+                return contarFilas(resultado, devuelto);
+            }
+            return resultado;
+        });
+        return tipo.cast(proxy);
+    }
+}
@@ -0,0 +1,57 @@
+package com.hn.tgu.hospital.search;
+
+import com.hn.tgu.hospital.benchmark.DoctoresSinteticos;
+import com.hn.tgu.hospital.entity.Doctor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización JSON de DoctorIndex, la que se hace por cada documento leído o escrito
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DoctorIndexBenchmark {
+
+    private static final int TAMANO = 1024;
+
+    private List<DoctorIndex> indices;
+    private List<String> jsons;
+    private int siguiente;
+
+    @Setup
+    public void preparar() {
+        indices = new ArrayList<>(TAMANO);
+        jsons = new ArrayList<>(TAMANO);
+        for (Doctor doctor : DoctoresSinteticos.generar(TAMANO, 42)) {
+            DoctorIndex index = new DoctorIndex(doctor.getId(), doctor.getName(), doctor.getSpecialty(),
+                    doctor.getHospital(), doctor.getDescription(), doctor.getExperienceYears(),
+                    doctor.getRating(), doctor.isAvailable());
+            index.setTags(doctor.getTags());
+            index.setDiasLaborales(doctor.getDiasLaborales());
+            indices.add(index);
+            jsons.add(index.toJson());
+        }
+    }
+
+    @Benchmark
+    public String toJson() {
+        return indices.get(indice()).toJson();
+    }
+
+    @Benchmark
+    public DoctorIndex fromJson() {
+        return DoctorIndex.fromJson(jsons.get(indice()));
+    }
+
+    private int indice() {
+        siguiente = (siguiente + 1) & (TAMANO - 1);
+        return siguiente;
+    }
+}
@@ -0,0 +1,60 @@
+package com.hn.tgu.hospital.search;
+
+import com.hn.tgu.hospital.benchmark.DoctoresSinteticos;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construcción de la búsqueda avanzada de DoctorSearchRepository, sin llamar a Elasticsearch.
+ *
+ * "construir" mide solo los builders; "serializar" incluye además el JSON que se envía
+ * al cluster, que es lo que realmente se paga por petición.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DoctorSearchQueryBenchmark {
+
+    @Param({"texto", "filtros", "completa"})
+    public String consulta;
+
+    private String query;
+    private String specialty;
+    private String hospital;
+    private Integer minExperience;
+    private Integer maxExperience;
+    private Double minRating;
+    private Boolean available;
+    private List<String> tags;
+
+    @Setup
+    public void preparar() {
+        boolean texto = !"filtros".equals(consulta);
+        boolean filtros = !"texto".equals(consulta);
+        query = texto ? "cardiólogo pediatra urgencias" : null;
+        specialty = filtros ? DoctoresSinteticos.ESPECIALIDADES[0] : null;
+        hospital = filtros ? DoctoresSinteticos.HOSPITALES[0] : null;
+        minExperience = filtros ? 5 : null;
+        maxExperience = filtros ? 30 : null;
+        minRating = filtros ? 4.0 : null;
+        available = filtros ? Boolean.TRUE : null;
+        tags = filtros ? List.of(DoctoresSinteticos.TAGS[0], DoctoresSinteticos.TAGS[3]) : null;
+    }
+
+    @Benchmark
+    public SearchSourceBuilder construir() {
+        return DoctorSearchRepository.consultaAvanzada(query, specialty, hospital,
+                minExperience, maxExperience, minRating, null, available, tags);
+    }
+
+    @Benchmark
+    public String serializar() {
+        return construir().toString();
+    }
+}
@@ -0,0 +1,96 @@
+package com.hn.tgu.hospital.search;
+
+import com.hn.tgu.hospital.benchmark.DoctoresSinteticos;
+import com.hn.tgu.hospital.entity.Doctor;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Autocompletado en memoria: latencia de una sugerencia y de aplicar la escritura de un doctor.
+ *
+ * Con nombresUnicos=true se añade el número de doctor al nombre, para medir el tamaño del
+ * índice cuando no se repite ningún nombre (el generador sintético solo tiene ~1000 distintos).
+ * El número de nodos, la memoria aproximada y el tiempo de construcción del índice se
+ * imprimen en la preparación.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class IndiceSugerenciasBenchmark {
+
+    private static final String[] PREFIJOS = {"s", "so", "sof", "dr. m", "cardio", "hospital e", "lopez", "garcia ma"};
+    private static final Set<IndiceSugerencias.Tipo> TODOS = EnumSet.allOf(IndiceSugerencias.Tipo.class);
+
+    @Param({"10000", "100000"})
+    private int doctores;
+
+    @Param({"false", "true"})
+    private boolean nombresUnicos;
+
+    private IndiceSugerencias indice;
+    private List<String> ids;
+    private List<IndiceSugerencias.Ficha> fichas;
+    private int siguiente;
+
+    @Setup
+    public void preparar() {
+        List<Doctor> generados = DoctoresSinteticos.generar(doctores, 42);
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long antes = runtime.totalMemory() - runtime.freeMemory();
+
+        long inicio = System.nanoTime();
+        indice = new IndiceSugerencias(10);
+        ids = new ArrayList<>(doctores);
+        fichas = new ArrayList<>(doctores);
+        for (Doctor doctor : generados) {
+            String nombre = nombresUnicos ? doctor.getName() + " " + ids.size() : doctor.getName();
+            IndiceSugerencias.Ficha ficha = new IndiceSugerencias.Ficha(
+                    nombre, doctor.getSpecialty(), doctor.getHospital(), doctor.getRating());
+            indice.actualizar(doctor.getId(), ficha);
+            ids.add(doctor.getId());
+            fichas.add(ficha);
+        }
+        long construccionMs = (System.nanoTime() - inicio) / 1_000_000;
+
+        System.gc();
+        long despues = runtime.totalMemory() - runtime.freeMemory();
+        // Los doctores generados cuentan en las dos medidas, no en la diferencia
+        Reference.reachabilityFence(generados);
+        System.out.printf("%nÍndice: %d doctores, %d nodos, ~%d MB (incluye las fichas), construido en %d ms%n",
+                indice.doctores(), indice.nodos(), (despues - antes) / (1024 * 1024), construccionMs);
+    }
+
+    @Benchmark
+    public List<String> sugerir() {
+        siguiente = (siguiente + 1) % PREFIJOS.length;
+        return indice.sugerir(PREFIJOS[siguiente], TODOS, 10);
+    }
+
+    @Benchmark
+    public List<String> sugerirDoctores() {
+        siguiente = (siguiente + 1) % PREFIJOS.length;
+        return indice.sugerir(PREFIJOS[siguiente], EnumSet.of(IndiceSugerencias.Tipo.DOCTOR), 10);
+    }
+
+    // Cambio de rating de un doctor: el coste de una escritura recibida por el bus
+    @Benchmark
+    public void actualizar() {
+        siguiente = (siguiente + 1) % ids.size();
+        IndiceSugerencias.Ficha ficha = fichas.get(siguiente);
+        double rating = ficha.rating() >= 4.9 ? 3.0 : ficha.rating() + 0.1;
+        IndiceSugerencias.Ficha nueva = new IndiceSugerencias.Ficha(
+                ficha.nombre(), ficha.especialidad(), ficha.hospital(), rating);
+        fichas.set(siguiente, nueva);
+        indice.actualizar(ids.get(siguiente), nueva);
+    }
+}
@@ -0,0 +1,50 @@
+package com.hn.tgu.hospital.service;
+
+import com.hn.tgu.hospital.benchmark.DoctoresSinteticos;
+import com.hn.tgu.hospital.dto.DoctorDTO;
+import com.hn.tgu.hospital.entity.Doctor;
+import com.hn.tgu.hospital.search.DoctorIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversión de resultados de Elasticsearch (DoctorIndex) a DoctorDTO
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DoctorSearchServiceBenchmark {
+
+    private static final int TAMANO = 1024;
+
+    // Solo se usa la conversión, que no toca los repositorios
+    private final DoctorSearchService service = new DoctorSearchService();
+
+    private List<DoctorIndex> indices;
+    private int siguiente;
+
+    @Setup
+    public void preparar() {
+        indices = new ArrayList<>(TAMANO);
+        for (Doctor doctor : DoctoresSinteticos.generar(TAMANO, 42)) {
+            DoctorIndex index = new DoctorIndex(doctor.getId(), doctor.getName(), doctor.getSpecialty(),
+                    doctor.getHospital(), doctor.getDescription(), doctor.getExperienceYears(),
+                    doctor.getRating(), doctor.isAvailable());
+            index.setTags(doctor.getTags());
+            index.setDiasLaborales(doctor.getDiasLaborales());
+            indices.add(index);
+        }
+    }
+
+    @Benchmark
+    public DoctorDTO convertToDoctorDTO() {
+        siguiente = (siguiente + 1) & (TAMANO - 1);
+        return service.convertToDoctorDTO(indices.get(siguiente));
+    }
+}
@@ -0,0 +1,128 @@
+package com.hn.tgu.hospital.loadtest;
+
+import com.hn.tgu.hospital.entity.Doctor;
+import com.hn.tgu.hospital.repository.DoctorRepository;
+import com.hn.tgu.hospital.repository.DoctorSpecifications;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.HdrHistogram.Histogram;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Latencia de la búsqueda por nombre y del autocompletado en Postgres, antes y después de V6.
+ *
+ * Arranca el mismo entorno que {@link PruebaCarga} (Postgres embebido, Elasticsearch falso),
+ * inserta N doctores sintéticos y mide cada consulta por repositorio, sin HTTP:
+ * primero con lower(name) LIKE sobre la tabla sin índices de nombre (como antes de V6) y
+ * después de aplicar V5 y V6 con doctor_normalizar y los índices trigram y de prefijo.
+ * "contiene" mide un count (el coste de encontrar las filas, no de cargarlas) y "prefijo"
+ * la consulta del autocompletado (10 nombres por rating). Imprime también el número de
+ * coincidencias, para ver que "sofia" solo encuentra a "Sofía" con V6, y el plan de cada caso.
+ *
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.main=com.hn.tgu.hospital.loadtest.BusquedaNombre
+ *     -Dloadtest.args="--doctores=100000 --iteraciones=500"
+ *
+ * Los nombres sintéticos salen de un catálogo corto ("Dr. Nombre Apellido Apellido"), así
+ * que un solo nombre coincide con ~10% de las filas; las búsquedas de nombre y dos apellidos
+ * son las selectivas.
+ */
+public final class BusquedaNombre {
+
+    private static final String[] CONTIENE = {"sofia", "Sofía", "garcia", "sofia zelaya castro", "lopez mejia"};
+    private static final String[] PREFIJOS = {"dr", "dr. so", "dr. sofia", "Dr. Sofía Zel"};
+    private static final String[] MIGRACIONES = {
+        "db/migration/V5__Create_doctor_search_indexes.sql",
+        "db/migration/V6__Create_doctor_name_trgm_indexes.sql"
+    };
+
+    private BusquedaNombre() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> parametros = PruebaCarga.parametros(args);
+        int doctores = Integer.parseInt(parametros.getOrDefault("doctores", "100000"));
+        int iteraciones = Integer.parseInt(parametros.getOrDefault("iteraciones", "500"));
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+             FakeElasticsearch elasticsearch = new FakeElasticsearch(0, 4, 0)) {
+
+            ConfigurableApplicationContext context = PruebaCarga.arrancar(postgres, elasticsearch);
+            try {
+                PruebaCarga.sembrar(context, doctores);
+                DoctorRepository repository = context.getBean(DoctorRepository.class);
+                JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+                jdbc.execute("ANALYZE doctors");
+
+                System.out.println("\n=== Sin V6: lower(name) LIKE, sin índices de nombre ===");
+                medir(repository, jdbc, false, iteraciones, System.out);
+
+                for (String migracion : MIGRACIONES) {
+                    String sql = new ClassPathResource(migracion).getContentAsString(StandardCharsets.UTF_8);
+                    // Un solo execute: el driver separa las sentencias respetando los cuerpos $$...$$
+                    jdbc.execute(sql);
+                }
+                jdbc.execute("ANALYZE doctors");
+
+                System.out.println("\n=== Con V6: doctor_normalizar(name) con índices trigram y de prefijo ===");
+                medir(repository, jdbc, true, iteraciones, System.out);
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    private static void medir(DoctorRepository repository, JdbcTemplate jdbc, boolean normalizado,
+                              int iteraciones, PrintStream salida) {
+        salida.printf("%-26s %12s %9s %9s %9s%n", "consulta", "coincidencias", "p50 ms", "p99 ms", "max ms");
+        for (String texto : CONTIENE) {
+            Specification<Doctor> spec = DoctorSpecifications.nombreContiene(texto, normalizado);
+            Histogram h = latencias(iteraciones, () -> repository.count(spec));
+            fila(salida, "contiene '" + texto + "'", repository.count(spec), h);
+        }
+        for (String prefijo : PREFIJOS) {
+            Histogram h = latencias(iteraciones, () -> repository.nombresQueEmpiezanPor(prefijo, normalizado, 10));
+            fila(salida, "prefijo '" + prefijo + "'",
+                    repository.count(DoctorSpecifications.nombreEmpiezaPor(prefijo, normalizado)), h);
+        }
+
+        String nombre = normalizado ? "doctor_normalizar(name)" : "lower(name)";
+        String valor = normalizado ? "doctor_normalizar('%s')" : "lower('%s')";
+        plan(jdbc, salida, "SELECT count(*) FROM doctors WHERE " + nombre
+                + " LIKE '%' || " + valor.formatted("sofia zelaya castro") + " || '%'");
+        plan(jdbc, salida, "SELECT name FROM doctors WHERE " + nombre
+                + " LIKE " + valor.formatted("dr. sofia") + " || '%' ORDER BY rating DESC, id LIMIT 10");
+    }
+
+    private static Histogram latencias(int iteraciones, Supplier<?> consulta) {
+        // Calentamiento: caché de planes, buffers compartidos y JIT
+        for (int i = 0; i < Math.max(20, iteraciones / 10); i++) {
+            consulta.get();
+        }
+        Histogram histograma = new Histogram(3);
+        for (int i = 0; i < iteraciones; i++) {
+            long inicio = System.nanoTime();
+            consulta.get();
+            histograma.recordValue(System.nanoTime() - inicio);
+        }
+        return histograma;
+    }
+
+    private static void fila(PrintStream salida, String consulta, long coincidencias, Histogram h) {
+        salida.printf("%-26s %12d %9.2f %9.2f %9.2f%n", consulta, coincidencias,
+                h.getValueAtPercentile(50) / 1e6, h.getValueAtPercentile(99) / 1e6, h.getMaxValue() / 1e6);
+    }
+
+    private static void plan(JdbcTemplate jdbc, PrintStream salida, String sql) {
+        salida.println("\n" + sql);
+        List<String> lineas = jdbc.queryForList("EXPLAIN (ANALYZE, COSTS OFF) " + sql, String.class);
+        lineas.forEach(linea -> salida.println("    " + linea));
+    }
+}
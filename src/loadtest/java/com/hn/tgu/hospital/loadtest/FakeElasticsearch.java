@@ -0,0 +1,479 @@
+package com.hn.tgu.hospital.loadtest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Servidor HTTP en memoria que habla lo justo de la API de Elasticsearch 7.10 para
+ * DoctorSearchRepository, DoctorElasticsearchRepository y DoctorBulkIndexer:
+ * existencia y creación de índices, _mapping, _doc, _bulk, _search, _count, _refresh y alias
+ * (_aliases, _alias y listado de índices por patrón, para DoctorReindexer). Un alias con
+ * varios índices se resuelve al primero en orden alfabético.
+ *
+ * No evalúa las queries: _search devuelve los documentos en orden de id según from/size,
+ * con el total del índice, y calcula las agregaciones terms y range sobre todo el índice.
+ * Respeta _source.includes (campos de primer nivel) para que la vista resumen pese lo que en el cluster.
+ * Sirve para medir el coste del servicio (mapeo, serialización, cliente HTTP, base de datos),
+ * no la relevancia ni el coste del cluster; ese se puede simular con una latencia fija.
+ */
+public class FakeElasticsearch implements AutoCloseable {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> MAPA = new TypeReference<>() {
+    };
+    private static final Map<String, Object> SHARDS = Map.of("total", 1, "successful", 1, "skipped", 0, "failed", 0);
+
+    private final Map<String, ConcurrentSkipListMap<String, Map<String, Object>>> indices = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> alias = new ConcurrentHashMap<>();
+    private final AtomicLong secuencia = new AtomicLong();
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long latenciaMs;
+
+    /**
+     * Con hilos = 0 atiende cada petición en un hilo virtual, para que la latencia simulada
+     * no limite la concurrencia del propio Elasticsearch falso
+     */
+    public FakeElasticsearch(int puerto, int hilos, long latenciaMs) throws IOException {
+        this.latenciaMs = latenciaMs;
+        this.executor = hilos > 0 ? Executors.newFixedThreadPool(hilos) : Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", puerto), 1024);
+        this.server.createContext("/", this::atender);
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    public String uri() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public int documentos(String indice) {
+        Map<String, Map<String, Object>> docs = indices.get(resolver(indice));
+        return docs != null ? docs.size() : 0;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void atender(HttpExchange exchange) throws IOException {
+        try {
+            if (latenciaMs > 0) {
+                Thread.sleep(latenciaMs);
+            }
+            String metodo = exchange.getRequestMethod();
+            URI uri = exchange.getRequestURI();
+            List<String> partes = new ArrayList<>();
+            for (String parte : uri.getPath().split("/")) {
+                if (!parte.isEmpty()) {
+                    partes.add(parte);
+                }
+            }
+            byte[] cuerpo = leer(exchange);
+
+            if (partes.isEmpty()) {
+                responder(exchange, 200, Map.of(
+                        "name", "fake",
+                        "cluster_name", "loadtest",
+                        "version", Map.of("number", "7.10.2"),
+                        "tagline", "You Know, for Search"));
+            } else if (partes.get(0).equals("_bulk")) {
+                bulk(exchange, null, cuerpo);
+            } else if (partes.get(0).equals("_aliases")) {
+                actualizarAlias(exchange, cuerpo);
+            } else if (partes.get(0).equals("_alias") && partes.size() == 2) {
+                consultarAlias(exchange, partes.get(1));
+            } else if (partes.size() == 1) {
+                indice(exchange, metodo, partes.get(0));
+            } else {
+                String indice = resolver(partes.get(0));
+                switch (partes.get(1)) {
+                    case "_bulk" -> bulk(exchange, indice, cuerpo);
+                    case "_search" -> buscar(exchange, indice, cuerpo);
+                    case "_count" -> responder(exchange, 200, Map.of("count", documentos(indice), "_shards", SHARDS));
+                    case "_refresh", "_flush" -> responder(exchange, 200, Map.of("_shards", SHARDS));
+                    case "_mapping", "_settings" -> responder(exchange, 200,
+                            metodo.equals("GET") ? Map.of(indice, Map.of()) : Map.of("acknowledged", true));
+                    case "_doc", "_create" -> documento(exchange, metodo, indice,
+                            partes.size() > 2 ? partes.get(2) : null, cuerpo);
+                    default -> error(exchange, 400, "operación no soportada: " + uri.getPath());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            error(exchange, 500, e.toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void indice(HttpExchange exchange, String metodo, String nombre) throws IOException {
+        if (metodo.equals("GET") && nombre.endsWith("*")) {
+            listar(exchange, nombre.substring(0, nombre.length() - 1));
+            return;
+        }
+        String indice = resolver(nombre);
+        switch (metodo) {
+            case "HEAD" -> {
+                exchange.sendResponseHeaders(indices.containsKey(indice) ? 200 : 404, -1);
+            }
+            case "PUT" -> {
+                indices.putIfAbsent(indice, new ConcurrentSkipListMap<>());
+                responder(exchange, 200, Map.of("acknowledged", true, "shards_acknowledged", true, "index", indice));
+            }
+            case "DELETE" -> {
+                indices.remove(indice);
+                alias.values().forEach(destinos -> destinos.remove(indice));
+                responder(exchange, 200, Map.of("acknowledged", true));
+            }
+            default -> responder(exchange, indices.containsKey(indice) ? 200 : 404, Map.of(indice, Map.of()));
+        }
+    }
+
+    private void documento(HttpExchange exchange, String metodo, String indice, String id, byte[] cuerpo)
+            throws IOException {
+        ConcurrentSkipListMap<String, Map<String, Object>> docs =
+                indices.computeIfAbsent(indice, k -> new ConcurrentSkipListMap<>());
+        switch (metodo) {
+            case "GET" -> {
+                Map<String, Object> fuente = id != null ? docs.get(id) : null;
+                Map<String, Object> respuesta = new LinkedHashMap<>(cabecera(indice, id));
+                respuesta.put("found", fuente != null);
+                if (fuente != null) {
+                    respuesta.put("_version", 1);
+                    respuesta.put("_seq_no", 0);
+                    respuesta.put("_primary_term", 1);
+                    respuesta.put("_source", fuente);
+                }
+                responder(exchange, fuente != null ? 200 : 404, respuesta);
+            }
+            case "DELETE" -> {
+                boolean existia = id != null && docs.remove(id) != null;
+                responder(exchange, existia ? 200 : 404, resultado(indice, id, existia ? "deleted" : "not_found"));
+            }
+            default -> {
+                String documentoId = id != null ? id : "auto-" + secuencia.incrementAndGet();
+                boolean nuevo = docs.put(documentoId, objectMapper.readValue(cuerpo, MAPA)) == null;
+                responder(exchange, nuevo ? 201 : 200, resultado(indice, documentoId, nuevo ? "created" : "updated"));
+            }
+        }
+    }
+
+    private void bulk(HttpExchange exchange, String indicePorDefecto, byte[] cuerpo) throws IOException {
+        List<Object> items = new ArrayList<>();
+        boolean errores = false;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new java.io.ByteArrayInputStream(cuerpo), StandardCharsets.UTF_8))) {
+            String linea;
+            while ((linea = reader.readLine()) != null) {
+                if (linea.isBlank()) {
+                    continue;
+                }
+                Map<String, Object> accion = objectMapper.readValue(linea, MAPA);
+                String operacion = accion.keySet().iterator().next();
+                @SuppressWarnings("unchecked")
+                Map<String, Object> meta = (Map<String, Object>) accion.get(operacion);
+                String indice = resolver((String) meta.getOrDefault("_index", indicePorDefecto));
+                String id = (String) meta.get("_id");
+                ConcurrentSkipListMap<String, Map<String, Object>> docs =
+                        indices.computeIfAbsent(indice, k -> new ConcurrentSkipListMap<>());
+
+                Map<String, Object> item;
+                if (operacion.equals("delete")) {
+                    boolean existia = docs.remove(id) != null;
+                    item = resultado(indice, id, existia ? "deleted" : "not_found");
+                    item.put("status", existia ? 200 : 404);
+                } else {
+                    Map<String, Object> fuente = objectMapper.readValue(reader.readLine(), MAPA);
+                    if (operacion.equals("update")) {
+                        @SuppressWarnings("unchecked")
+                        Map<String, Object> cambios = (Map<String, Object>) fuente.get("doc");
+                        docs.merge(id, cambios, (actual, nuevo) -> {
+                            Map<String, Object> combinado = new LinkedHashMap<>(actual);
+                            combinado.putAll(nuevo);
+                            return combinado;
+                        });
+                        item = resultado(indice, id, "updated");
+                        item.put("status", 200);
+                    } else if (operacion.equals("create") && docs.containsKey(id)) {
+                        item = new LinkedHashMap<>(cabecera(indice, id));
+                        item.put("status", 409);
+                        errores = true;
+                        item.put("error", Map.of("type", "version_conflict_engine_exception",
+                                "reason", "[" + id + "]: version conflict, document already exists"));
+                    } else {
+                        boolean nuevo = docs.put(id, fuente) == null;
+                        item = resultado(indice, id, nuevo ? "created" : "updated");
+                        item.put("status", nuevo ? 201 : 200);
+                    }
+                }
+                items.add(Map.of(operacion, item));
+            }
+        }
+        responder(exchange, 200, Map.of("took", 1, "errors", errores, "items", items));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void buscar(HttpExchange exchange, String indice, byte[] cuerpo) throws IOException {
+        Map<String, Object> peticion = cuerpo.length > 0 ? objectMapper.readValue(cuerpo, MAPA) : Map.of();
+        int from = ((Number) peticion.getOrDefault("from", 0)).intValue();
+        int size = ((Number) peticion.getOrDefault("size", 10)).intValue();
+
+        Collection<Map<String, Object>> docs = indices.containsKey(indice)
+                ? indices.get(indice).values() : List.of();
+        Map<String, Map<String, Object>> porId = indices.getOrDefault(indice, new ConcurrentSkipListMap<>());
+
+        List<String> incluidos = incluidos(peticion.get("_source"));
+        List<Map<String, Object>> hits = new ArrayList<>();
+        int posicion = 0;
+        for (Map.Entry<String, Map<String, Object>> entry : porId.entrySet()) {
+            if (hits.size() >= size) {
+                break;
+            }
+            if (posicion++ < from) {
+                continue;
+            }
+            Map<String, Object> hit = new LinkedHashMap<>();
+            hit.put("_index", indice);
+            hit.put("_type", "_doc");
+            hit.put("_id", entry.getKey());
+            hit.put("_score", 1.0);
+            hit.put("_source", incluidos == null ? entry.getValue() : filtrar(entry.getValue(), incluidos));
+            hits.add(hit);
+        }
+
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("took", 1);
+        respuesta.put("timed_out", false);
+        respuesta.put("_shards", SHARDS);
+        respuesta.put("hits", Map.of(
+                "total", Map.of("value", docs.size(), "relation", "eq"),
+                "max_score", 1.0,
+                "hits", hits));
+
+        Object aggs = peticion.containsKey("aggregations") ? peticion.get("aggregations") : peticion.get("aggs");
+        if (aggs instanceof Map<?, ?> definiciones) {
+            respuesta.put("aggregations", agregar((Map<String, Object>) definiciones, docs));
+        }
+        responder(exchange, 200, respuesta);
+    }
+
+    /**
+     * Agregaciones terms y range sobre todos los documentos, con claves tipadas (typed_keys)
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> agregar(Map<String, Object> definiciones, Collection<Map<String, Object>> docs) {
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> definicion : definiciones.entrySet()) {
+            Map<String, Object> cuerpo = (Map<String, Object>) definicion.getValue();
+            if (cuerpo.get("terms") instanceof Map<?, ?> terms) {
+                String campo = (String) terms.get("field");
+                int size = terms.get("size") instanceof Number n ? n.intValue() : 10;
+                Map<Object, Long> conteos = new TreeMap<>((a, b) -> String.valueOf(a).compareTo(String.valueOf(b)));
+                boolean numerico = false;
+                for (Map<String, Object> doc : docs) {
+                    Object valor = doc.get(campo);
+                    // En variable aparte: el operador ternario con patrón dentro del for-each tumba a javac 21.0.1
+                    Collection<?> valores = valor instanceof Collection<?> lista ? lista : valor != null ? List.of(valor) : List.of();
+                    for (Object v : valores) {
+                        numerico |= v instanceof Number;
+                        conteos.merge(v, 1L, Long::sum);
+                    }
+                }
+                List<Map<String, Object>> buckets = new ArrayList<>();
+                conteos.entrySet().stream()
+                        .sorted(Map.Entry.<Object, Long>comparingByValue().reversed())
+                        .limit(size)
+                        .forEach(e -> buckets.add(Map.of("key", e.getKey(), "doc_count", e.getValue())));
+                resultado.put((numerico ? "lterms#" : "sterms#") + definicion.getKey(), Map.of(
+                        "doc_count_error_upper_bound", 0,
+                        "sum_other_doc_count", 0,
+                        "buckets", buckets));
+            } else if (cuerpo.get("range") instanceof Map<?, ?> range) {
+                String campo = (String) range.get("field");
+                List<Map<String, Object>> buckets = new ArrayList<>();
+                for (Object r : (List<Object>) range.get("ranges")) {
+                    Map<String, Object> rango = (Map<String, Object>) r;
+                    Double desde = rango.get("from") instanceof Number n ? n.doubleValue() : null;
+                    Double hasta = rango.get("to") instanceof Number n ? n.doubleValue() : null;
+                    long conteo = docs.stream()
+                            .map(doc -> doc.get(campo))
+                            .filter(v -> v instanceof Number)
+                            .mapToDouble(v -> ((Number) v).doubleValue())
+                            .filter(v -> (desde == null || v >= desde) && (hasta == null || v < hasta))
+                            .count();
+                    Map<String, Object> bucket = new LinkedHashMap<>();
+                    bucket.put("key", rango.getOrDefault("key",
+                            (desde != null ? desde : "*") + "-" + (hasta != null ? hasta : "*")));
+                    if (desde != null) {
+                        bucket.put("from", desde);
+                    }
+                    if (hasta != null) {
+                        bucket.put("to", hasta);
+                    }
+                    bucket.put("doc_count", conteo);
+                    buckets.add(bucket);
+                }
+                resultado.put("range#" + definicion.getKey(), Map.of("buckets", buckets));
+            }
+        }
+        return resultado;
+    }
+
+    // Acciones add, remove y remove_index de POST /_aliases, en orden
+    @SuppressWarnings("unchecked")
+    private void actualizarAlias(HttpExchange exchange, byte[] cuerpo) throws IOException {
+        Map<String, Object> peticion = objectMapper.readValue(cuerpo, MAPA);
+        for (Object elemento : (List<Object>) peticion.getOrDefault("actions", List.of())) {
+            Map<String, Object> accion = (Map<String, Object>) elemento;
+            String tipo = accion.keySet().iterator().next();
+            Map<String, Object> datos = (Map<String, Object>) accion.get(tipo);
+            for (String indice : nombres(datos, "index", "indices")) {
+                if (tipo.equals("remove_index")) {
+                    indices.remove(indice);
+                    alias.values().forEach(destinos -> destinos.remove(indice));
+                    continue;
+                }
+                for (String nombre : nombres(datos, "alias", "aliases")) {
+                    if (tipo.equals("add")) {
+                        alias.computeIfAbsent(nombre, k -> new ConcurrentSkipListSet<>()).add(indice);
+                    } else {
+                        alias.getOrDefault(nombre, new ConcurrentSkipListSet<>()).remove(indice);
+                    }
+                }
+            }
+        }
+        alias.values().removeIf(Set::isEmpty);
+        responder(exchange, 200, Map.of("acknowledged", true));
+    }
+
+    private void consultarAlias(HttpExchange exchange, String nombre) throws IOException {
+        Set<String> destinos = alias.get(nombre);
+        if (destinos == null || destinos.isEmpty()) {
+            responder(exchange, 404, Map.of("error", "alias [" + nombre + "] missing", "status", 404));
+            return;
+        }
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        for (String indice : destinos) {
+            respuesta.put(indice, Map.of("aliases", Map.of(nombre, Map.of())));
+        }
+        responder(exchange, 200, respuesta);
+    }
+
+    // GET /prefijo*: índices cuyo nombre empieza por el prefijo
+    private void listar(HttpExchange exchange, String prefijo) throws IOException {
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        for (String indice : new TreeMap<>(indices).keySet()) {
+            if (indice.startsWith(prefijo)) {
+                respuesta.put(indice, Map.of("aliases", Map.of(), "mappings", Map.of(), "settings", Map.of()));
+            }
+        }
+        responder(exchange, 200, respuesta);
+    }
+
+    private String resolver(String nombre) {
+        Set<String> destinos = nombre != null ? alias.get(nombre) : null;
+        return destinos != null && !destinos.isEmpty() ? destinos.iterator().next() : nombre;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> nombres(Map<String, Object> datos, String uno, String varios) {
+        if (datos.get(varios) instanceof List<?> lista) {
+            return (List<String>) lista;
+        }
+        return datos.get(uno) instanceof String nombre ? List.of(nombre) : List.of();
+    }
+
+    // Campos de _source.includes, o null si se pide el documento entero
+    @SuppressWarnings("unchecked")
+    private static List<String> incluidos(Object fuente) {
+        if (fuente instanceof Map<?, ?> filtro && filtro.get("includes") instanceof List<?> includes
+                && !includes.isEmpty()) {
+            return (List<String>) includes;
+        }
+        return null;
+    }
+
+    private static Map<String, Object> filtrar(Map<String, Object> fuente, List<String> campos) {
+        Map<String, Object> filtrada = new LinkedHashMap<>();
+        for (String campo : campos) {
+            if (fuente.containsKey(campo)) {
+                filtrada.put(campo, fuente.get(campo));
+            }
+        }
+        return filtrada;
+    }
+
+    private static Map<String, Object> cabecera(String indice, String id) {
+        Map<String, Object> cabecera = new LinkedHashMap<>();
+        cabecera.put("_index", indice);
+        cabecera.put("_type", "_doc");
+        cabecera.put("_id", id);
+        return cabecera;
+    }
+
+    private Map<String, Object> resultado(String indice, String id, String resultado) {
+        Map<String, Object> respuesta = new LinkedHashMap<>(cabecera(indice, id));
+        respuesta.put("_version", 1);
+        respuesta.put("result", resultado);
+        respuesta.put("_shards", Map.of("total", 1, "successful", 1, "failed", 0));
+        respuesta.put("_seq_no", secuencia.incrementAndGet());
+        respuesta.put("_primary_term", 1);
+        return respuesta;
+    }
+
+    private static byte[] leer(HttpExchange exchange) throws IOException {
+        InputStream entrada = exchange.getRequestBody();
+        if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            entrada = new GZIPInputStream(entrada);
+        }
+        return entrada.readAllBytes();
+    }
+
+    private static void error(HttpExchange exchange, int status, String motivo) throws IOException {
+        responder(exchange, status, Map.of(
+                "error", Map.of("type", "illegal_argument_exception", "reason", motivo),
+                "status", status));
+    }
+
+    private static void responder(HttpExchange exchange, int status, Object cuerpo) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(cuerpo);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, json.length);
+        try (OutputStream salida = exchange.getResponseBody()) {
+            salida.write(json);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.hn.tgu.hospital.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generador de carga de tasa fija (modelo abierto) o de clientes concurrentes (modelo cerrado).
+ *
+ * En {@link #ejecutar} las peticiones salen en instantes programados (inicio + i / tasa),
+ * repartidas por turnos entre los escenarios, tarde lo que tarde en responder el servicio.
+ * La latencia se mide desde el instante programado y no desde el envío real, para no ocultar
+ * la espera cuando el servicio se satura (coordinated omission). En {@link #ejecutarClientes}
+ * cada cliente envía la siguiente petición al recibir la anterior, para medir el throughput
+ * que se sostiene con una concurrencia dada. Lo que se envía durante el calentamiento no se cuenta.
+ */
+public class GeneradorCarga {
+
+    private static final long MAX_LATENCIA_NS = TimeUnit.MINUTES.toNanos(2);
+
+    /**
+     * Endpoint a ejercitar y rutas (con query string) que se van alternando
+     */
+    public record Escenario(String nombre, List<String> rutas) {
+    }
+
+    /**
+     * Resultado por escenario: latencias de las respuestas 2xx y errores
+     */
+    public record Resultado(String nombre, Histogram latencias, long errores, double segundos) {
+
+        public double throughput() {
+            return latencias.getTotalCount() / segundos;
+        }
+    }
+
+    private final URI base;
+    private final HttpClient client;
+    private final ExecutorService executor;
+    private final Duration timeout;
+
+    public GeneradorCarga(URI base, int conexiones, Duration timeout) {
+        this.base = base;
+        this.timeout = timeout;
+        this.executor = Executors.newFixedThreadPool(conexiones);
+        this.client = HttpClient.newBuilder()
+                .executor(executor)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /**
+     * Lanza peticiones a la tasa dada (peticiones por segundo en total) durante
+     * calentamiento + duracion y devuelve las medidas de la parte de duracion
+     */
+    public List<Resultado> ejecutar(List<Escenario> escenarios, double tasa,
+                                    Duration calentamiento, Duration duracion) throws InterruptedException {
+        Map<String, Histogram> latencias = new LinkedHashMap<>();
+        Map<String, AtomicLong> errores = new LinkedHashMap<>();
+        for (Escenario escenario : escenarios) {
+            latencias.put(escenario.nombre(), new ConcurrentHistogram(MAX_LATENCIA_NS, 3));
+            errores.put(escenario.nombre(), new AtomicLong());
+        }
+
+        long intervalo = (long) (TimeUnit.SECONDS.toNanos(1) / tasa);
+        long inicio = System.nanoTime();
+        long inicioMedida = inicio + calentamiento.toNanos();
+        long fin = inicioMedida + duracion.toNanos();
+        AtomicLong pendientes = new AtomicLong();
+
+        for (long i = 0; ; i++) {
+            long programado = inicio + i * intervalo;
+            if (programado >= fin) {
+                break;
+            }
+            long espera;
+            while ((espera = programado - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(espera);
+            }
+
+            Escenario escenario = escenarios.get((int) (i % escenarios.size()));
+            String ruta = escenario.rutas().get((int) ((i / escenarios.size()) % escenario.rutas().size()));
+            boolean medir = programado >= inicioMedida;
+            HttpRequest request = HttpRequest.newBuilder(base.resolve(ruta))
+                    .timeout(timeout)
+                    .GET()
+                    .build();
+
+            pendientes.incrementAndGet();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        long latencia = System.nanoTime() - programado;
+                        if (medir) {
+                            if (error == null && response.statusCode() / 100 == 2) {
+                                latencias.get(escenario.nombre()).recordValue(Math.min(latencia, MAX_LATENCIA_NS));
+                            } else {
+                                errores.get(escenario.nombre()).incrementAndGet();
+                            }
+                        }
+                        pendientes.decrementAndGet();
+                    });
+        }
+
+        // Esperar a las respuestas en vuelo (como mucho el timeout de una petición)
+        long limite = System.nanoTime() + timeout.toNanos();
+        while (pendientes.get() > 0 && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+        if (pendientes.get() > 0) {
+            System.err.println("⚠️ Quedaron " + pendientes.get() + " peticiones sin respuesta al terminar");
+        }
+
+        double segundos = duracion.toNanos() / 1e9;
+        return escenarios.stream()
+                .map(e -> new Resultado(e.nombre(), latencias.get(e.nombre()), errores.get(e.nombre()).get(), segundos))
+                .toList();
+    }
+
+    /**
+     * Mantiene el número dado de clientes con una petición en vuelo cada uno durante
+     * calentamiento + duracion y devuelve las medidas de la parte de duracion; la latencia
+     * es la de cada petición desde su envío
+     */
+    public List<Resultado> ejecutarClientes(List<Escenario> escenarios, int clientes,
+                                            Duration calentamiento, Duration duracion) throws InterruptedException {
+        Map<String, Histogram> latencias = new LinkedHashMap<>();
+        Map<String, AtomicLong> errores = new LinkedHashMap<>();
+        for (Escenario escenario : escenarios) {
+            latencias.put(escenario.nombre(), new ConcurrentHistogram(MAX_LATENCIA_NS, 3));
+            errores.put(escenario.nombre(), new AtomicLong());
+        }
+
+        long inicioMedida = System.nanoTime() + calentamiento.toNanos();
+        long fin = inicioMedida + duracion.toNanos();
+        AtomicLong siguiente = new AtomicLong();
+        CountDownLatch terminados = new CountDownLatch(clientes);
+
+        Runnable[] cliente = new Runnable[1];
+        cliente[0] = () -> {
+            long envio = System.nanoTime();
+            if (envio >= fin) {
+                terminados.countDown();
+                return;
+            }
+            long i = siguiente.getAndIncrement();
+            Escenario escenario = escenarios.get((int) (i % escenarios.size()));
+            String ruta = escenario.rutas().get((int) ((i / escenarios.size()) % escenario.rutas().size()));
+            boolean medir = envio >= inicioMedida;
+            HttpRequest request = HttpRequest.newBuilder(base.resolve(ruta))
+                    .timeout(timeout)
+                    .GET()
+                    .build();
+            // Async para no encadenar en la pila del hilo que completa si la respuesta ya está
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenCompleteAsync((response, error) -> {
+                        if (medir) {
+                            if (error == null && response.statusCode() / 100 == 2) {
+                                long latencia = System.nanoTime() - envio;
+                                latencias.get(escenario.nombre()).recordValue(Math.min(latencia, MAX_LATENCIA_NS));
+                            } else {
+                                errores.get(escenario.nombre()).incrementAndGet();
+                            }
+                        }
+                        cliente[0].run();
+                    }, executor);
+        };
+        for (int c = 0; c < clientes; c++) {
+            cliente[0].run();
+        }
+
+        if (!terminados.await(calentamiento.plus(duracion).plus(timeout).toNanos(), TimeUnit.NANOSECONDS)) {
+            System.err.println("⚠️ Quedaron " + terminados.getCount() + " clientes sin respuesta al terminar");
+        }
+
+        double segundos = duracion.toNanos() / 1e9;
+        return escenarios.stream()
+                .map(e -> new Resultado(e.nombre(), latencias.get(e.nombre()), errores.get(e.nombre()).get(), segundos))
+                .toList();
+    }
+
+    public void cerrar() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Tabla de percentiles y throughput por escenario
+     */
+    public static void imprimir(List<Resultado> resultados, PrintStream salida) {
+        salida.printf("%-14s %9s %7s %10s %9s %9s %9s %9s%n",
+                "escenario", "ok", "errores", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Resultado resultado : resultados) {
+            Histogram h = resultado.latencias();
+            salida.printf("%-14s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    resultado.nombre(), h.getTotalCount(), resultado.errores(), resultado.throughput(),
+                    ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(99)),
+                    ms(h.getValueAtPercentile(99.9)), ms(h.getMaxValue()));
+        }
+    }
+
+    /**
+     * Guarda la distribución completa de cada escenario en formato .hgrm (en milisegundos)
+     */
+    public static void guardar(List<Resultado> resultados, Path directorio) throws IOException {
+        Files.createDirectories(directorio);
+        for (Resultado resultado : resultados) {
+            try (PrintStream salida = new PrintStream(
+                    Files.newOutputStream(directorio.resolve(resultado.nombre() + ".hgrm")))) {
+                resultado.latencias().outputPercentileDistribution(salida, 1e6);
+            }
+        }
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1e6;
+    }
+}
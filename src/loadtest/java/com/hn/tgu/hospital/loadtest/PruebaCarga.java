@@ -0,0 +1,227 @@
+package com.hn.tgu.hospital.loadtest;
+
+import com.hn.tgu.hospital.DoctorServiceApplication;
+import com.hn.tgu.hospital.benchmark.DoctoresSinteticos;
+import com.hn.tgu.hospital.elasticsearch.DoctorBulkIndexer;
+import com.hn.tgu.hospital.entity.Doctor;
+import com.hn.tgu.hospital.repository.DoctorRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Prueba de carga autocontenida del servicio de doctores.
+ *
+ * Arranca un Postgres embebido y un Elasticsearch falso ({@link FakeElasticsearch}), levanta
+ * la aplicación contra ellos sin Eureka, inserta N doctores sintéticos, los indexa con
+ * {@link DoctorBulkIndexer} y lanza carga de tasa fija sobre /doctors/list,
+ * /doctors/search/advanced y /doctors/elasticsearch/search-with-facets (y sus variantes /async).
+ *
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--doctores=10000 --tasa=200 --duracion=60"
+ *
+ * Parámetros (--clave=valor): doctores (10000), tasa en peticiones/s totales (100),
+ * calentamiento y duracion en segundos (15 y 60), conexiones del cliente (64),
+ * es-latencia-ms para simular la latencia de red hasta el cluster (0), es-hilos del
+ * Elasticsearch falso (32), escenarios (list,advanced,facets,advanced-async,facets-async,facets-summary,multi) y
+ * list-limit para usar /doctors/list?limit= en lugar del listado completo. Los histogramas
+ * completos quedan en target/loadtest/*.hgrm.
+ *
+ * Para comparar la búsqueda bloqueante con la asíncrona, tomcat-hilos fija
+ * server.tomcat.threads.max y es-conexiones el pool del cliente de Elasticsearch; con
+ * latencia simulada, el camino bloqueante queda limitado a unos tomcat-hilos / latencia
+ * peticiones/s y el asíncrono al pool de conexiones:
+ *
+ * --escenarios=advanced --tomcat-hilos=16 --es-latencia-ms=50 --es-hilos=1000 --es-conexiones=1000 --conexiones=1000 --tasa=2000
+ * --escenarios=advanced-async (mismos parámetros)
+ *
+ * Con clientes=N la carga es de N clientes concurrentes (modelo cerrado) en lugar de tasa
+ * fija, y hilos-virtuales=true arranca el servicio con spring.threads.virtual.enabled. Para
+ * comparar el throughput con hilos de plataforma y virtuales a 1k y 10k clientes:
+ *
+ * --escenarios=list,advanced,facets --clientes=1000 --conexiones=1000 --es-latencia-ms=20 --es-hilos=0
+ * --escenarios=list,advanced,facets --clientes=1000 --conexiones=1000 --es-latencia-ms=20 --es-hilos=0 --hilos-virtuales=true
+ * (y lo mismo con --clientes=10000; hace falta ulimit -n por encima de 2 x clientes)
+ */
+public final class PruebaCarga {
+
+    private static final String INDICE = "doctores";
+    private static final int LOTE = 1000;
+
+    private PruebaCarga() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> parametros = parametros(args);
+        int doctores = Integer.parseInt(parametros.getOrDefault("doctores", "10000"));
+        double tasa = Double.parseDouble(parametros.getOrDefault("tasa", "100"));
+        Duration calentamiento = Duration.ofSeconds(Long.parseLong(parametros.getOrDefault("calentamiento", "15")));
+        Duration duracion = Duration.ofSeconds(Long.parseLong(parametros.getOrDefault("duracion", "60")));
+        int conexiones = Integer.parseInt(parametros.getOrDefault("conexiones", "64"));
+        long latenciaEs = Long.parseLong(parametros.getOrDefault("es-latencia-ms", "0"));
+        List<String> nombres = List.of(parametros.getOrDefault("escenarios", "list,advanced,facets").split(","));
+        String listLimit = parametros.get("list-limit");
+        int hilosEs = Integer.parseInt(parametros.getOrDefault("es-hilos", "32"));
+        int clientes = Integer.parseInt(parametros.getOrDefault("clientes", "0"));
+        boolean hilosVirtuales = Boolean.parseBoolean(parametros.getOrDefault("hilos-virtuales", "false"));
+
+        Map<String, Object> ajustes = new HashMap<>();
+        if (parametros.containsKey("tomcat-hilos")) {
+            ajustes.put("server.tomcat.threads.max", parametros.get("tomcat-hilos"));
+        }
+        ajustes.put("spring.threads.virtual.enabled", hilosVirtuales);
+        if (clientes > 0) {
+            // Tomcat acepta 8192 conexiones por defecto; el resto esperaría en el backlog
+            ajustes.put("server.tomcat.max-connections", Math.max(8192, clientes + 1000));
+        }
+        if (parametros.containsKey("es-conexiones")) {
+            ajustes.put("elasticsearch.client.max-connections", parametros.get("es-conexiones"));
+            ajustes.put("elasticsearch.client.max-connections-per-route", parametros.get("es-conexiones"));
+        }
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+             FakeElasticsearch elasticsearch = new FakeElasticsearch(0, hilosEs, latenciaEs)) {
+
+            ConfigurableApplicationContext context = arrancar(postgres, elasticsearch, ajustes);
+            try {
+                sembrar(context, doctores);
+                Map<String, Object> sync = context.getBean(DoctorBulkIndexer.class).syncAll(true);
+                System.out.println("📦 Indexados en Elasticsearch falso: " + elasticsearch.documentos(INDICE)
+                        + " (" + sync.get("durationMs") + " ms)");
+
+                String puerto = context.getEnvironment().getProperty("local.server.port");
+                GeneradorCarga generador = new GeneradorCarga(
+                        URI.create("http://127.0.0.1:" + puerto), conexiones, Duration.ofSeconds(30));
+                try {
+                    List<GeneradorCarga.Escenario> escenarios = escenarios(nombres, listLimit);
+                    List<GeneradorCarga.Resultado> resultados;
+                    if (clientes > 0) {
+                        System.out.printf("🚀 %s con %d clientes (hilos %s): %ds de calentamiento + %ds de medida%n",
+                                nombres, clientes, hilosVirtuales ? "virtuales" : "de plataforma",
+                                calentamiento.toSeconds(), duracion.toSeconds());
+                        resultados = generador.ejecutarClientes(escenarios, clientes, calentamiento, duracion);
+                    } else {
+                        System.out.printf("🚀 %s a %.0f req/s: %ds de calentamiento + %ds de medida%n",
+                                nombres, tasa, calentamiento.toSeconds(), duracion.toSeconds());
+                        resultados = generador.ejecutar(escenarios, tasa, calentamiento, duracion);
+                    }
+                    GeneradorCarga.imprimir(resultados, System.out);
+                    GeneradorCarga.guardar(resultados, Path.of("target", "loadtest"));
+                } finally {
+                    generador.cerrar();
+                }
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    static ConfigurableApplicationContext arrancar(EmbeddedPostgres postgres, FakeElasticsearch elasticsearch) {
+        return arrancar(postgres, elasticsearch, Map.of());
+    }
+
+    /**
+     * Arranca la aplicación con propiedades adicionales que sustituyen a las de la prueba
+     */
+    static ConfigurableApplicationContext arrancar(EmbeddedPostgres postgres, FakeElasticsearch elasticsearch,
+                                                   Map<String, Object> ajustes) {
+        Map<String, Object> propiedades = new HashMap<>();
+        propiedades.put("server.port", 0);
+        propiedades.put("spring.profiles.active", "loadtest");
+        propiedades.put("spring.datasource.url", postgres.getJdbcUrl("postgres", "postgres"));
+        propiedades.put("spring.datasource.username", "postgres");
+        propiedades.put("spring.datasource.password", "");
+        // Igual que en producción: esquema gestionado por Hibernate
+        propiedades.put("spring.jpa.hibernate.ddl-auto", "update");
+        propiedades.put("spring.jpa.open-in-view", false);
+        propiedades.put("spring.data.elasticsearch.uris", elasticsearch.uri());
+        propiedades.put("eureka.client.enabled", false);
+        propiedades.put("spring.cloud.discovery.enabled", false);
+        propiedades.put("management.health.elasticsearch.enabled", false);
+        propiedades.put("logging.level.root", "WARN");
+        propiedades.putAll(ajustes);
+
+        // devtools está en el classpath y, si no, relanza el main de la prueba en otro hilo con los
+        // argumentos de Spring en lugar de los de la prueba (solo lee esta propiedad del sistema)
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        // Como argumentos de línea de comandos, para que ganen a application.yml y al perfil prod
+        String[] args = propiedades.entrySet().stream()
+                .map(e -> "--" + e.getKey() + "=" + e.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(DoctorServiceApplication.class).run(args);
+    }
+
+    static void sembrar(ConfigurableApplicationContext context, int total) {
+        DoctorRepository repository = context.getBean(DoctorRepository.class);
+        TransactionTemplate transaction = context.getBean(TransactionTemplate.class);
+        List<Doctor> doctores = DoctoresSinteticos.generar(total, 42);
+        long inicio = System.currentTimeMillis();
+        for (int desde = 0; desde < doctores.size(); desde += LOTE) {
+            List<Doctor> lote = doctores.subList(desde, Math.min(desde + LOTE, doctores.size()));
+            // El id lo genera Hibernate
+            lote.forEach(doctor -> doctor.setId(null));
+            transaction.executeWithoutResult(status -> repository.saveAll(lote));
+        }
+        System.out.println("🌱 " + total + " doctores insertados en " + (System.currentTimeMillis() - inicio) + " ms");
+    }
+
+    private static List<GeneradorCarga.Escenario> escenarios(List<String> nombres, String listLimit) {
+        SplittableRandom random = new SplittableRandom(7);
+        List<GeneradorCarga.Escenario> escenarios = new ArrayList<>();
+        for (String nombre : nombres) {
+            List<String> rutas = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                String especialidad = elegir(DoctoresSinteticos.ESPECIALIDADES, random);
+                String tag = elegir(DoctoresSinteticos.TAGS, random);
+                switch (nombre.trim()) {
+                    case "list" -> rutas.add(listLimit != null ? "/doctors/list?limit=" + listLimit : "/doctors/list");
+                    case "advanced", "advanced-async" -> rutas.add("/doctors/search/advanced"
+                            + (nombre.trim().endsWith("-async") ? "/async" : "")
+                            + "?query=" + codificar(especialidad)
+                            + (i % 2 == 0 ? "&available=true&minRating=4.0" : "&tags=" + codificar(tag)));
+                    case "facets", "facets-async" -> rutas.add("/doctors/elasticsearch/search-with-facets"
+                            + (nombre.trim().endsWith("-async") ? "/async" : "")
+                            + "?query=" + codificar(especialidad) + "&page=" + (i % 5) + "&size=20");
+                    case "facets-summary" -> rutas.add("/doctors/elasticsearch/search-with-facets?query="
+                            + codificar(especialidad) + "&page=" + (i % 5) + "&size=20&view=summary");
+                    case "multi" -> rutas.add("/doctors/search/multi?query=" + codificar(especialidad)
+                            + (i % 2 == 0 ? "&available=true&minRating=4.0" : "&tags=" + codificar(tag)));
+                    default -> throw new IllegalArgumentException("Escenario desconocido: " + nombre);
+                }
+            }
+            escenarios.add(new GeneradorCarga.Escenario(nombre.trim(), rutas));
+        }
+        return escenarios;
+    }
+
+    static Map<String, String> parametros(String[] args) {
+        Map<String, String> parametros = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int igual = arg.indexOf('=');
+                parametros.put(arg.substring(2, igual), arg.substring(igual + 1));
+            }
+        }
+        return parametros;
+    }
+
+    private static String elegir(String[] valores, SplittableRandom random) {
+        return valores[random.nextInt(valores.length)];
+    }
+
+    private static String codificar(String valor) {
+        return URLEncoder.encode(valor, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,54 @@
+package com.hn.tgu.hospital.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Entrega local de invalidaciones, común a todas las implementaciones del canal
+ */
+public abstract class AbstractDoctorInvalidationBus implements DoctorInvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(AbstractDoctorInvalidationBus.class);
+
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void suscribir(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Entrega a los suscriptores de esta instancia después del commit, o ya si no hay transacción
+     */
+    protected void entregarAlConfirmar(String doctorId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    entregar(doctorId);
+                }
+            });
+        } else {
+            entregar(doctorId);
+        }
+    }
+
+    /**
+     * Entrega inmediata a los suscriptores de esta instancia
+     */
+    protected void entregar(String doctorId) {
+        for (Consumer<String> listener : listeners) {
+            try {
+                listener.accept(doctorId);
+            } catch (Exception e) {
+                logger.warn("⚠️ Error entregando invalidación del doctor {}: {}", doctorId, e.getMessage());
+            }
+        }
+    }
+}
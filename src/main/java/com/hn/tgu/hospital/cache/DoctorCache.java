@@ -0,0 +1,110 @@
+package com.hn.tgu.hospital.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hn.tgu.hospital.dto.DoctorDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Caché en memoria de doctores ya mapeados a DTO, por id.
+ *
+ * Acotada por tamaño y por tiempo; también guarda los ids inexistentes para que
+ * /doctors/exists no vuelva a la base de datos. El conteo total se guarda aparte con
+ * un TTL corto. Las escrituras llegan por {@link DoctorInvalidationBus}.
+ * Los DTO devueltos son compartidos: no se deben modificar.
+ *
+ * Los fallos se cargan fuera de la caché y no con Cache.get(clave, cargador): Caffeine
+ * ejecuta el cargador dentro del compute del mapa, con el lock de la cubeta (synchronized),
+ * y eso fijaría el hilo virtual a su carrier mientras espera a Postgres. A cambio, dos fallos
+ * a la vez del mismo id lo cargan los dos. Para no guardar un valor leído antes de una
+ * invalidación, cada invalidación sube una generación y solo se guarda lo cargado en la misma.
+ */
+@Component
+public class DoctorCache {
+
+    private static final String CLAVE_CONTEO = "count";
+
+    private final Cache<String, Optional<DoctorDTO>> doctores;
+    private final Cache<String, Long> conteo;
+    private final AtomicLong generacion = new AtomicLong();
+
+    public DoctorCache(DoctorInvalidationBus invalidationBus,
+                       MeterRegistry meterRegistry,
+                       @Value("${doctors.cache.max-size:10000}") long maxSize,
+                       @Value("${doctors.cache.ttl:10m}") Duration ttl,
+                       @Value("${doctors.cache.count-ttl:30s}") Duration countTtl) {
+        this.doctores = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.conteo = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(countTtl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, doctores, "doctors.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, conteo, "doctors.count");
+
+        invalidationBus.suscribir(this::invalidar);
+    }
+
+    /**
+     * Doctor por id, cargándolo con el cargador si no está en la caché
+     */
+    public Optional<DoctorDTO> obtener(String id, Function<String, Optional<DoctorDTO>> cargador) {
+        Optional<DoctorDTO> enCache = doctores.getIfPresent(id);
+        if (enCache != null) {
+            return enCache;
+        }
+        long leida = generacion.get();
+        Optional<DoctorDTO> cargado = cargador.apply(id);
+        guardar(doctores, id, cargado, leida);
+        return cargado;
+    }
+
+    /**
+     * Número total de doctores, cargándolo con el cargador si no está en la caché
+     */
+    public long contar(Supplier<Long> cargador) {
+        Long enCache = conteo.getIfPresent(CLAVE_CONTEO);
+        if (enCache != null) {
+            return enCache;
+        }
+        long leida = generacion.get();
+        Long cargado = cargador.get();
+        guardar(conteo, CLAVE_CONTEO, cargado, leida);
+        return cargado;
+    }
+
+    /**
+     * Invalida un doctor (o todos con {@link DoctorInvalidationBus#TODOS}) y el conteo
+     */
+    public void invalidar(String doctorId) {
+        generacion.incrementAndGet();
+        if (doctorId == null || DoctorInvalidationBus.TODOS.equals(doctorId)) {
+            doctores.invalidateAll();
+        } else {
+            doctores.invalidate(doctorId);
+        }
+        conteo.invalidateAll();
+    }
+
+    /**
+     * Guarda un valor cargado si desde que se leyó no ha habido invalidaciones. El compute
+     * no hace E/S: solo compara la generación, así que el lock se suelta enseguida
+     */
+    private <V> void guardar(Cache<String, V> cache, String clave, V valor, long leida) {
+        cache.asMap().compute(clave, (k, actual) -> generacion.get() == leida ? valor : actual);
+    }
+}
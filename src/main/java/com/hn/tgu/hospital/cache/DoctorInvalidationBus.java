@@ -0,0 +1,28 @@
+package com.hn.tgu.hospital.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Canal de difusión de escrituras de doctores entre instancias.
+ *
+ * Las escrituras publican el id del doctor dentro de su transacción; los suscriptores
+ * (cachés en memoria de esta y de las demás instancias) lo reciben cuando la transacción
+ * se confirma.
+ */
+public interface DoctorInvalidationBus {
+
+    /**
+     * Id especial que indica que hay que invalidar todo (p. ej. tras perder la conexión del canal)
+     */
+    String TODOS = "*";
+
+    /**
+     * Publica la escritura de un doctor; se entrega al confirmarse la transacción en curso
+     */
+    void publicar(String doctorId);
+
+    /**
+     * Registra un suscriptor que recibe el id del doctor modificado o {@link #TODOS}
+     */
+    void suscribir(Consumer<String> listener);
+}
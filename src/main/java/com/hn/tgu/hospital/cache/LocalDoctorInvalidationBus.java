@@ -0,0 +1,18 @@
+package com.hn.tgu.hospital.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Canal solo en memoria: las invalidaciones no salen de esta instancia.
+ * Útil con una sola instancia y en pruebas.
+ */
+@Component
+@ConditionalOnProperty(name = "doctors.cache.broadcast", havingValue = "local")
+public class LocalDoctorInvalidationBus extends AbstractDoctorInvalidationBus {
+
+    @Override
+    public void publicar(String doctorId) {
+        entregarAlConfirmar(doctorId);
+    }
+}
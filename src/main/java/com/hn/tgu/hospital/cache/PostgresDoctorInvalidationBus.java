@@ -0,0 +1,113 @@
+package com.hn.tgu.hospital.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Canal de invalidación entre instancias con LISTEN/NOTIFY de Postgres.
+ *
+ * Todas las instancias registradas en Eureka comparten la base de datos, así que cada
+ * una escucha el canal doctor_cache en una conexión dedicada. NOTIFY es transaccional:
+ * la notificación solo sale si la escritura se confirma. Al reconectar se invalida
+ * todo, porque las notificaciones enviadas mientras tanto se pierden.
+ */
+@Component
+@ConditionalOnProperty(name = "doctors.cache.broadcast", havingValue = "postgres", matchIfMissing = true)
+public class PostgresDoctorInvalidationBus extends AbstractDoctorInvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresDoctorInvalidationBus.class);
+
+    static final String CANAL = "doctor_cache";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${doctors.cache.listen-timeout:5s}")
+    private Duration listenTimeout;
+
+    @Value("${doctors.cache.reconnect-delay:5s}")
+    private Duration reconnectDelay;
+
+    private volatile boolean activo;
+    private Thread escucha;
+
+    public PostgresDoctorInvalidationBus(DataSource dataSource, JdbcTemplate jdbcTemplate) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void publicar(String doctorId) {
+        // Se ejecuta en la conexión de la transacción de escritura
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CANAL, doctorId);
+        // Esta instancia no espera a su propia notificación
+        entregarAlConfirmar(doctorId);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        activo = true;
+        escucha = new Thread(this::escuchar, "doctor-cache-listen");
+        escucha.setDaemon(true);
+        escucha.start();
+    }
+
+    @PreDestroy
+    public void detener() {
+        activo = false;
+        if (escucha != null) {
+            escucha.interrupt();
+        }
+    }
+
+    private void escuchar() {
+        while (activo) {
+            try (Connection conexion = dataSource.getConnection()) {
+                if (!conexion.isWrapperFor(PGConnection.class)) {
+                    logger.warn("⚠️ La base de datos no es Postgres; las invalidaciones no saldrán de esta instancia");
+                    return;
+                }
+                PGConnection pgConnection = conexion.unwrap(PGConnection.class);
+                try (Statement statement = conexion.createStatement()) {
+                    statement.execute("LISTEN " + CANAL);
+                }
+                logger.info("📡 Escuchando invalidaciones de doctores en el canal {}", CANAL);
+                entregar(TODOS);
+
+                while (activo) {
+                    PGNotification[] notificaciones = pgConnection.getNotifications((int) listenTimeout.toMillis());
+                    if (notificaciones != null) {
+                        for (PGNotification notificacion : notificaciones) {
+                            entregar(notificacion.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!activo) {
+                    return;
+                }
+                logger.warn("⚠️ Conexión del canal {} perdida: {}", CANAL, e.getMessage());
+                try {
+                    Thread.sleep(reconnectDelay.toMillis());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.hn.tgu.hospital.cache;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Foto inmutable de los valores de referencia (hospitales, especialidades y tags)
+ * con el número de doctores de cada valor. Cada dimensión lleva su propio ETag,
+ * calculado sobre el contenido, así que todas las instancias generan el mismo.
+ */
+public record ReferenceData(Dimension hospitals, Dimension specialties, Dimension tags,
+                            Instant generatedAt, String etag) {
+
+    public static ReferenceData of(Map<String, Long> hospitals, Map<String, Long> specialties,
+                                   Map<String, Long> tags) {
+        Dimension h = Dimension.of(hospitals);
+        Dimension s = Dimension.of(specialties);
+        Dimension t = Dimension.of(tags);
+        return new ReferenceData(h, s, t, Instant.now(), hash(h.etag() + s.etag() + t.etag()));
+    }
+
+    /**
+     * Valores de una dimensión en orden alfabético, con su conteo
+     */
+    public record Dimension(Map<String, Long> counts, List<String> values, String etag) {
+
+        static Dimension of(Map<String, Long> counts) {
+            Map<String, Long> copia = Collections.unmodifiableMap(new LinkedHashMap<>(counts));
+            return new Dimension(copia, List.copyOf(copia.keySet()), hash(copia.toString()));
+        }
+    }
+
+    private static String hash(String contenido) {
+        return DigestUtils.md5DigestAsHex(contenido.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,100 @@
+package com.hn.tgu.hospital.cache;
+
+import com.hn.tgu.hospital.repository.DoctorRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Mantiene en memoria la foto de {@link ReferenceData}.
+ *
+ * La foto se construye con tres consultas agregadas y se sustituye de una vez, así que
+ * los lectores nunca ven una foto a medias. Se reconstruye cuando llega una escritura
+ * de doctor por {@link DoctorInvalidationBus} (agrupando las escrituras de cada ciclo)
+ * y, en cualquier caso, cada doctors.reference-data.refresh-interval.
+ */
+@Component
+public class ReferenceDataCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+    private final DoctorRepository doctorRepository;
+    private final AtomicBoolean pendiente = new AtomicBoolean();
+    private volatile ReferenceData actual;
+    // Lock y no synchronized: la primera foto consulta Postgres, y un synchronized fijaría
+    // el hilo virtual a su carrier durante las consultas
+    private final ReentrantLock construccion = new ReentrantLock();
+
+    @Value("${doctors.reference-data.refresh-interval:5m}")
+    private Duration refreshInterval;
+
+    public ReferenceDataCache(DoctorRepository doctorRepository, DoctorInvalidationBus invalidationBus) {
+        this.doctorRepository = doctorRepository;
+        invalidationBus.suscribir(doctorId -> pendiente.set(true));
+    }
+
+    /**
+     * Foto actual; la primera llamada la construye
+     */
+    public ReferenceData obtener() {
+        ReferenceData foto = actual;
+        if (foto == null) {
+            construccion.lock();
+            try {
+                foto = actual;
+                if (foto == null) {
+                    foto = reconstruir();
+                }
+            } finally {
+                construccion.unlock();
+            }
+        }
+        return foto;
+    }
+
+    /**
+     * Reconstruye si hubo escrituras desde la última foto o si la foto es más antigua que el intervalo
+     */
+    @Scheduled(fixedDelayString = "${doctors.reference-data.debounce-ms:1000}")
+    public void reconstruirSiHaceFalta() {
+        ReferenceData foto = actual;
+        boolean caducada = foto != null && foto.generatedAt().plus(refreshInterval).isBefore(Instant.now());
+        if (pendiente.getAndSet(false) || caducada) {
+            try {
+                reconstruir();
+            } catch (Exception e) {
+                pendiente.set(true);
+                logger.warn("⚠️ No se pudo reconstruir la foto de datos de referencia: {}", e.getMessage());
+            }
+        }
+    }
+
+    private ReferenceData reconstruir() {
+        ReferenceData foto = ReferenceData.of(
+                contar(doctorRepository.countByHospital()),
+                contar(doctorRepository.countBySpecialty()),
+                contar(doctorRepository.countByTag()));
+        actual = foto;
+        logger.debug("Foto de datos de referencia reconstruida: {} hospitales, {} especialidades, {} tags",
+                foto.hospitals().values().size(), foto.specialties().values().size(), foto.tags().values().size());
+        return foto;
+    }
+
+    private static Map<String, Long> contar(List<Object[]> filas) {
+        Map<String, Long> conteos = new LinkedHashMap<>();
+        for (Object[] fila : filas) {
+            conteos.put((String) fila[0], (Long) fila[1]);
+        }
+        return conteos;
+    }
+}
@@ -0,0 +1,70 @@
+package com.hn.tgu.hospital.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Executor de las búsquedas asíncronas (/search/advanced/async, /search-with-facets/async).
+ *
+ * La espera a Elasticsearch no ocupa hilos: la respuesta llega por el reactor de E/S del
+ * cliente. Aquí se ejecuta lo que viene después, la conversión de la respuesta y el fallback
+ * a JPA, que bloquea, con hilos y cola acotados; si se llenan la búsqueda se rechaza (503) en
+ * lugar de apilar peticiones.
+ * Spring Boot exporta sus métricas como executor.* con name=busquedasExecutor.
+ *
+ * Con spring.threads.virtual.enabled cada tarea va en un hilo virtual nuevo y lo que se
+ * acota con un semáforo es el número de tareas en curso (threads + queue-capacity).
+ */
+@Configuration
+public class AsyncSearchConfig {
+
+    public static final String EXECUTOR = "busquedasExecutor";
+
+    @Bean(name = EXECUTOR)
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor busquedasExecutor(@Value("${doctors.search.async.threads:8}") int hilos,
+                                                    @Value("${doctors.search.async.queue-capacity:500}") int cola) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setQueueCapacity(cola);
+        executor.setThreadNamePrefix("busqueda-async-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    @Bean(name = EXECUTOR)
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public Executor busquedasExecutorVirtual(@Value("${doctors.search.async.threads:8}") int hilos,
+                                             @Value("${doctors.search.async.queue-capacity:500}") int cola) {
+        Semaphore enCurso = new Semaphore(hilos + cola);
+        ThreadFactory fabrica = Thread.ofVirtual().name("busqueda-async-", 0).factory();
+        return tarea -> {
+            if (!enCurso.tryAcquire()) {
+                throw new RejectedExecutionException("Demasiadas búsquedas asíncronas en curso");
+            }
+            try {
+                fabrica.newThread(() -> {
+                    try {
+                        tarea.run();
+                    } finally {
+                        enCurso.release();
+                    }
+                }).start();
+            } catch (RuntimeException e) {
+                enCurso.release();
+                throw e;
+            }
+        };
+    }
+}
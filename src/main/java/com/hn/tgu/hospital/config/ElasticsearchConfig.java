@@ -1,18 +1,40 @@
 package com.hn.tgu.hospital.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpHost;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HTTP;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestClientBuilder;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.elasticsearch.client.ClientConfiguration;
-import org.springframework.data.elasticsearch.client.RestClients;
 import org.springframework.data.elasticsearch.config.AbstractElasticsearchConfiguration;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
 import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
 import org.springframework.data.elasticsearch.repository.config.EnableElasticsearchRepositories;
 
+import java.time.Duration;
+import java.util.function.ToDoubleFunction;
+
 @Configuration
 @EnableElasticsearchRepositories(basePackages = "com.hn.tgu.hospital.elasticsearch")
 public class ElasticsearchConfig extends AbstractElasticsearchConfiguration {
@@ -28,6 +50,35 @@ public class ElasticsearchConfig extends AbstractElasticsearchConfiguration {
     @Value("${spring.data.elasticsearch.password:}")
     private String password;
 
+    @Value("${spring.data.elasticsearch.connection-timeout:5s}")
+    private Duration connectionTimeout;
+
+    @Value("${spring.data.elasticsearch.socket-timeout:30s}")
+    private Duration socketTimeout;
+
+    // Espera máxima por una conexión libre del pool antes de fallar
+    @Value("${elasticsearch.client.connection-request-timeout:2s}")
+    private Duration connectionRequestTimeout;
+
+    @Value("${elasticsearch.client.max-connections:100}")
+    private int maxConnections;
+
+    @Value("${elasticsearch.client.max-connections-per-route:50}")
+    private int maxConnectionsPerRoute;
+
+    // 0 = un hilo de I/O por procesador
+    @Value("${elasticsearch.client.io-threads:0}")
+    private int ioThreads;
+
+    // Tope de vida de una conexión ociosa, aunque el servidor no mande Keep-Alive
+    @Value("${elasticsearch.client.keep-alive:30s}")
+    private Duration keepAlive;
+
+    @Value("${elasticsearch.client.compression:true}")
+    private boolean compression;
+
+    private PoolingNHttpClientConnectionManager connectionManager;
+
     @Override
     @Bean
     public RestHighLevelClient elasticsearchClient() {
@@ -63,29 +114,48 @@ public class ElasticsearchConfig extends AbstractElasticsearchConfiguration {
                 logger.info("🏠 Host: {}, Puerto por defecto: {}", host, port);
             }
             
-            ClientConfiguration.MaybeSecureClientConfigurationBuilder builder = ClientConfiguration.builder()
-                    .connectedTo(host + ":" + port);
+            boolean ssl = elasticsearchUri.startsWith("https://");
+            RestClientBuilder builder = RestClient.builder(new HttpHost(host, port, ssl ? "https" : "http"))
+                    .setCompressionEnabled(compression)
+                    .setRequestConfigCallback(requestConfig -> requestConfig
+                            .setConnectTimeout((int) connectionTimeout.toMillis())
+                            .setSocketTimeout((int) socketTimeout.toMillis())
+                            .setConnectionRequestTimeout((int) connectionRequestTimeout.toMillis()));
             
+            connectionManager = connectionManager();
+            BasicCredentialsProvider credentials = new BasicCredentialsProvider();
             // Configurar autenticación usando las propiedades separadas
             if (username != null && !username.isEmpty() && password != null && !password.isEmpty()) {
-                builder.withBasicAuth(username, password);
+                credentials.setCredentials(AuthScope.ANY, new UsernamePasswordCredentials(username, password));
                 logger.info("🔐 Autenticación básica configurada");
             } else {
                 logger.warn("⚠️ No se configuraron credenciales para Elasticsearch");
             }
+            logger.info(ssl ? "🔒 SSL habilitado para conexión HTTPS" : "🔓 Conexión HTTP sin SSL");
             
-            // Configurar SSL si es HTTPS
-            if (elasticsearchUri.startsWith("https://")) {
-                builder.usingSsl();
-                logger.info("🔒 SSL habilitado para conexión HTTPS");
-            } else {
-                logger.info("🔓 Conexión HTTP sin SSL");
-            }
-            
-            ClientConfiguration clientConfiguration = builder.build();
-            logger.info("⚙️ Configuración del cliente completada");
+            builder.setHttpClientConfigCallback(httpClient -> httpClient
+                    .setConnectionManager(connectionManager)
+                    .setDefaultCredentialsProvider(credentials)
+                    .setKeepAliveStrategy((response, context) -> {
+                        // El Keep-Alive del servidor manda si es más corto que el configurado
+                        BasicHeaderElementIterator it = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+                        while (it.hasNext()) {
+                            HeaderElement element = it.nextElement();
+                            if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+                                try {
+                                    return Math.min(Long.parseLong(element.getValue()) * 1000, keepAlive.toMillis());
+                                } catch (NumberFormatException e) {
+                                    // Valor inválido: se usa el configurado
+                                }
+                            }
+                        }
+                        return keepAlive.toMillis();
+                    }));
+            logger.info("⚙️ Pool: {} conexiones ({} por nodo), {} hilos de I/O, keep-alive {}, compresión {}, timeouts {}/{}",
+                    maxConnections, maxConnectionsPerRoute, connectionManagerIoThreads(), keepAlive,
+                    compression ? "gzip" : "no", connectionTimeout, socketTimeout);
             
-            RestHighLevelClient client = RestClients.create(clientConfiguration).rest();
+            RestHighLevelClient client = new RestHighLevelClient(builder);
             logger.info("✅ Cliente Elasticsearch creado exitosamente");
             
             return client;
@@ -96,6 +166,54 @@ public class ElasticsearchConfig extends AbstractElasticsearchConfiguration {
         }
     }
 
+    /**
+     * Pool de conexiones del cliente: sin él, el HttpAsyncClient se queda con el de por defecto
+     * y las búsquedas concurrentes esperan turno en la cola del pool
+     */
+    private PoolingNHttpClientConnectionManager connectionManager() throws IOReactorException {
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(connectionManagerIoThreads())
+                .setConnectTimeout((int) connectionTimeout.toMillis())
+                .setSoTimeout((int) socketTimeout.toMillis())
+                .setSoKeepAlive(true)
+                .build();
+        PoolingNHttpClientConnectionManager manager = new PoolingNHttpClientConnectionManager(
+                new DefaultConnectingIOReactor(ioReactorConfig),
+                RegistryBuilder.<SchemeIOSessionStrategy>create()
+                        .register("http", NoopIOSessionStrategy.INSTANCE)
+                        .register("https", SSLIOSessionStrategy.getDefaultStrategy())
+                        .build());
+        manager.setMaxTotal(maxConnections);
+        manager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        return manager;
+    }
+
+    private int connectionManagerIoThreads() {
+        return ioThreads > 0 ? ioThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Ocupación del pool de conexiones a Elasticsearch: elasticsearch.client.pool.{leased,pending,available,max}.
+     * pending > 0 de forma sostenida indica que el pool se queda corto
+     */
+    @Bean
+    public MeterBinder elasticsearchPoolMetrics() {
+        return registry -> {
+            registrarPool(registry, "leased", "Conexiones en uso", PoolStats::getLeased);
+            registrarPool(registry, "pending", "Peticiones esperando una conexión libre", PoolStats::getPending);
+            registrarPool(registry, "available", "Conexiones abiertas ociosas", PoolStats::getAvailable);
+            registrarPool(registry, "max", "Máximo de conexiones del pool", PoolStats::getMax);
+        };
+    }
+
+    private void registrarPool(MeterRegistry registry, String nombre, String descripcion,
+                               ToDoubleFunction<PoolStats> valor) {
+        Gauge.builder("elasticsearch.client.pool." + nombre, this,
+                        config -> config.connectionManager != null ? valor.applyAsDouble(config.connectionManager.getTotalStats()) : 0)
+                .description(descripcion)
+                .register(registry);
+    }
+
     @Bean
     public ElasticsearchOperations elasticsearchTemplate() {
         logger.info("🔧 Creando template Elasticsearch...");
@@ -1,27 +1,58 @@
 package com.hn.tgu.hospital.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hn.tgu.hospital.cache.ReferenceData;
+import com.hn.tgu.hospital.cache.ReferenceDataCache;
 import com.hn.tgu.hospital.dto.DoctorDTO;
 import com.hn.tgu.hospital.entity.Doctor;
 import com.hn.tgu.hospital.mapper.DoctorMapper;
-import com.hn.tgu.hospital.repository.DoctorRepository;
+import com.hn.tgu.hospital.search.IndiceSugerencias;
+import com.hn.tgu.hospital.service.AgendaSemanal;
+import com.hn.tgu.hospital.service.BusquedaCombinadaService;
+import com.hn.tgu.hospital.service.DisponibilidadService;
 import com.hn.tgu.hospital.service.DoctorSearchService;
 import com.hn.tgu.hospital.service.DoctorService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
-
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/doctors")
 public class DoctorController {
 
+  private static final Logger logger = LoggerFactory.getLogger(DoctorController.class);
+
+  // Cabecera con el cursor opaco de la siguiente página (paginación por clave)
+  public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+  private static final String NDJSON = "application/x-ndjson";
+
+  private static final int MAX_LIMIT = 1000;
+
   @Autowired
   private DoctorService doctorService;
 
@@ -29,15 +60,29 @@ public class DoctorController {
   private DoctorSearchService doctorSearchService;
 
   @Autowired
-  private DoctorRepository doctorRepository;
+  private DoctorMapper doctorMapper;
+
+  @Autowired
+  private ObjectMapper objectMapper;
 
   @Autowired
-  private DoctorMapper doctorMapper;
+  private ReferenceDataCache referenceDataCache;
 
-  // GET - Obtener todos los doctores
+  @Autowired
+  private DisponibilidadService disponibilidadService;
+
+  @Autowired
+  private BusquedaCombinadaService busquedaCombinadaService;
+
+  // GET - Obtener todos los doctores (con ?limit=&cursor= pagina por clave)
   @GetMapping("/list")
   @Transactional(readOnly = true)
-  public ResponseEntity<List<DoctorDTO>> getDoctores() {
+  public ResponseEntity<List<DoctorDTO>> getDoctores(
+      @RequestParam(required = false) Integer limit,
+      @RequestParam(required = false) String cursor) {
+    if (limit != null) {
+      return paginaPorCursor(null, null, null, limit, cursor);
+    }
     List<Doctor> doctores = doctorService.obtenerTodos();
     List<DoctorDTO> doctorDTOs = doctores.stream()
         .map(doctorMapper::toDTO)
@@ -45,14 +90,12 @@ public class DoctorController {
     return ResponseEntity.ok(doctorDTOs);
   }
 
-  // GET - Obtener doctor por ID
+  // GET - Obtener doctor por ID (desde la caché)
   @GetMapping("/{id}")
   public ResponseEntity<DoctorDTO> getDoctorPorId(@PathVariable String id) {
-    Doctor doctor = doctorService.obtenerPorId(id);
-    if (doctor != null) {
-      return ResponseEntity.ok(doctorMapper.toDTO(doctor));
-    }
-    return ResponseEntity.notFound().build();
+    return doctorService.getDoctorById(id)
+        .map(ResponseEntity::ok)
+        .orElseGet(() -> ResponseEntity.notFound().build());
   }
 
   // POST - Crear nuevo doctor
@@ -82,7 +125,13 @@ public class DoctorController {
 
   // GET - Búsqueda por especialidad (JPA)
   @GetMapping("/specialty/{specialty}")
-  public ResponseEntity<List<DoctorDTO>> buscarPorEspecialidad(@PathVariable String specialty) {
+  public ResponseEntity<List<DoctorDTO>> buscarPorEspecialidad(
+      @PathVariable String specialty,
+      @RequestParam(required = false) Integer limit,
+      @RequestParam(required = false) String cursor) {
+    if (limit != null) {
+      return paginaPorCursor(specialty, null, null, limit, cursor);
+    }
     List<Doctor> doctores = doctorService.buscarPorEspecialidad(specialty);
     List<DoctorDTO> doctorDTOs = doctores.stream()
         .map(doctorMapper::toDTO)
@@ -92,7 +141,13 @@ public class DoctorController {
 
   // GET - Búsqueda por hospital (JPA)
   @GetMapping("/hospital/{hospital}")
-  public ResponseEntity<List<DoctorDTO>> buscarPorHospital(@PathVariable String hospital) {
+  public ResponseEntity<List<DoctorDTO>> buscarPorHospital(
+      @PathVariable String hospital,
+      @RequestParam(required = false) Integer limit,
+      @RequestParam(required = false) String cursor) {
+    if (limit != null) {
+      return paginaPorCursor(null, hospital, null, limit, cursor);
+    }
     List<Doctor> doctores = doctorService.buscarPorHospital(hospital);
     List<DoctorDTO> doctorDTOs = doctores.stream()
         .map(doctorMapper::toDTO)
@@ -137,20 +192,25 @@ public class DoctorController {
   // GET - Verificar si existe doctor
   @GetMapping("/exists/{id}")
   public ResponseEntity<Boolean> existeDoctor(@PathVariable String id) {
-    boolean existe = doctorService.existe(id);
+    boolean existe = doctorService.existsById(id);
     return ResponseEntity.ok(existe);
   }
 
   // GET - Contar doctores
   @GetMapping("/count")
   public ResponseEntity<Long> contarDoctores() {
-    long count = doctorService.contar();
+    long count = doctorService.count();
     return ResponseEntity.ok(count);
   }
 
   // GET - Obtener doctores disponibles
   @GetMapping("/available")
-  public ResponseEntity<List<DoctorDTO>> obtenerDoctoresDisponibles() {
+  public ResponseEntity<List<DoctorDTO>> obtenerDoctoresDisponibles(
+      @RequestParam(required = false) Integer limit,
+      @RequestParam(required = false) String cursor) {
+    if (limit != null) {
+      return paginaPorCursor(null, null, true, limit, cursor);
+    }
     List<Doctor> doctores = doctorService.obtenerDisponibles();
     List<DoctorDTO> doctorDTOs = doctores.stream()
         .map(doctorMapper::toDTO)
@@ -158,6 +218,60 @@ public class DoctorController {
     return ResponseEntity.ok(doctorDTOs);
   }
 
+  // GET - Catálogo completo en NDJSON, un doctor por línea (?format=ndjson; ?limit=&cursor= como en JSON)
+  @GetMapping(value = "/list", params = "format=ndjson", produces = NDJSON)
+  public ResponseEntity<StreamingResponseBody> getDoctoresNdjson(
+      @RequestParam(required = false) Integer limit,
+      @RequestParam(required = false) String cursor) {
+    return respuestaNdjson(null, null, null, limit, cursor);
+  }
+
+  // GET - Doctores por especialidad en NDJSON
+  @GetMapping(value = "/specialty/{specialty}", params = "format=ndjson", produces = NDJSON)
+  public ResponseEntity<StreamingResponseBody> buscarPorEspecialidadNdjson(
+      @PathVariable String specialty,
+      @RequestParam(required = false) Integer limit,
+      @RequestParam(required = false) String cursor) {
+    return respuestaNdjson(specialty, null, null, limit, cursor);
+  }
+
+  // GET - Doctores por hospital en NDJSON
+  @GetMapping(value = "/hospital/{hospital}", params = "format=ndjson", produces = NDJSON)
+  public ResponseEntity<StreamingResponseBody> buscarPorHospitalNdjson(
+      @PathVariable String hospital,
+      @RequestParam(required = false) Integer limit,
+      @RequestParam(required = false) String cursor) {
+    return respuestaNdjson(null, hospital, null, limit, cursor);
+  }
+
+  // GET - Doctores disponibles en NDJSON
+  @GetMapping(value = "/available", params = "format=ndjson", produces = NDJSON)
+  public ResponseEntity<StreamingResponseBody> obtenerDoctoresDisponiblesNdjson(
+      @RequestParam(required = false) Integer limit,
+      @RequestParam(required = false) String cursor) {
+    return respuestaNdjson(null, null, true, limit, cursor);
+  }
+
+  // GET - Doctores libres un día a una hora (?hora=10:30) o en una ventana (?desde=10:00&hasta=12:00),
+  // resuelto con el índice de franjas
+  @GetMapping("/disponibilidad")
+  public ResponseEntity<List<DoctorDTO>> buscarLibres(
+      @RequestParam String dia,
+      @RequestParam(required = false) String hora,
+      @RequestParam(required = false) String desde,
+      @RequestParam(required = false) String hasta,
+      @RequestParam(required = false) String specialty,
+      @RequestParam(required = false) String hospital,
+      @RequestParam(defaultValue = "100") int limit) {
+    int numeroDia = AgendaSemanal.dia(dia);
+    int inicio = AgendaSemanal.minuto(hora != null ? hora : desde);
+    int fin = hora != null ? inicio + 1 : AgendaSemanal.minuto(hasta);
+    if (numeroDia < 0 || inicio < 0 || fin <= inicio || limit < 1 || limit > MAX_LIMIT) {
+      return ResponseEntity.badRequest().build();
+    }
+    return ResponseEntity.ok(disponibilidadService.buscarLibres(numeroDia, inicio, fin, specialty, hospital, limit));
+  }
+
   // GET - Búsqueda avanzada con Elasticsearch
   @GetMapping("/search/advanced")
   public ResponseEntity<List<DoctorDTO>> buscarAvanzado(
@@ -171,54 +285,83 @@ public class DoctorController {
       @RequestParam(required = false) Integer maxExperience,
       @RequestParam(required = false) List<String> tags) {
     
-    System.out.println("🔍 [DoctorController] /search/advanced llamado con:");
-    System.out.println("  - Query: " + query);
-    System.out.println("  - Specialty: " + specialty);
-    System.out.println("  - Hospital: " + hospital);
-    System.out.println("  - Available: " + available);
-    System.out.println("  - MinRating: " + minRating);
-    System.out.println("  - MaxRating: " + maxRating);
-    System.out.println("  - MinExperience: " + minExperience);
-    System.out.println("  - MaxExperience: " + maxExperience);
-    System.out.println("  - Tags: " + tags);
+    if (logger.isDebugEnabled()) {
+      logger.debug("🔍 /search/advanced query={} specialty={} hospital={} available={} rating={}..{} experience={}..{} tags={}",
+          query, specialty, hospital, available, minRating, maxRating, minExperience, maxExperience, tags);
+    }
     
     // Si solo tenemos query (del frontend), usar el nuevo método
     if (query != null && !query.trim().isEmpty() && 
         specialty == null && hospital == null && available == null && 
         minRating == null && maxRating == null && minExperience == null && 
         maxExperience == null && (tags == null || tags.isEmpty())) {
-      
-      System.out.println("🔍 [DoctorController] Usando procesarQueryFrontend para query: " + query);
-      List<DoctorDTO> resultado = doctorSearchService.procesarQueryFrontend(query);
-      System.out.println("🔍 [DoctorController] Resultados devueltos: " + resultado.size());
-      return ResponseEntity.ok(resultado);
+      return ResponseEntity.ok(doctorSearchService.procesarQueryFrontend(query));
     }
     
     // Si tenemos parámetros individuales, usar el método original
-    System.out.println("🔍 [DoctorController] Usando buscarConFacets con parámetros individuales");
-    System.out.println("🔍 [DoctorController] Parámetros recibidos:");
-    System.out.println("  - Query: " + query);
-    System.out.println("  - Specialty: " + specialty);
-    System.out.println("  - Hospital: " + hospital);
-    System.out.println("  - Available: " + available);
-    System.out.println("  - MinRating: " + minRating);
-    System.out.println("  - MaxRating: " + maxRating);
-    System.out.println("  - MinExperience: " + minExperience);
-    System.out.println("  - MaxExperience: " + maxExperience);
-    System.out.println("  - Tags: " + tags);
-    
     List<DoctorDTO> resultado = doctorSearchService.buscarConFacets(query, specialty, hospital, 
         minExperience, maxExperience, minRating, maxRating, available, tags);
     
-    System.out.println("🔍 [DoctorController] Resultados devueltos: " + resultado.size());
-    System.out.println("🔍 [DoctorController] Primeros 3 resultados:");
-    resultado.stream().limit(3).forEach(doc -> 
-        System.out.println("  - " + doc.name + " (" + doc.hospital + ") - " + doc.specialty)
-    );
-    
     return ResponseEntity.ok(resultado);
   }
 
+  // GET - Búsqueda avanzada sin bloquear: el hilo de Tomcat se libera mientras responde
+  // Elasticsearch y la respuesta se escribe al completarse el future (503 si no hay capacidad)
+  @GetMapping("/search/advanced/async")
+  public CompletableFuture<ResponseEntity<List<DoctorDTO>>> buscarAvanzadoAsync(
+      @RequestParam(required = false) String query,
+      @RequestParam(required = false) String specialty,
+      @RequestParam(required = false) String hospital,
+      @RequestParam(required = false) Boolean available,
+      @RequestParam(required = false) Double minRating,
+      @RequestParam(required = false) Double maxRating,
+      @RequestParam(required = false) Integer minExperience,
+      @RequestParam(required = false) Integer maxExperience,
+      @RequestParam(required = false) List<String> tags) {
+
+    CompletableFuture<List<DoctorDTO>> resultado;
+    if (query != null && !query.trim().isEmpty() &&
+        specialty == null && hospital == null && available == null &&
+        minRating == null && maxRating == null && minExperience == null &&
+        maxExperience == null && (tags == null || tags.isEmpty())) {
+      resultado = doctorSearchService.procesarQueryFrontendAsync(query);
+    } else {
+      resultado = doctorSearchService.buscarConFacetsAsync(query, specialty, hospital,
+          minExperience, maxExperience, minRating, maxRating, available, tags);
+    }
+
+    return resultado
+        .thenApply(ResponseEntity::ok)
+        .exceptionally(e -> {
+          Throwable causa = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+          if (causa instanceof RejectedExecutionException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).<List<DoctorDTO>>build();
+          }
+          throw e instanceof CompletionException ce ? ce : new CompletionException(causa);
+        });
+  }
+
+  // GET - Búsqueda combinada: doctores, facets, total y datos de referencia en paralelo con
+  // un plazo (deadlineMs); lo que no llega a tiempo sale en "partial" en lugar de fallar
+  @GetMapping("/search/multi")
+  public CompletableFuture<ResponseEntity<Map<String, Object>>> buscarCombinado(
+      @RequestParam(required = false) String query,
+      @RequestParam(required = false) String specialty,
+      @RequestParam(required = false) String hospital,
+      @RequestParam(required = false) Boolean available,
+      @RequestParam(required = false) Double minRating,
+      @RequestParam(required = false) Double maxRating,
+      @RequestParam(required = false) Integer minExperience,
+      @RequestParam(required = false) Integer maxExperience,
+      @RequestParam(required = false) List<String> tags,
+      @RequestParam(required = false) Long deadlineMs) {
+
+    Duration plazo = deadlineMs != null ? Duration.ofMillis(deadlineMs) : null;
+    return busquedaCombinadaService.buscar(query, specialty, hospital,
+            minExperience, maxExperience, minRating, maxRating, available, tags, plazo)
+        .thenApply(ResponseEntity::ok);
+  }
+
   // GET - Búsqueda con sugerencias
   @GetMapping("/search/suggestions")
   public ResponseEntity<List<DoctorDTO>> buscarConSugerencias(@RequestParam String query) {
@@ -226,10 +369,19 @@ public class DoctorController {
     return ResponseEntity.ok(resultado);
   }
 
-  // GET - Autocompletado
+  // GET - Autocompletado (tipo opcional: doctor, especialidad u hospital; sin tipo, todos)
   @GetMapping("/search/autocomplete")
-  public ResponseEntity<List<String>> obtenerSugerencias(@RequestParam String prefix) {
-    List<String> sugerencias = doctorSearchService.obtenerSugerencias(prefix);
+  public ResponseEntity<List<String>> obtenerSugerencias(@RequestParam String prefix,
+                                                         @RequestParam(required = false) String tipo) {
+    Set<IndiceSugerencias.Tipo> tipos = EnumSet.allOf(IndiceSugerencias.Tipo.class);
+    if (tipo != null) {
+      IndiceSugerencias.Tipo elegido = IndiceSugerencias.Tipo.de(tipo);
+      if (elegido == null) {
+        return ResponseEntity.badRequest().build();
+      }
+      tipos = EnumSet.of(elegido);
+    }
+    List<String> sugerencias = doctorSearchService.obtenerSugerencias(prefix, tipos);
     return ResponseEntity.ok(sugerencias);
   }
 
@@ -318,7 +470,7 @@ public class DoctorController {
   // GET - Búsqueda por nombre en Elasticsearch
   @GetMapping("/search-index/name")
   public ResponseEntity<List<DoctorDTO>> buscarPorNombreIndexado(@RequestParam String name) {
-    List<String> sugerencias = doctorSearchService.obtenerSugerencias(name);
+    List<String> sugerencias = doctorSearchService.obtenerSugerencias(name, EnumSet.of(IndiceSugerencias.Tipo.DOCTOR));
     List<DoctorDTO> doctores = sugerencias.stream()
         .map(sugerencia -> {
           DoctorDTO dto = new DoctorDTO();
@@ -329,17 +481,112 @@ public class DoctorController {
     return ResponseEntity.ok(doctores);
   }
 
+    // GET - Hospitales (desde la foto de datos de referencia, con ETag)
     @GetMapping("/hospitales")
-    @Transactional(readOnly = true)
-    public ResponseEntity<List<String>> getHospitales() {
+    public ResponseEntity<List<String>> getHospitales(WebRequest request) {
         try {
-            List<String> hospitales = doctorRepository.findDistinctHospitales();
-            return ResponseEntity.ok(hospitales);
+            ReferenceData.Dimension hospitales = referenceDataCache.obtener().hospitals();
+            return EtagResponses.conEtag(request, hospitales.etag(), hospitales::values);
         } catch (Exception e) {
-            // Assuming logger is available, otherwise replace with System.err.println
-            // System.err.println("Error obteniendo hospitales: " + e.getMessage());
+            logger.error("❌ Error obteniendo hospitales: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Collections.emptyList());
         }
     }
+
+  // GET - Hospitales, especialidades y tags con el número de doctores de cada uno (con ETag)
+  @GetMapping("/reference-data")
+  public ResponseEntity<ReferenceData> getDatosReferencia(WebRequest request) {
+    ReferenceData datos = referenceDataCache.obtener();
+    return EtagResponses.conEtag(request, datos.etag(), () -> datos);
+  }
+
+  // Página por clave en JSON
+  private ResponseEntity<List<DoctorDTO>> paginaPorCursor(String specialty, String hospital, Boolean available,
+                                                         int limit, String cursor) {
+    Pagina pagina = leerPagina(specialty, hospital, available, limit, cursor);
+    if (pagina == null) {
+      return ResponseEntity.badRequest().build();
+    }
+    return conCursor(pagina).body(pagina.doctores().stream()
+        .map(doctorMapper::toDTO)
+        .collect(Collectors.toList()));
+  }
+
+  // Página de doctores y cursor de la siguiente (null si es la última)
+  private record Pagina(List<Doctor> doctores, String siguiente) {
+  }
+
+  // Se pide un doctor de más para saber si existe una página siguiente; null si limit o cursor no son válidos
+  private Pagina leerPagina(String specialty, String hospital, Boolean available, int limit, String cursor) {
+    if (limit < 1 || limit > MAX_LIMIT) {
+      return null;
+    }
+    String afterId;
+    try {
+      afterId = cursor != null ? decodificarCursor(cursor) : null;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+
+    List<Doctor> doctores = doctorService.obtenerPagina(specialty, hospital, available, afterId, limit + 1);
+    boolean hayMas = doctores.size() > limit;
+    List<Doctor> pagina = hayMas ? doctores.subList(0, limit) : doctores;
+    return new Pagina(pagina, hayMas ? codificarCursor(pagina.get(pagina.size() - 1).getId()) : null);
+  }
+
+  private static ResponseEntity.BodyBuilder conCursor(Pagina pagina) {
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+    if (pagina.siguiente() != null) {
+      response.header(NEXT_CURSOR_HEADER, pagina.siguiente());
+    }
+    return response;
+  }
+
+  // Sin limit escribe los doctores a medida que se leen, sin materializar la lista completa;
+  // con limit (y cursor) escribe la misma página que el listado JSON, con su cabecera de cursor
+  private ResponseEntity<StreamingResponseBody> respuestaNdjson(String specialty, String hospital, Boolean available,
+                                                               Integer limit, String cursor) {
+    if (limit != null) {
+      Pagina pagina = leerPagina(specialty, hospital, available, limit, cursor);
+      if (pagina == null) {
+        return ResponseEntity.badRequest().build();
+      }
+      StreamingResponseBody body = outputStream -> {
+        for (Doctor doctor : pagina.doctores()) {
+          escribirLinea(outputStream, doctor);
+        }
+        outputStream.flush();
+      };
+      return conCursor(pagina)
+          .contentType(MediaType.parseMediaType(NDJSON))
+          .body(body);
+    }
+
+    StreamingResponseBody body = outputStream -> {
+      try (Stream<Doctor> doctores = doctorService.recorrer(specialty, hospital, available)) {
+        for (Doctor doctor : (Iterable<Doctor>) doctores::iterator) {
+          escribirLinea(outputStream, doctor);
+        }
+      }
+      outputStream.flush();
+    };
+    return ResponseEntity.ok()
+        .contentType(MediaType.parseMediaType(NDJSON))
+        .body(body);
+  }
+
+  private void escribirLinea(OutputStream outputStream, Doctor doctor) throws IOException {
+    outputStream.write(objectMapper.writeValueAsBytes(doctorMapper.toDTO(doctor)));
+    outputStream.write('\n');
+  }
+
+  // Cursor opaco: el último id de la página en Base64 URL sin relleno (visibles para los tests)
+  static String codificarCursor(String id) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+  }
+
+  static String decodificarCursor(String cursor) {
+    return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+  }
 }
\ No newline at end of file
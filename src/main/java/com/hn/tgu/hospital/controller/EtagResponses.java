@@ -0,0 +1,33 @@
+package com.hn.tgu.hospital.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * Respuestas condicionales con ETag: si el cliente envía un If-None-Match que coincide
+ * se responde 304 sin cuerpo
+ */
+public final class EtagResponses {
+
+    private EtagResponses() {
+    }
+
+    public static <T> ResponseEntity<T> conEtag(WebRequest request, String etag, Supplier<T> cuerpo) {
+        // Los clientes pueden guardar la respuesta, pero deben revalidarla siempre
+        CacheControl cacheControl = CacheControl.noCache();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .body(cuerpo.get());
+    }
+}
@@ -0,0 +1,31 @@
+package com.hn.tgu.hospital.dto;
+
+import com.hn.tgu.hospital.elasticsearch.DoctorElasticsearch;
+
+/**
+ * Doctor en una lista de resultados: solo lo que se muestra en cada fila.
+ * El documento completo se pide a /doctors/elasticsearch/{id}
+ */
+public class DoctorResumenDTO {
+  public String id;
+  public String name;
+  public String specialty;
+  public String hospital;
+  public double rating;
+  public String img;
+  public boolean available;
+
+  public DoctorResumenDTO() {}
+
+  public static DoctorResumenDTO de(DoctorElasticsearch doctor) {
+    DoctorResumenDTO resumen = new DoctorResumenDTO();
+    resumen.id = doctor.getId();
+    resumen.name = doctor.getName();
+    resumen.specialty = doctor.getSpecialty();
+    resumen.hospital = doctor.getHospital();
+    resumen.rating = doctor.getRating();
+    resumen.img = doctor.getImg();
+    resumen.available = doctor.isAvailable();
+    return resumen;
+  }
+}
@@ -0,0 +1,442 @@
+package com.hn.tgu.hospital.elasticsearch;
+
+import com.hn.tgu.hospital.entity.Doctor;
+import com.hn.tgu.hospital.mapper.DoctorMapper;
+import com.hn.tgu.hospital.repository.DoctorRepository;
+import com.carrotsearch.hppc.cursors.ObjectCursor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
+import org.elasticsearch.action.admin.indices.open.OpenIndexRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.GetAliasesResponse;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.indices.CloseIndexRequest;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.rest.RestStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sincronización masiva JPA -> Elasticsearch usando la API _bulk.
+ *
+ * Recorre la tabla de doctores en bloques ordenados por id y agrupa los documentos
+ * en peticiones _bulk limitadas por número de documentos y por tamaño en bytes.
+ * Varias peticiones pueden estar en vuelo a la vez, hasta el límite de concurrencia
+ * configurado; al alcanzarlo, la lectura de la base de datos espera. Para reindexar
+ * ({@link DoctorReindexer}) la tabla se reparte en tramos de ids que se leen en paralelo.
+ */
+@Component
+public class DoctorBulkIndexer {
+
+    private static final Logger logger = LoggerFactory.getLogger(DoctorBulkIndexer.class);
+
+    private static final int MAX_ERROR_SAMPLES = 20;
+
+    static final String SETTINGS_PATH = "elasticsearch-settings.json";
+    private static final String ANALIZADOR_AUTOCOMPLETADO = "autocompletado";
+
+    /**
+     * Alias por el que escribe la propagación de cambios; durante una reindexación
+     * apunta al índice activo y al nuevo
+     */
+    public static final String ALIAS_ESCRITURA = "doctores_escritura";
+
+    @Autowired
+    private RestHighLevelClient elasticsearchClient;
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchTemplate;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private DoctorMapper doctorMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${elasticsearch.sync.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${elasticsearch.sync.bulk-max-docs:1000}")
+    private int bulkMaxDocs;
+
+    @Value("${elasticsearch.sync.bulk-max-bytes:5mb}")
+    private String bulkMaxBytes;
+
+    @Value("${elasticsearch.sync.concurrency:4}")
+    private int concurrency;
+
+    @Value("${elasticsearch.sync.timeout:10m}")
+    private Duration timeout;
+
+    @Value("${elasticsearch.index.update-analysis:false}")
+    private boolean actualizarAnalisis;
+
+    /**
+     * Sincroniza todos los doctores de la base de datos.
+     *
+     * @param overwrite si es true reindexa los documentos existentes; si es false usa op_type=create
+     *                  y cuenta los conflictos de versión como documentos saltados
+     */
+    public Map<String, Object> syncAll(boolean overwrite) {
+        long start = System.currentTimeMillis();
+        Carga carga = new Carga(indexName(), overwrite);
+        try {
+            carga.cargar(null, null);
+        } finally {
+            carga.cerrar();
+        }
+
+        Map<String, Object> response = carga.respuesta(start);
+        logger.info("🎉 Sincronización bulk completada: {} nuevos, {} existentes, {} errores en {} peticiones",
+                carga.syncedCount.get(), carga.skippedCount.get(), carga.errors.size(), carga.bulkRequests.get());
+        return response;
+    }
+
+    /**
+     * Carga todos los doctores en un índice nuevo, repartiendo la tabla en tramos de ids
+     * contiguos que se leen en paralelo y comparten las mismas peticiones _bulk.
+     *
+     * Usa op_type=create: si un cambio propagado durante la carga ya escribió un doctor,
+     * esa versión es más reciente que la leída aquí y se cuenta como saltado.
+     */
+    Map<String, Object> cargarEnTramos(String indexName, int tramos) {
+        long start = System.currentTimeMillis();
+        long total = doctorRepository.count();
+        int partes = Math.max(1, tramos);
+        List<String> inicios = total > 0
+                ? doctorRepository.findIdsInicioTramos((total + partes - 1) / partes)
+                : List.of();
+
+        Carga carga = new Carga(indexName, false);
+        AtomicInteger hilos = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, inicios.size()), tarea -> {
+            Thread hilo = new Thread(tarea, "reindex-tramo-" + hilos.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int i = 0; i < inicios.size(); i++) {
+                // El primer tramo empieza sin límite inferior por si entró un id menor después de calcularlos
+                String desde = i == 0 ? null : inicios.get(i);
+                String hasta = i + 1 < inicios.size() ? inicios.get(i + 1) : null;
+                tareas.add(executor.submit(() -> carga.cargar(desde, hasta)));
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Carga interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error leyendo doctores de la base de datos: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+            carga.cerrar();
+        }
+
+        Map<String, Object> response = carga.respuesta(start);
+        response.put("slices", inicios.size());
+        logger.info("📦 Carga de {} en {} tramos: {} nuevos, {} existentes, {} errores en {} ms",
+                indexName, inicios.size(), carga.syncedCount.get(), carga.skippedCount.get(),
+                carga.errors.size(), System.currentTimeMillis() - start);
+        return response;
+    }
+
+    /**
+     * Añade al mapping del índice existente los campos nuevos de DoctorElasticsearch
+     * (p. ej. el campo nested franjas) antes de que se indexe ningún documento con ellos;
+     * si no, Elasticsearch los mapearía dinámicamente como object.
+     *
+     * Los subcampos .prefijo y los campos de sugerencias usan analizadores de
+     * elasticsearch-settings.json que un índice creado antes no tiene. Los analizadores solo
+     * se pueden añadir con el índice cerrado, así que eso se hace únicamente con
+     * elasticsearch.index.update-analysis=true (el índice deja de responder unos segundos);
+     * si no, el mapping se queda como está hasta reindexar.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void actualizarMapping() {
+        try {
+            IndexOperations indexOps = elasticsearchTemplate.indexOps(DoctorElasticsearch.class);
+            if (!indexOps.exists()) {
+                return;
+            }
+            crearAliasEscritura();
+            String indexName = indexName();
+            if (!tieneAnalizadores(indexName)) {
+                if (!actualizarAnalisis) {
+                    logger.warn("⚠️ El índice {} no tiene los analizadores de autocompletado: "
+                            + "reindexar o arrancar con elasticsearch.index.update-analysis=true", indexName);
+                    return;
+                }
+                actualizarAnalizadores(indexName);
+            }
+            indexOps.putMapping();
+        } catch (Exception e) {
+            logger.warn("⚠️ No se pudo actualizar el mapping del índice de doctores: {}", e.getMessage());
+        }
+    }
+
+    // Un índice anterior a las reindexaciones no tiene alias de escritura: se le añade
+    private void crearAliasEscritura() {
+        try {
+            if (!indicesDe(ALIAS_ESCRITURA).isEmpty()) {
+                return;
+            }
+            Set<String> actuales = indicesDe(indexName());
+            String indice = actuales.isEmpty() ? indexName() : actuales.iterator().next();
+            elasticsearchClient.indices().updateAliases(new IndicesAliasesRequest().addAliasAction(
+                    IndicesAliasesRequest.AliasActions.add().index(indice).alias(ALIAS_ESCRITURA)), RequestOptions.DEFAULT);
+            logger.info("🏷️ Alias {} creado sobre {}", ALIAS_ESCRITURA, indice);
+        } catch (Exception e) {
+            logger.warn("⚠️ No se pudo crear el alias {}: {}", ALIAS_ESCRITURA, e.getMessage());
+        }
+    }
+
+    // Con un alias la respuesta viene por índice real; basta con que lo tenga alguno
+    private boolean tieneAnalizadores(String indexName) throws IOException {
+        GetSettingsResponse settings = elasticsearchClient.indices()
+                .getSettings(new GetSettingsRequest().indices(indexName), RequestOptions.DEFAULT);
+        String clave = "index.analysis.analyzer." + ANALIZADOR_AUTOCOMPLETADO + ".type";
+        for (ObjectCursor<Settings> indice : settings.getIndexToSettings().values()) {
+            if (indice.value.get(clave) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Cierra el índice, añade la sección analysis de elasticsearch-settings.json y lo vuelve a abrir
+    private void actualizarAnalizadores(String indexName) throws IOException {
+        JsonNode analisis;
+        try (InputStream settings = new ClassPathResource(SETTINGS_PATH).getInputStream()) {
+            analisis = new ObjectMapper().readTree(settings).path("analysis");
+        }
+        String json = "{\"analysis\":" + analisis + "}";
+
+        logger.info("🔧 Añadiendo analizadores al índice {} (cerrado unos segundos)", indexName);
+        elasticsearchClient.indices().close(new CloseIndexRequest(indexName), RequestOptions.DEFAULT);
+        try {
+            elasticsearchClient.indices().putSettings(
+                    new UpdateSettingsRequest(indexName).settings(json, XContentType.JSON), RequestOptions.DEFAULT);
+        } finally {
+            elasticsearchClient.indices().open(new OpenIndexRequest(indexName), RequestOptions.DEFAULT);
+        }
+    }
+
+    /**
+     * Nombre con el que se leen los documentos de doctores: el alias de lectura, o el
+     * índice real si todavía no se ha reindexado nunca
+     */
+    public String indexName() {
+        return elasticsearchTemplate.getIndexCoordinatesFor(DoctorElasticsearch.class).getIndexName();
+    }
+
+    /**
+     * Índices donde se aplican las escrituras: los del alias de escritura (dos mientras
+     * se reindexa) o el de lectura si el alias aún no existe
+     */
+    public List<String> indicesEscritura() throws IOException {
+        Set<String> indices = indicesDe(ALIAS_ESCRITURA);
+        return indices.isEmpty() ? List.of(indexName()) : new ArrayList<>(indices);
+    }
+
+    /**
+     * Índices reales a los que apunta un alias; vacío si el alias no existe
+     */
+    public Set<String> indicesDe(String alias) throws IOException {
+        GetAliasesResponse response = elasticsearchClient.indices()
+                .getAlias(new GetAliasesRequest(alias), RequestOptions.DEFAULT);
+        if (response.status() == RestStatus.NOT_FOUND) {
+            return Set.of();
+        }
+        return new TreeSet<>(response.getAliases().keySet());
+    }
+
+    /**
+     * Construye la petición de indexado de un doctor con el mismo formato que usa Spring Data
+     */
+    public IndexRequest indexRequest(String indexName, Doctor doctor, DocWriteRequest.OpType opType) {
+        String json = elasticsearchTemplate.getElasticsearchConverter()
+                .mapObject(doctorMapper.toElasticsearch(doctor))
+                .toJson();
+        return new IndexRequest(indexName)
+                .id(doctor.getId())
+                .opType(opType)
+                .source(json, XContentType.JSON);
+    }
+
+    // Contadores y BulkProcessor de una carga; los tramos se pueden leer desde varios hilos
+    private final class Carga implements BulkProcessor.Listener {
+
+        final String indexName;
+        final boolean overwrite;
+        final AtomicInteger totalDoctors = new AtomicInteger();
+        final AtomicInteger syncedCount = new AtomicInteger();
+        final AtomicInteger skippedCount = new AtomicInteger();
+        final AtomicInteger bulkRequests = new AtomicInteger();
+        final Map<String, String> errors = new ConcurrentHashMap<>();
+        final BulkProcessor processor;
+        boolean completed;
+
+        Carga(String indexName, boolean overwrite) {
+            this.indexName = indexName;
+            this.overwrite = overwrite;
+            this.processor = BulkProcessor.builder(
+                            (request, bulkListener) -> elasticsearchClient.bulkAsync(request, RequestOptions.DEFAULT, bulkListener),
+                            this)
+                    .setBulkActions(bulkMaxDocs)
+                    .setBulkSize(ByteSizeValue.parseBytesSizeValue(bulkMaxBytes, "elasticsearch.sync.bulk-max-bytes"))
+                    .setConcurrentRequests(concurrency)
+                    .build();
+        }
+
+        // Recorre en bloques ordenados por id los doctores de [desde, hasta). Cada bloque se lee en
+        // su propia transacción de solo lectura y el contexto de persistencia se vacía antes del
+        // siguiente: llamada desde una petición con open-in-view, el EntityManager de la petición
+        // acumularía todos los doctores de la tabla
+        void cargar(String desde, String hasta) {
+            TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+            lectura.setReadOnly(true);
+            String lastId = null;
+            while (true) {
+                Pageable chunk = PageRequest.of(0, chunkSize);
+                String afterId = lastId;
+                entityManager.clear();
+                List<Doctor> doctors = lectura.execute(status ->
+                        doctorRepository.findSliceAfter(desde, hasta, afterId, chunk));
+                if (doctors == null || doctors.isEmpty()) {
+                    break;
+                }
+
+                for (Doctor doctor : doctors) {
+                    processor.add(indexRequest(indexName, doctor,
+                            overwrite ? DocWriteRequest.OpType.INDEX : DocWriteRequest.OpType.CREATE));
+                }
+
+                totalDoctors.addAndGet(doctors.size());
+                lastId = doctors.get(doctors.size() - 1).getId();
+                if (doctors.size() < chunkSize) {
+                    break;
+                }
+            }
+            entityManager.clear();
+        }
+
+        // Espera a que terminen las peticiones _bulk en vuelo
+        void cerrar() {
+            try {
+                completed = processor.awaitClose(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Sincronización interrumpida", e);
+            }
+        }
+
+        Map<String, Object> respuesta(long start) {
+            Map<String, Object> response = new HashMap<>();
+            if (totalDoctors.get() == 0) {
+                response.put("message", "No hay doctores en la base de datos para sincronizar");
+                response.put("syncedCount", 0);
+                response.put("skippedCount", 0);
+                response.put("status", "warning");
+                return response;
+            }
+
+            List<String> errorIds = new ArrayList<>(errors.keySet());
+            Map<String, String> errorSamples = new HashMap<>();
+            errors.entrySet().stream()
+                    .limit(MAX_ERROR_SAMPLES)
+                    .forEach(entry -> errorSamples.put(entry.getKey(), entry.getValue()));
+
+            response.put("message", completed
+                    ? "Sincronización completada"
+                    : "Sincronización incompleta: se agotó el tiempo de espera de las peticiones _bulk");
+            response.put("mode", "bulk");
+            response.put("totalDoctors", totalDoctors.get());
+            response.put("syncedCount", syncedCount.get());
+            response.put("skippedCount", skippedCount.get());
+            response.put("errorCount", errorIds.size());
+            response.put("errorIds", errorIds);
+            response.put("errors", errorSamples);
+            response.put("bulkRequests", bulkRequests.get());
+            response.put("durationMs", System.currentTimeMillis() - start);
+            response.put("timestamp", System.currentTimeMillis());
+            response.put("status", completed && errorIds.isEmpty() ? "success" : "warning");
+            return response;
+        }
+
+        @Override
+        public void beforeBulk(long executionId, BulkRequest request) {
+            bulkRequests.incrementAndGet();
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+            for (BulkItemResponse item : response.getItems()) {
+                if (!item.isFailed()) {
+                    syncedCount.incrementAndGet();
+                } else if (!overwrite && item.getFailure().getStatus() == RestStatus.CONFLICT) {
+                    // Ya existe en el índice
+                    skippedCount.incrementAndGet();
+                } else {
+                    errors.put(item.getId(), item.getFailureMessage());
+                }
+            }
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+            logger.error("❌ Petición _bulk #{} fallida ({} documentos): {}",
+                    executionId, request.numberOfActions(), failure.getMessage());
+            for (DocWriteRequest<?> item : request.requests()) {
+                errors.put(item.id(), failure.getMessage());
+            }
+        }
+    }
+}
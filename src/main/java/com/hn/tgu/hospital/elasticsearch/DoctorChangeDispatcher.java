@@ -0,0 +1,255 @@
+package com.hn.tgu.hospital.elasticsearch;
+
+import com.hn.tgu.hospital.entity.Doctor;
+import com.hn.tgu.hospital.entity.DoctorChange;
+import com.hn.tgu.hospital.repository.DoctorChangeRepository;
+import com.hn.tgu.hospital.repository.DoctorRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Propaga a Elasticsearch los cambios registrados en la tabla doctor_changes (outbox).
+ *
+ * Cada ciclo reserva un lote de cambios (FOR UPDATE SKIP LOCKED más un lease en
+ * next_attempt_at, para que varias instancias puedan convivir), agrupa los cambios del
+ * mismo doctor quedándose con el último y los envía en una sola petición _bulk a los
+ * índices del alias de escritura. Los cambios que fallan (en cualquiera de los índices, o
+ * todos si falla la petición entera) se quedan en la tabla y se reintentan más tarde, con
+ * una espera que se duplica en cada fallo hasta retry-max-backoff; así un documento que
+ * Elasticsearch rechaza siempre no bloquea el lote ni se reenvía en bucle. Si la instancia
+ * cae con un lote reservado, sus cambios vuelven a estar listos al vencer el lease.
+ */
+@Component
+@ConditionalOnProperty(name = "elasticsearch.outbox.enabled", havingValue = "true", matchIfMissing = true)
+public class DoctorChangeDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(DoctorChangeDispatcher.class);
+
+    private final DoctorChangeRepository doctorChangeRepository;
+    private final DoctorRepository doctorRepository;
+    private final DoctorBulkIndexer doctorBulkIndexer;
+    private final RestHighLevelClient elasticsearchClient;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Timer lagTimer;
+    private final Counter upsertCounter;
+    private final Counter deleteCounter;
+    private final Counter failureCounter;
+    private final AtomicLong oldestPendingAgeMs = new AtomicLong();
+
+    @Value("${elasticsearch.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${elasticsearch.outbox.lease:2m}")
+    private Duration lease;
+
+    @Value("${elasticsearch.outbox.retry-backoff:5s}")
+    private Duration retryBackoff;
+
+    @Value("${elasticsearch.outbox.retry-max-backoff:1h}")
+    private Duration retryMaxBackoff;
+
+    /** Filas leídas y filas propagadas (borradas de la tabla) en un lote */
+    public record Lote(int leidos, int propagados) {
+    }
+
+    public DoctorChangeDispatcher(DoctorChangeRepository doctorChangeRepository,
+                                  DoctorRepository doctorRepository,
+                                  DoctorBulkIndexer doctorBulkIndexer,
+                                  RestHighLevelClient elasticsearchClient,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry) {
+        this.doctorChangeRepository = doctorChangeRepository;
+        this.doctorRepository = doctorRepository;
+        this.doctorBulkIndexer = doctorBulkIndexer;
+        this.elasticsearchClient = elasticsearchClient;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.lagTimer = Timer.builder("doctor.outbox.lag")
+                .description("Tiempo entre la escritura en base de datos y su indexado en Elasticsearch")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.upsertCounter = Counter.builder("doctor.outbox.dispatched")
+                .tag("operation", "upsert")
+                .register(meterRegistry);
+        this.deleteCounter = Counter.builder("doctor.outbox.dispatched")
+                .tag("operation", "delete")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("doctor.outbox.failed")
+                .register(meterRegistry);
+        Gauge.builder("doctor.outbox.oldest.age", oldestPendingAgeMs, AtomicLong::get)
+                .description("Antigüedad en milisegundos del cambio pendiente más antiguo")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Vacía la tabla de cambios en lotes hasta que no queden cambios listos o un lote
+     * no consiga propagar nada
+     */
+    @Scheduled(fixedDelayString = "${elasticsearch.outbox.poll-interval-ms:2000}")
+    public void drain() {
+        try {
+            Lote lote;
+            do {
+                lote = dispatchBatch();
+            } while (lote.leidos() == batchSize && lote.propagados() > 0);
+        } catch (Exception e) {
+            logger.error("❌ Error propagando cambios a Elasticsearch: {}", e.getMessage());
+        }
+        updateOldestPendingAge();
+    }
+
+    private void updateOldestPendingAge() {
+        try {
+            oldestPendingAgeMs.set(doctorChangeRepository.findFirstByOrderByIdAsc()
+                    .map(change -> Duration.between(change.getCreatedAt(), Instant.now()).toMillis())
+                    .orElse(0L));
+        } catch (Exception e) {
+            logger.warn("⚠️ No se pudo consultar el cambio pendiente más antiguo: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Procesa un lote de cambios listos en tres pasos, sin ninguna transacción abierta durante
+     * la petición a Elasticsearch: una transacción corta reserva las filas (next_attempt_at pasa
+     * a ahora + lease, así ningún otro ciclo ni instancia las toma), se envía el _bulk y otra
+     * transacción corta borra los cambios propagados y aplaza los fallidos
+     */
+    public Lote dispatchBatch() {
+        Reserva reserva = transactionTemplate.execute(status -> reservar(Instant.now()));
+        if (reserva == null || reserva.changes().isEmpty()) {
+            return new Lote(0, 0);
+        }
+
+        Set<String> failedIds = enviar(reserva);
+
+        Instant now = Instant.now();
+        List<Long> done = new ArrayList<>();
+        List<Long> failed = new ArrayList<>();
+        for (DoctorChange change : reserva.changes()) {
+            if (!failedIds.contains(change.getDoctorId())) {
+                done.add(change.getId());
+                lagTimer.record(Duration.between(change.getCreatedAt(), now));
+            } else {
+                failed.add(change.getId());
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            doctorChangeRepository.deleteAllByIdInBatch(done);
+            for (DoctorChange change : doctorChangeRepository.findAllById(failed)) {
+                change.setAttempts(change.getAttempts() + 1);
+                change.setNextAttemptAt(now.plus(espera(change.getAttempts())));
+            }
+        });
+        if (!failedIds.isEmpty()) {
+            logger.warn("⚠️ {} doctores se reintentarán más tarde", failedIds.size());
+        }
+        return new Lote(reserva.changes().size(), done.size());
+    }
+
+    // Cambios reservados, operación final de cada doctor y doctores a indexar
+    private record Reserva(List<DoctorChange> changes,
+                           Map<String, DoctorChange.Operation> latest,
+                           Map<String, Doctor> doctors) {
+    }
+
+    // Bloquea el siguiente lote, lo marca con el lease y carga los doctores a indexar
+    private Reserva reservar(Instant ahora) {
+        List<DoctorChange> changes = doctorChangeRepository.lockNextBatch(ahora, batchSize);
+        if (changes.isEmpty()) {
+            return new Reserva(List.of(), Map.of(), Map.of());
+        }
+
+        // Las filas están gestionadas: el lease se guarda al confirmar la transacción
+        Instant finLease = ahora.plus(lease);
+        changes.forEach(change -> change.setNextAttemptAt(finLease));
+
+        // El último cambio de cada doctor es el que manda
+        Map<String, DoctorChange.Operation> latest = new LinkedHashMap<>();
+        for (DoctorChange change : changes) {
+            latest.put(change.getDoctorId(), change.getOperation());
+        }
+
+        List<String> upsertIds = latest.entrySet().stream()
+                .filter(entry -> entry.getValue() == DoctorChange.Operation.UPSERT)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        Map<String, Doctor> doctors = doctorRepository.findAllById(upsertIds).stream()
+                .collect(Collectors.toMap(Doctor::getId, Function.identity()));
+        return new Reserva(changes, latest, doctors);
+    }
+
+    /**
+     * Envía el lote en una petición _bulk y devuelve los doctores que no se pudieron propagar;
+     * si falla la petición entera (red, 413, cluster caído) son todos los del lote
+     */
+    private Set<String> enviar(Reserva reserva) {
+        BulkResponse response;
+        try {
+            // Durante una reindexación el alias de escritura tiene dos índices: se escribe en ambos
+            BulkRequest bulkRequest = new BulkRequest();
+            for (String indexName : doctorBulkIndexer.indicesEscritura()) {
+                for (String doctorId : reserva.latest().keySet()) {
+                    Doctor doctor = reserva.doctors().get(doctorId);
+                    if (doctor != null) {
+                        bulkRequest.add(doctorBulkIndexer.indexRequest(indexName, doctor, DocWriteRequest.OpType.INDEX));
+                    } else {
+                        // Borrado, o actualizado y borrado después en el mismo lote
+                        bulkRequest.add(new DeleteRequest(indexName, doctorId));
+                    }
+                }
+            }
+            response = elasticsearchClient.bulk(bulkRequest, RequestOptions.DEFAULT);
+        } catch (Exception e) {
+            failureCounter.increment(reserva.latest().size());
+            logger.error("❌ Petición _bulk de la outbox fallida ({} doctores): {}",
+                    reserva.latest().size(), e.getMessage());
+            return reserva.latest().keySet();
+        }
+
+        Set<String> failedIds = new HashSet<>();
+        for (BulkItemResponse item : response.getItems()) {
+            if (item.isFailed()) {
+                failedIds.add(item.getId());
+                failureCounter.increment();
+                logger.warn("⚠️ No se pudo propagar el doctor {}: {}", item.getId(), item.getFailureMessage());
+            } else if (item.getOpType() == DocWriteRequest.OpType.DELETE) {
+                deleteCounter.increment();
+            } else {
+                upsertCounter.increment();
+            }
+        }
+        return failedIds;
+    }
+
+    // retry-backoff, duplicada en cada fallo y limitada a retry-max-backoff
+    private Duration espera(int intentos) {
+        Duration espera = retryBackoff.multipliedBy(1L << Math.min(intentos - 1, 20));
+        return espera.compareTo(retryMaxBackoff) > 0 ? retryMaxBackoff : espera;
+    }
+}
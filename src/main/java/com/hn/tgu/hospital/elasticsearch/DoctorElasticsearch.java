@@ -1,14 +1,21 @@
 package com.hn.tgu.hospital.elasticsearch;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.CompletionField;
 import org.springframework.data.elasticsearch.annotations.Document;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.InnerField;
+import org.springframework.data.elasticsearch.annotations.Mapping;
+import org.springframework.data.elasticsearch.annotations.MultiField;
 import org.springframework.data.elasticsearch.annotations.Setting;
+import org.springframework.data.elasticsearch.core.suggest.Completion;
 
 import java.util.List;
 import java.util.Map;
 
+// "doctores" es el alias de lectura de la versión activa (doctores_vN, ver DoctorReindexer);
+// en una instalación nueva Spring Data lo crea como índice y la primera reindexación lo sustituye
 @Document(indexName = "doctores")
 @Setting(settingPath = "elasticsearch-settings.json")
 public class DoctorElasticsearch {
@@ -16,10 +23,15 @@ public class DoctorElasticsearch {
     @Id
     private String id;
     
-    @Field(type = FieldType.Text, analyzer = "standard")
+    // name.prefijo: edge n-grams sin tildes para buscar por el comienzo de cualquier palabra
+    @MultiField(mainField = @Field(type = FieldType.Text, analyzer = "standard"),
+            otherFields = @InnerField(suffix = "prefijo", type = FieldType.Text,
+                    analyzer = "autocompletado", searchAnalyzer = "folding"))
     private String name;
     
-    @Field(type = FieldType.Keyword)
+    @MultiField(mainField = @Field(type = FieldType.Keyword),
+            otherFields = @InnerField(suffix = "prefijo", type = FieldType.Text,
+                    analyzer = "autocompletado", searchAnalyzer = "folding"))
     private String specialty;
     
     @Field(type = FieldType.Text)
@@ -32,7 +44,9 @@ public class DoctorElasticsearch {
     private double rating;
     
     // Campo hospital con múltiples tipos para búsqueda avanzada
-    @Field(type = FieldType.Text, analyzer = "standard", searchAnalyzer = "standard")
+    @MultiField(mainField = @Field(type = FieldType.Text, analyzer = "standard", searchAnalyzer = "standard"),
+            otherFields = @InnerField(suffix = "prefijo", type = FieldType.Text,
+                    analyzer = "autocompletado", searchAnalyzer = "folding"))
     private String hospital;
     
     @Field(type = FieldType.Keyword)
@@ -41,7 +55,11 @@ public class DoctorElasticsearch {
     @Field(type = FieldType.Boolean)
     private boolean available;
     
-    @Field(type = FieldType.Text, analyzer = "standard")
+    // description.es: analizador de español, sin stopwords y con stemming ("cardiólogos" encuentra
+    // "cardiólogo"). Va en un subcampo porque Elasticsearch no deja cambiar el analizador del campo
+    // principal en un índice existente; así el putMapping de arranque lo añade sin reindexar
+    @MultiField(mainField = @Field(type = FieldType.Text, analyzer = "standard"),
+            otherFields = @InnerField(suffix = "es", type = FieldType.Text, analyzer = "spanish"))
     private String description;
     
     @Field(type = FieldType.Keyword)
@@ -70,6 +88,23 @@ public class DoctorElasticsearch {
     @Field(type = FieldType.Keyword)
     private String experienceLevel;
     
+    // Franjas libres por día para filtrar por disponibilidad con nested queries. El mapping nested
+    // va en JSON: el MappingBuilder de spring-data-elasticsearch 4.4 llama para los campos
+    // nested/object a un método que ya no existe en el Spring Data Commons de Boot 3
+    @Mapping(mappingPath = "elasticsearch-franjas-mapping.json")
+    private List<FranjaLibre> franjas;
+    
+    // Completion suggester (FST en memoria de Elasticsearch) para el autocompletado;
+    // una entrada por palabra y peso según el rating
+    @CompletionField(analyzer = "folding", searchAnalyzer = "folding", maxInputLength = 100)
+    private Completion sugerenciaNombre;
+    
+    @CompletionField(analyzer = "folding", searchAnalyzer = "folding", maxInputLength = 100)
+    private Completion sugerenciaEspecialidad;
+    
+    @CompletionField(analyzer = "folding", searchAnalyzer = "folding", maxInputLength = 100)
+    private Completion sugerenciaHospital;
+    
     // Constructores
     public DoctorElasticsearch() {}
     
@@ -261,6 +296,83 @@ public class DoctorElasticsearch {
         this.experienceLevel = experienceLevel;
     }
     
+    public List<FranjaLibre> getFranjas() {
+        return franjas;
+    }
+    
+    public void setFranjas(List<FranjaLibre> franjas) {
+        this.franjas = franjas;
+    }
+    
+    public Completion getSugerenciaNombre() {
+        return sugerenciaNombre;
+    }
+    
+    public void setSugerenciaNombre(Completion sugerenciaNombre) {
+        this.sugerenciaNombre = sugerenciaNombre;
+    }
+    
+    public Completion getSugerenciaEspecialidad() {
+        return sugerenciaEspecialidad;
+    }
+    
+    public void setSugerenciaEspecialidad(Completion sugerenciaEspecialidad) {
+        this.sugerenciaEspecialidad = sugerenciaEspecialidad;
+    }
+    
+    public Completion getSugerenciaHospital() {
+        return sugerenciaHospital;
+    }
+    
+    public void setSugerenciaHospital(Completion sugerenciaHospital) {
+        this.sugerenciaHospital = sugerenciaHospital;
+    }
+    
+    // Franja de turnos libres: día de la semana (1 = lunes ... 7 = domingo) y minutos del día [inicio, fin)
+    public static class FranjaLibre {
+        
+        @Field(type = FieldType.Integer)
+        private int dia;
+        
+        @Field(type = FieldType.Integer)
+        private int inicio;
+        
+        @Field(type = FieldType.Integer)
+        private int fin;
+        
+        public FranjaLibre() {}
+        
+        public FranjaLibre(int dia, int inicio, int fin) {
+            this.dia = dia;
+            this.inicio = inicio;
+            this.fin = fin;
+        }
+        
+        public int getDia() {
+            return dia;
+        }
+        
+        public void setDia(int dia) {
+            this.dia = dia;
+        }
+        
+        public int getInicio() {
+            return inicio;
+        }
+        
+        public void setInicio(int inicio) {
+            this.inicio = inicio;
+        }
+        
+        public int getFin() {
+            return fin;
+        }
+        
+        public void setFin(int fin) {
+            this.fin = fin;
+        }
+    }
+    
     // Método builder para crear instancias fácilmente
     public static DoctorElasticsearchBuilder builder() {
         return new DoctorElasticsearchBuilder();
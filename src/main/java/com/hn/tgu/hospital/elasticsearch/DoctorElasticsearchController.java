@@ -1,15 +1,21 @@
 package com.hn.tgu.hospital.elasticsearch;
 
+import com.hn.tgu.hospital.cache.ReferenceData;
+import com.hn.tgu.hospital.cache.ReferenceDataCache;
+import com.hn.tgu.hospital.controller.EtagResponses;
+import com.hn.tgu.hospital.service.AgendaSemanal;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/doctors/elasticsearch")
@@ -18,6 +24,9 @@ public class DoctorElasticsearchController {
     @Autowired
     private DoctorElasticsearchService doctorElasticsearchService;
     
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+    
     /**
      * Búsqueda con facets
      * GET /api/elasticsearch/doctors/search-with-facets
@@ -34,12 +43,17 @@ public class DoctorElasticsearchController {
             @RequestParam(required = false) Boolean available,
             @RequestParam(required = false) List<String> tags,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "full") String view) {
         
+        VistaDoctor vista = VistaDoctor.de(view);
+        if (vista == null) {
+            return ResponseEntity.badRequest().build();
+        }
         try {
             Map<String, Object> result = doctorElasticsearchService.searchWithFacets(
                 query, specialty, hospital, minExperience, maxExperience, 
-                minRating, maxRating, available, tags, page, size);
+                minRating, maxRating, available, tags, page, size, vista);
             
             return ResponseEntity.ok(result);
         } catch (Exception e) {
@@ -48,19 +62,55 @@ public class DoctorElasticsearchController {
         }
     }
     
+    /**
+     * Búsqueda con facets sin bloquear el hilo de Tomcat mientras responde Elasticsearch
+     * GET /doctors/elasticsearch/search-with-facets/async
+     */
+    @GetMapping("/search-with-facets/async")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> searchWithFacetsAsync(
+            @RequestParam(required = false) String query,
+            @RequestParam(required = false) String specialty,
+            @RequestParam(required = false) String hospital,
+            @RequestParam(required = false) Integer minExperience,
+            @RequestParam(required = false) Integer maxExperience,
+            @RequestParam(required = false) Double minRating,
+            @RequestParam(required = false) Double maxRating,
+            @RequestParam(required = false) Boolean available,
+            @RequestParam(required = false) List<String> tags,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "full") String view) {
+        
+        VistaDoctor vista = VistaDoctor.de(view);
+        if (vista == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        return doctorElasticsearchService.searchWithFacetsAsync(
+                query, specialty, hospital, minExperience, maxExperience,
+                minRating, maxRating, available, tags, page, size, vista)
+            .thenApply(ResponseEntity::ok);
+    }
+    
     /**
      * Búsqueda por texto
      * GET /api/elasticsearch/doctors/search
+     * Con view=summary (también en los demás listados) cada doctor viene solo con los
+     * campos de una fila de resultados ({@link VistaDoctor}); por defecto, el documento completo
      */
     @GetMapping("/search")
-    public ResponseEntity<Page<DoctorElasticsearch>> searchByText(
+    public ResponseEntity<Page<Object>> searchByText(
             @RequestParam String query,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "full") String view) {
         
+        VistaDoctor vista = VistaDoctor.de(view);
+        if (vista == null) {
+            return ResponseEntity.badRequest().build();
+        }
         try {
-            Page<DoctorElasticsearch> result = doctorElasticsearchService.searchByText(query, page, size);
-            return ResponseEntity.ok(result);
+            Page<DoctorElasticsearch> result = doctorElasticsearchService.searchByText(query, page, size, vista);
+            return ResponseEntity.ok(vista.presentar(result));
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
@@ -71,7 +121,7 @@ public class DoctorElasticsearchController {
      * GET /api/elasticsearch/doctors/search-advanced
      */
     @GetMapping("/search-advanced")
-    public ResponseEntity<Page<DoctorElasticsearch>> searchAdvanced(
+    public ResponseEntity<Page<Object>> searchAdvanced(
             @RequestParam(required = false) String query,
             @RequestParam(required = false) String specialty,
             @RequestParam(required = false) String hospital,
@@ -81,75 +131,111 @@ public class DoctorElasticsearchController {
             @RequestParam(required = false) Double maxRating,
             @RequestParam(required = false) Boolean available,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "full") String view) {
         
+        VistaDoctor vista = VistaDoctor.de(view);
+        if (vista == null) {
+            return ResponseEntity.badRequest().build();
+        }
         try {
             Page<DoctorElasticsearch> result = doctorElasticsearchService.searchAdvanced(
                 query, specialty, hospital, minExperience, maxExperience, 
-                minRating, maxRating, available, page, size);
+                minRating, maxRating, available, page, size, vista);
             
-            return ResponseEntity.ok(result);
+            return ResponseEntity.ok(vista.presentar(result));
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
     }
     
     /**
-     * Obtener todas las especialidades
+     * Búsqueda por disponibilidad combinada con especialidad, hospital y rating
+     * GET /doctors/elasticsearch/search-availability?dia=martes&desde=10:00&hasta=12:00&specialty=Cardiología
+     * GET /doctors/elasticsearch/search-availability?dia=martes&hora=10:30
+     */
+    @GetMapping("/search-availability")
+    public ResponseEntity<Page<Object>> searchAvailability(
+            @RequestParam String dia,
+            @RequestParam(required = false) String hora,
+            @RequestParam(required = false) String desde,
+            @RequestParam(required = false) String hasta,
+            @RequestParam(required = false) String specialty,
+            @RequestParam(required = false) String hospital,
+            @RequestParam(required = false) Double minRating,
+            @RequestParam(required = false) Double maxRating,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "full") String view) {
+        int numeroDia = AgendaSemanal.dia(dia);
+        int inicio = AgendaSemanal.minuto(hora != null ? hora : desde);
+        int fin = hora != null ? inicio + 1 : AgendaSemanal.minuto(hasta);
+        VistaDoctor vista = VistaDoctor.de(view);
+        if (numeroDia < 0 || inicio < 0 || fin <= inicio || vista == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        try {
+            Page<DoctorElasticsearch> result = doctorElasticsearchService.searchAvailability(
+                specialty, hospital, minRating, maxRating, numeroDia, inicio, fin, page, size, vista);
+            return ResponseEntity.ok(vista.presentar(result));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    /**
+     * Obtener todas las especialidades (desde la foto de datos de referencia, con ETag)
      * GET /api/elasticsearch/doctors/specialties
      */
     @GetMapping("/specialties")
-    public ResponseEntity<List<String>> getAllSpecialties() {
+    public ResponseEntity<List<String>> getAllSpecialties(WebRequest request) {
         try {
-            List<String> specialties = doctorElasticsearchService.getAllSpecialties();
-            return ResponseEntity.ok(specialties);
+            ReferenceData.Dimension specialties = referenceDataCache.obtener().specialties();
+            return EtagResponses.conEtag(request, specialties.etag(), specialties::values);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
     }
     
     /**
-     * Obtener todos los hospitales
+     * Obtener todos los hospitales (desde la foto de datos de referencia, con ETag)
      * GET /api/elasticsearch/doctors/hospitals
      */
     @GetMapping("/hospitals")
-    public ResponseEntity<List<String>> getAllHospitals() {
+    public ResponseEntity<List<String>> getAllHospitals(WebRequest request) {
         try {
-            List<String> hospitals = doctorElasticsearchService.getAllHospitals();
-            return ResponseEntity.ok(hospitals);
+            ReferenceData.Dimension hospitals = referenceDataCache.obtener().hospitals();
+            return EtagResponses.conEtag(request, hospitals.etag(), hospitals::values);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
     }
     
     /**
-     * Obtener todos los tags
+     * Obtener todos los tags (desde la foto de datos de referencia, con ETag)
      * GET /api/elasticsearch/doctors/tags
      */
     @GetMapping("/tags")
-    public ResponseEntity<List<String>> getAllTags() {
+    public ResponseEntity<List<String>> getAllTags(WebRequest request) {
         try {
-            List<String> tags = doctorElasticsearchService.getAllTags();
-            return ResponseEntity.ok(tags);
+            ReferenceData.Dimension tags = referenceDataCache.obtener().tags();
+            return EtagResponses.conEtag(request, tags.etag(), tags::values);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
     }
     
     /**
-     * Obtener doctor por ID (usando búsqueda por texto)
+     * Obtener el documento completo de un doctor por ID
      * GET /api/elasticsearch/doctors/{id}
      */
     @GetMapping("/{id}")
     public ResponseEntity<DoctorElasticsearch> getDoctorById(@PathVariable String id) {
         try {
-            // Buscar por ID usando búsqueda por texto
-            Page<DoctorElasticsearch> page = doctorElasticsearchService.searchByText(id, 0, 1);
-            if (!page.getContent().isEmpty()) {
-                return ResponseEntity.ok(page.getContent().get(0));
-            } else {
-                return ResponseEntity.notFound().build();
-            }
+            return doctorElasticsearchService.findById(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
@@ -160,12 +246,17 @@ public class DoctorElasticsearchController {
      * GET /api/elasticsearch/doctors
      */
     @GetMapping
-    public ResponseEntity<Page<DoctorElasticsearch>> getAllDoctors(
+    public ResponseEntity<Page<Object>> getAllDoctors(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "50") int size) {
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "full") String view) {
+        VistaDoctor vista = VistaDoctor.de(view);
+        if (vista == null) {
+            return ResponseEntity.badRequest().build();
+        }
         try {
-            Page<DoctorElasticsearch> doctors = doctorElasticsearchService.findAll(page, size);
-            return ResponseEntity.ok(doctors);
+            Page<DoctorElasticsearch> doctors = doctorElasticsearchService.findAll(page, size, vista);
+            return ResponseEntity.ok(vista.presentar(doctors));
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
@@ -430,9 +521,10 @@ public class DoctorElasticsearchController {
     @GetMapping("/exact/specialty")
     public ResponseEntity<Map<String, Object>> searchExactBySpecialty(
             @RequestParam String value,
-            @RequestParam(defaultValue = "0") int size) {
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
         try {
-            Map<String, Object> results = doctorElasticsearchService.searchBySpecialtyExact(value, 0, size);
+            Map<String, Object> results = doctorElasticsearchService.searchBySpecialtyExact(value, page, size);
             return ResponseEntity.ok(results);
         } catch (Exception e) {
             Map<String, Object> errorResponse = new HashMap<>();
@@ -489,11 +581,15 @@ public class DoctorElasticsearchController {
     /**
      * Sincronizar desde la base de datos (inteligente)
      * POST /doctors/elasticsearch/sync
+     * POST /doctors/elasticsearch/sync?mode=legacy
+     * POST /doctors/elasticsearch/sync?overwrite=true
      */
     @PostMapping("/sync")
-    public ResponseEntity<Map<String, Object>> syncFromDatabase() {
+    public ResponseEntity<Map<String, Object>> syncFromDatabase(
+            @RequestParam(defaultValue = "bulk") String mode,
+            @RequestParam(defaultValue = "false") boolean overwrite) {
         try {
-            Map<String, Object> result = doctorElasticsearchService.syncFromDatabase();
+            Map<String, Object> result = doctorElasticsearchService.syncFromDatabase(mode, overwrite);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
             Map<String, Object> errorResponse = new HashMap<>();
@@ -503,6 +599,19 @@ public class DoctorElasticsearchController {
         }
     }
     
+    /**
+     * Reindexar en una versión nueva del índice y cambiar los alias al terminar
+     * POST /doctors/elasticsearch/reindex
+     */
+    @PostMapping("/reindex")
+    public ResponseEntity<Map<String, Object>> reindex() {
+        Map<String, Object> result = doctorElasticsearchService.reindex();
+        if ("error".equals(result.get("status"))) {
+            return ResponseEntity.internalServerError().body(result);
+        }
+        return ResponseEntity.ok(result);
+    }
+    
     /**
      * Verificar estado de sincronización
      * GET /doctors/elasticsearch/sync-status
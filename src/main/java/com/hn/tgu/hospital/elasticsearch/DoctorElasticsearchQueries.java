@@ -0,0 +1,240 @@
+package com.hn.tgu.hospital.elasticsearch;
+
+import org.apache.lucene.search.join.ScoreMode;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.Operator;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.aggregations.AbstractAggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.aggregations.bucket.range.Range;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.sort.SortBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Construcción de queries y agregaciones sobre el índice de doctores.
+ * Todos los filtros van en filter context para que Elasticsearch los cachee y no afecten el score.
+ */
+public final class DoctorElasticsearchQueries {
+
+    // Nombres de las agregaciones usadas como facets
+    public static final String FACET_SPECIALTIES = "specialties";
+    public static final String FACET_HOSPITALS = "hospitals";
+    public static final String FACET_TAGS = "tags";
+    public static final String FACET_EXPERIENCE_LEVELS = "experienceLevels";
+    public static final String FACET_RATINGS = "ratings";
+    public static final String FACET_EXPERIENCE_LEVEL = "experienceLevel";
+    public static final String FACET_SPECIALTY = "specialty";
+
+    private static final int FACET_SIZE = 100;
+
+    // Campos que muestran los listados; el resto (horarios, franjas, sugerencias...) no viaja en los hits
+    public static final String[] CAMPOS_LISTADO = {
+            "id", "name", "specialty", "img", "experienceYears", "rating", "hospital",
+            "available", "description", "tags", "experienceLevel"};
+
+    // Campos de una fila de resultados ({@link VistaDoctor#SUMMARY})
+    public static final String[] CAMPOS_RESUMEN = {
+            "id", "name", "specialty", "hospital", "rating", "img", "available"};
+
+    // Campo keyword sobre el que se hace la búsqueda exacta de cada campo de la API
+    private static final Map<String, String> CAMPOS_EXACTOS = Map.of(
+            "hospital", "hospitalKeyword",
+            "specialty", "specialty",
+            "experiencelevel", "experienceLevel",
+            "name", "name");
+
+    private DoctorElasticsearchQueries() {
+    }
+
+    /**
+     * Bool query con texto libre (must) y el resto de criterios como filtros
+     */
+    public static BoolQueryBuilder filtros(String query, String specialty, String hospital,
+                                           Integer minExperience, Integer maxExperience,
+                                           Double minRating, Double maxRating,
+                                           Boolean available, List<String> tags) {
+        return filtros(query, specialty, hospital, null, minExperience, maxExperience,
+                minRating, maxRating, available, tags);
+    }
+
+    /**
+     * Igual que {@link #filtros(String, String, String, Integer, Integer, Double, Double, Boolean, List)}
+     * con filtro adicional por nivel de experiencia
+     */
+    public static BoolQueryBuilder filtros(String query, String specialty, String hospital, String experienceLevel,
+                                           Integer minExperience, Integer maxExperience,
+                                           Double minRating, Double maxRating,
+                                           Boolean available, List<String> tags) {
+        BoolQueryBuilder boolQuery = QueryBuilders.boolQuery();
+
+        if (query != null && !query.trim().isEmpty()) {
+            boolQuery.must(textoLibre(query));
+        }
+
+        if (specialty != null && !specialty.trim().isEmpty()) {
+            boolQuery.filter(QueryBuilders.termQuery("specialty", specialty));
+        }
+
+        if (experienceLevel != null && !experienceLevel.trim().isEmpty()) {
+            boolQuery.filter(QueryBuilders.termQuery("experienceLevel", experienceLevel));
+        }
+
+        if (hospital != null && !hospital.trim().isEmpty()) {
+            // hospital es un campo de texto: todas las palabras deben aparecer
+            boolQuery.filter(QueryBuilders.matchQuery("hospital", hospital).operator(Operator.AND));
+        }
+
+        if (minExperience != null || maxExperience != null) {
+            var rangeQuery = QueryBuilders.rangeQuery("experienceYears");
+            if (minExperience != null) rangeQuery.gte(minExperience);
+            if (maxExperience != null) rangeQuery.lte(maxExperience);
+            boolQuery.filter(rangeQuery);
+        }
+
+        if (minRating != null || maxRating != null) {
+            var rangeQuery = QueryBuilders.rangeQuery("rating");
+            if (minRating != null) rangeQuery.gte(minRating);
+            if (maxRating != null) rangeQuery.lte(maxRating);
+            boolQuery.filter(rangeQuery);
+        }
+
+        if (available != null) {
+            boolQuery.filter(QueryBuilders.termQuery("available", available));
+        }
+
+        if (tags != null && !tags.isEmpty()) {
+            boolQuery.filter(QueryBuilders.termsQuery("tags", tags));
+        }
+
+        return boolQuery;
+    }
+
+    /**
+     * Igualdad exacta (WHERE field = "valor") como filtro, sin score y cacheable;
+     * field es hospital, specialty, experienceLevel o name sin distinguir mayúsculas
+     */
+    public static BoolQueryBuilder exacta(String field, String value) {
+        String campo = field != null ? CAMPOS_EXACTOS.get(field.toLowerCase()) : null;
+        if (campo == null) {
+            throw new IllegalArgumentException("Campo no soportado: " + field);
+        }
+        return QueryBuilders.boolQuery().filter(QueryBuilders.termQuery(campo, value));
+    }
+
+    /**
+     * Algún turno libre el día dado (1 = lunes ... 7 = domingo) que se solapa con [desde, hasta),
+     * en minutos del día, sobre el campo nested franjas
+     */
+    public static QueryBuilder franjaLibre(int dia, int desde, int hasta) {
+        return QueryBuilders.nestedQuery("franjas",
+                QueryBuilders.boolQuery()
+                        .filter(QueryBuilders.termQuery("franjas.dia", dia))
+                        .filter(QueryBuilders.rangeQuery("franjas.inicio").lt(hasta))
+                        .filter(QueryBuilders.rangeQuery("franjas.fin").gt(desde)),
+                ScoreMode.None);
+    }
+
+    /**
+     * Texto libre sobre nombre, especialidad, descripción y searchText,
+     * con el mismo boosting que la búsqueda avanzada de DoctorSearchRepository
+     */
+    public static QueryBuilder textoLibre(String query) {
+        return QueryBuilders.disMaxQuery()
+                .add(QueryBuilders.matchQuery("name", query).boost(3.0f))
+                .add(QueryBuilders.matchQuery("specialty", query).boost(2.5f))
+                .add(QueryBuilders.multiMatchQuery(query, "description", "description.es").boost(1.5f))
+                .add(QueryBuilders.matchQuery("searchText", query).boost(1.0f))
+                .tieBreaker(0.3f);
+    }
+
+    /**
+     * Orden por relevancia y, a igual relevancia, por rating descendente
+     */
+    public static List<SortBuilder<?>> ordenPorRelevancia() {
+        return List.of(SortBuilders.scoreSort(), SortBuilders.fieldSort("rating").order(SortOrder.DESC));
+    }
+
+    /**
+     * Agregaciones para los facets: términos por especialidad, hospital, tag y nivel
+     * de experiencia, y rangos de rating
+     */
+    public static List<AbstractAggregationBuilder<?>> facetas() {
+        return List.of(
+                AggregationBuilders.terms(FACET_SPECIALTIES).field("specialty").size(FACET_SIZE),
+                AggregationBuilders.terms(FACET_HOSPITALS).field("hospitalKeyword").size(FACET_SIZE),
+                AggregationBuilders.terms(FACET_TAGS).field("tags").size(FACET_SIZE),
+                AggregationBuilders.terms(FACET_EXPERIENCE_LEVELS).field("experienceLevel").size(FACET_SIZE),
+                AggregationBuilders.range(FACET_RATINGS).field("rating")
+                        .addUnboundedTo("0-3", 3.0)
+                        .addRange("3-4", 3.0, 4.0)
+                        .addRange("4-4.5", 4.0, 4.5)
+                        .addUnboundedFrom("4.5+", 4.5)
+        );
+    }
+
+    /**
+     * Agregaciones de los endpoints de hospital/experiencia: nivel de experiencia y especialidad
+     */
+    public static List<AbstractAggregationBuilder<?>> facetasPorNivelYEspecialidad() {
+        return List.of(
+                AggregationBuilders.terms(FACET_EXPERIENCE_LEVEL).field("experienceLevel").size(FACET_SIZE),
+                AggregationBuilders.terms(FACET_SPECIALTY).field("specialty").size(FACET_SIZE)
+        );
+    }
+
+    /**
+     * Lee las agregaciones de {@link #facetasPorNivelYEspecialidad()}
+     */
+    public static Map<String, Object> leerFacetasPorNivelYEspecialidad(Aggregations aggregations) {
+        Map<String, Object> facets = new LinkedHashMap<>();
+        for (String name : List.of(FACET_EXPERIENCE_LEVEL, FACET_SPECIALTY)) {
+            Terms terms = aggregations != null ? aggregations.get(name) : null;
+            facets.put(name, terms != null ? contarTerminos(terms) : Map.of());
+        }
+        return facets;
+    }
+
+    /**
+     * Convierte las agregaciones de la respuesta en mapas valor -> número de doctores
+     */
+    public static Map<String, Object> leerFacetas(Aggregations aggregations) {
+        Map<String, Object> facets = new LinkedHashMap<>();
+        if (aggregations == null) {
+            return facets;
+        }
+        for (String name : List.of(FACET_SPECIALTIES, FACET_HOSPITALS, FACET_TAGS, FACET_EXPERIENCE_LEVELS)) {
+            Terms terms = aggregations.get(name);
+            if (terms != null) {
+                facets.put(name, contarTerminos(terms));
+            }
+        }
+        Range ratings = aggregations.get(FACET_RATINGS);
+        if (ratings != null) {
+            Map<String, Long> buckets = new LinkedHashMap<>();
+            for (Range.Bucket bucket : ratings.getBuckets()) {
+                buckets.put(bucket.getKeyAsString(), bucket.getDocCount());
+            }
+            facets.put(FACET_RATINGS, buckets);
+        }
+        return facets;
+    }
+
+    /**
+     * Buckets de una agregación terms, en el orden devuelto (más frecuentes primero)
+     */
+    public static Map<String, Long> contarTerminos(Terms terms) {
+        Map<String, Long> buckets = new LinkedHashMap<>();
+        for (Terms.Bucket bucket : terms.getBuckets()) {
+            buckets.put(bucket.getKeyAsString(), bucket.getDocCount());
+        }
+        return buckets;
+    }
+}
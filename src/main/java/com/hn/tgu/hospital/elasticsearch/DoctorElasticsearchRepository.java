@@ -74,18 +74,8 @@ public interface DoctorElasticsearchRepository extends ElasticsearchRepository<D
     @Query("{\"wildcard\": {\"hospital\": {\"value\": \"*?0*\"}}}")
     List<DoctorElasticsearch> searchByHospitalWildcard(String hospital);
     
-    // BÚSQUEDA EXACTA - Como WHERE field = "valor"
-    @Query("{\"term\": {\"hospitalKeyword\": \"?0\"}}")
-    List<DoctorElasticsearch> searchByHospitalExact(String hospital);
-    
-    @Query("{\"term\": {\"specialty\": \"?0\"}}")
-    List<DoctorElasticsearch> searchBySpecialtyExact(String specialty);
-    
-    @Query("{\"term\": {\"experienceLevel\": \"?0\"}}")
-    List<DoctorElasticsearch> searchByExperienceLevelExact(String experienceLevel);
-    
-    @Query("{\"term\": {\"name\": \"?0\"}}")
-    List<DoctorElasticsearch> searchByNameExact(String name);
+    // La búsqueda exacta (WHERE field = "valor") va en una sola petición con facets:
+    // DoctorElasticsearchQueries.exacta y DoctorElasticsearchService.searchExact
     
     // Métodos manuales si los heredados no funcionan
     @Query("{\"match_all\": {}}")
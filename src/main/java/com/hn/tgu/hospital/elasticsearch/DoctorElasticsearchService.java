@@ -1,7 +1,14 @@
 package com.hn.tgu.hospital.elasticsearch;
 
+import com.hn.tgu.hospital.cache.ReferenceDataCache;
 import com.hn.tgu.hospital.entity.Doctor;
+import com.hn.tgu.hospital.mapper.DoctorMapper;
 import com.hn.tgu.hospital.repository.DoctorRepository;
+import com.hn.tgu.hospital.search.ElasticsearchCircuitBreaker;
+import com.hn.tgu.hospital.search.LimiteElasticsearch;
+import com.hn.tgu.hospital.search.SearchMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -10,13 +17,35 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.Operator;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.aggregations.AbstractAggregationBuilder;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.springframework.data.elasticsearch.core.ElasticsearchAggregations;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.query.Criteria;
+import org.springframework.data.elasticsearch.core.query.CriteriaQuery;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
+import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
+import org.springframework.data.elasticsearch.core.query.NativeSearchQueryBuilder;
 import org.springframework.data.elasticsearch.core.query.Query;
 
 @Service
 public class DoctorElasticsearchService {
     
+    private static final Logger logger = LoggerFactory.getLogger(DoctorElasticsearchService.class);
+    
     @Autowired
     private DoctorElasticsearchRepository doctorElasticsearchRepository;
     
@@ -26,13 +55,36 @@ public class DoctorElasticsearchService {
     @Autowired
     private ElasticsearchOperations elasticsearchTemplate;
     
+    @Autowired
+    private RestHighLevelClient elasticsearchClient;
+    
+    @Autowired
+    private DoctorMapper doctorMapper;
+    
+    @Autowired
+    private DoctorBulkIndexer doctorBulkIndexer;
+    
+    @Autowired
+    private DoctorReindexer doctorReindexer;
+    
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+    
+    @Autowired
+    private SearchMetrics searchMetrics;
+    
+    @Autowired
+    private LimiteElasticsearch limiteElasticsearch;
+    
+    @Autowired
+    private ElasticsearchCircuitBreaker circuitBreaker;
+    
     /**
-     * Búsqueda simple por texto
+     * Búsqueda simple por texto, trayendo los campos de la vista
      */
-    public Page<DoctorElasticsearch> searchByText(String query, int page, int size) {
+    public Page<DoctorElasticsearch> searchByText(String query, int page, int size, VistaDoctor vista) {
         try {
-            Pageable pageable = PageRequest.of(page, size);
-            return doctorElasticsearchRepository.findBySearchTextContaining(query, pageable);
+            return buscarPorTexto(query, PageRequest.of(page, size), vista);
         } catch (Exception e) {
             // Retornar página vacía en caso de error
             Pageable pageable = PageRequest.of(page, size);
@@ -41,75 +93,32 @@ public class DoctorElasticsearchService {
     }
     
     /**
-     * Obtener todas las especialidades disponibles
+     * Obtener todas las especialidades disponibles (foto de datos de referencia)
      */
     public List<String> getAllSpecialties() {
-        try {
-            // Usar búsqueda con paginación
-            Pageable pageable = PageRequest.of(0, 1000);
-            Page<DoctorElasticsearch> page = doctorElasticsearchRepository.findBySearchTextContaining("", pageable);
-            
-            Set<String> specialties = new HashSet<>();
-            for (DoctorElasticsearch doctor : page.getContent()) {
-                if (doctor.getSpecialty() != null) {
-                    specialties.add(doctor.getSpecialty());
-                }
-            }
-            return new ArrayList<>(specialties);
-        } catch (Exception e) {
-            return new ArrayList<>();
-        }
+        return referenceDataCache.obtener().specialties().values();
     }
     
     /**
-     * Obtener todos los hospitales disponibles
+     * Obtener todos los hospitales disponibles (foto de datos de referencia)
      */
     public List<String> getAllHospitals() {
-        try {
-            // Usar búsqueda con paginación
-            Pageable pageable = PageRequest.of(0, 1000);
-            Page<DoctorElasticsearch> page = doctorElasticsearchRepository.findBySearchTextContaining("", pageable);
-            
-            Set<String> hospitals = new HashSet<>();
-            for (DoctorElasticsearch doctor : page.getContent()) {
-                if (doctor.getHospital() != null) {
-                    hospitals.add(doctor.getHospital());
-                }
-            }
-            return new ArrayList<>(hospitals);
-        } catch (Exception e) {
-            return new ArrayList<>();
-        }
+        return referenceDataCache.obtener().hospitals().values();
     }
     
     /**
-     * Obtener todos los tags disponibles
+     * Obtener todos los tags disponibles (foto de datos de referencia)
      */
     public List<String> getAllTags() {
-        try {
-            // Usar búsqueda con paginación
-            Pageable pageable = PageRequest.of(0, 1000);
-            Page<DoctorElasticsearch> page = doctorElasticsearchRepository.findBySearchTextContaining("", pageable);
-            
-            Set<String> allTags = new HashSet<>();
-            for (DoctorElasticsearch doctor : page.getContent()) {
-                if (doctor.getTags() != null) {
-                    allTags.addAll(doctor.getTags());
-                }
-            }
-            return new ArrayList<>(allTags);
-        } catch (Exception e) {
-            return new ArrayList<>();
-        }
+        return referenceDataCache.obtener().tags().values();
     }
     
     /**
-     * Obtener todos los doctores (con paginación)
+     * Obtener todos los doctores (con paginación), con los campos de la vista
      */
-    public Page<DoctorElasticsearch> findAll(int page, int size) {
+    public Page<DoctorElasticsearch> findAll(int page, int size, VistaDoctor vista) {
         try {
-            Pageable pageable = PageRequest.of(page, size);
-            return doctorElasticsearchRepository.findBySearchTextContaining("", pageable);
+            return buscarPorTexto("", PageRequest.of(page, size), vista);
         } catch (Exception e) {
             // Retornar página vacía en caso de error
             Pageable pageable = PageRequest.of(page, size);
@@ -118,121 +127,129 @@ public class DoctorElasticsearchService {
     }
     
     /**
-     * Búsqueda con facets simplificada
+     * Búsqueda con facets
+     * Los hits y las agregaciones (conteo por especialidad, hospital, tag,
+     * nivel de experiencia y rango de rating) salen de una sola petición
      */
     public Map<String, Object> searchWithFacets(String query, String specialty, String hospital, 
                                                Integer minExperience, Integer maxExperience, 
                                                Double minRating, Double maxRating, 
                                                Boolean available, List<String> tags, 
-                                               int page, int size) {
+                                               int page, int size, VistaDoctor vista) {
         
+        long inicio = System.nanoTime();
+        BoolQueryBuilder boolQuery = DoctorElasticsearchQueries.filtros(query, specialty, hospital,
+            minExperience, maxExperience, minRating, maxRating, available, tags);
         try {
-            // Usar búsqueda avanzada del repositorio
-            Page<DoctorElasticsearch> doctorPage = searchAdvanced(
-                query, specialty, hospital, minExperience, maxExperience, 
-                minRating, maxRating, available, page, size);
-            
-            // Obtener facets básicos
-            List<String> allSpecialties = getAllSpecialties();
-            List<String> allHospitals = getAllHospitals();
-            List<String> allTags = getAllTags();
+            SearchHits<DoctorElasticsearch> searchHits = buscar(
+                boolQuery,
+                PageRequest.of(page, size),
+                DoctorElasticsearchQueries.facetas(),
+                vista.campos());
             
             // Construir respuesta
             Map<String, Object> result = new HashMap<>();
-            result.put("doctors", doctorPage.getContent());
-            result.put("totalHits", doctorPage.getTotalElements());
+            result.put("doctors", vista.presentar(contenido(searchHits)));
+            result.put("totalHits", searchHits.getTotalHits());
             result.put("page", page);
             result.put("size", size);
+            result.put("facets", DoctorElasticsearchQueries.leerFacetas(aggregationsOf(searchHits)));
             
-            // Facets simplificados
-            Map<String, Object> facets = new HashMap<>();
-            facets.put("specialties", allSpecialties);
-            facets.put("hospitals", allHospitals);
-            facets.put("tags", allTags);
-            
-            result.put("facets", facets);
-            
+            searchMetrics.registrar("facetas", SearchMetrics.Modo.ELASTICSEARCH, inicio,
+                searchHits.getSearchHits().size(), boolQuery::toString);
             return result;
             
         } catch (Exception e) {
+            searchMetrics.registrar("facetas", SearchMetrics.Modo.ERROR, inicio, 0, boolQuery::toString);
             Map<String, Object> errorResult = new HashMap<>();
             errorResult.put("error", "Error en búsqueda con facets: " + e.getMessage());
             return errorResult;
         }
     }
     
+    /**
+     * Como {@link #searchWithFacets} sin bloquear: la misma consulta enviada con searchAsync del
+     * cliente, dentro del circuit breaker y con los timeouts del presupuesto de latencia.
+     * El future se completa en el executor de búsquedas, que convierte la respuesta
+     */
+    public CompletableFuture<Map<String, Object>> searchWithFacetsAsync(String query, String specialty, String hospital,
+                                                                        Integer minExperience, Integer maxExperience,
+                                                                        Double minRating, Double maxRating,
+                                                                        Boolean available, List<String> tags,
+                                                                        int page, int size, VistaDoctor vista) {
+        long inicio = System.nanoTime();
+        BoolQueryBuilder boolQuery = DoctorElasticsearchQueries.filtros(query, specialty, hospital,
+            minExperience, maxExperience, minRating, maxRating, available, tags);
+        SearchRequest request = peticion(
+            consulta(boolQuery, PageRequest.of(page, size), DoctorElasticsearchQueries.facetas(), vista.campos()));
+        
+        CompletableFuture<SearchResponse> respuesta = circuitBreaker.ejecutarAsync(() -> {
+            CompletableFuture<SearchResponse> llamada = new CompletableFuture<>();
+            elasticsearchClient.searchAsync(request, circuitBreaker.opciones(),
+                circuitBreaker.listener(llamada));
+            return llamada;
+        });
+        
+        return respuesta
+            .thenApply(response -> {
+                List<DoctorElasticsearch> doctors = Arrays.stream(response.getHits().getHits())
+                    .map(this::documento)
+                    .collect(Collectors.toList());
+                
+                Map<String, Object> result = new HashMap<>();
+                result.put("doctors", vista.presentar(doctors));
+                result.put("totalHits", response.getHits().getTotalHits().value);
+                result.put("page", page);
+                result.put("size", size);
+                result.put("facets", DoctorElasticsearchQueries.leerFacetas(response.getAggregations()));
+                
+                searchMetrics.registrar("facetas", SearchMetrics.Modo.ELASTICSEARCH, inicio,
+                    doctors.size(), boolQuery::toString);
+                return result;
+            })
+            .exceptionally(e -> {
+                searchMetrics.registrar("facetas", SearchMetrics.Modo.ERROR, inicio, 0, boolQuery::toString);
+                Throwable causa = e.getCause() != null ? e.getCause() : e;
+                Map<String, Object> errorResult = new HashMap<>();
+                errorResult.put("error", "Error en búsqueda con facets: " + causa.getMessage());
+                return errorResult;
+            });
+    }
+    
+    /**
+     * Documento de un hit nativo, convertido igual que los de {@link ElasticsearchOperations}
+     */
+    private DoctorElasticsearch documento(org.elasticsearch.search.SearchHit hit) {
+        Document document = Document.from(hit.getSourceAsMap());
+        document.setId(hit.getId());
+        return elasticsearchTemplate.getElasticsearchConverter().read(DoctorElasticsearch.class, document);
+    }
+    
+    /**
+     * Agregaciones nativas de una respuesta de búsqueda
+     */
+    private Aggregations aggregationsOf(SearchHits<?> searchHits) {
+        if (searchHits.getAggregations() instanceof ElasticsearchAggregations elasticsearchAggregations) {
+            return elasticsearchAggregations.aggregations();
+        }
+        return null;
+    }
+    
     /**
      * Búsqueda avanzada con múltiples criterios
+     * Todos los filtros, el orden y la paginación se resuelven en Elasticsearch
      */
     public Page<DoctorElasticsearch> searchAdvanced(String query, String specialty, String hospital, 
                                                    Integer minExperience, Integer maxExperience, 
                                                    Double minRating, Double maxRating, 
-                                                   Boolean available, int page, int size) {
+                                                   Boolean available, int page, int size, VistaDoctor vista) {
         try {
             Pageable pageable = PageRequest.of(page, size);
-            
-            // Si hay query, usar búsqueda de texto
-            if (query != null && !query.trim().isEmpty()) {
-                return doctorElasticsearchRepository.findBySearchTextContaining(query, pageable);
-            }
-            
-            // Si no hay query, usar filtros específicos
-            List<DoctorElasticsearch> results = new ArrayList<>();
-            
-            // Aplicar filtros
-            if (specialty != null && !specialty.isEmpty()) {
-                results = doctorElasticsearchRepository.findBySpecialty(specialty);
-            }
-            
-            if (hospital != null && !hospital.isEmpty()) {
-                if (results.isEmpty()) {
-                    results = doctorElasticsearchRepository.findByHospitalContaining(hospital);
-                } else {
-                    results = results.stream()
-                        .filter(d -> d.getHospital().toLowerCase().contains(hospital.toLowerCase()))
-                        .collect(Collectors.toList());
-                }
-            }
-            
-            if (minExperience != null && maxExperience != null) {
-                if (results.isEmpty()) {
-                    results = doctorElasticsearchRepository.findByExperienceYearsBetween(minExperience, maxExperience);
-                } else {
-                    results = results.stream()
-                        .filter(d -> d.getExperienceYears() >= minExperience && d.getExperienceYears() <= maxExperience)
-                        .collect(Collectors.toList());
-                }
-            }
-            
-            if (minRating != null && maxRating != null) {
-                if (results.isEmpty()) {
-                    results = results.stream()
-                        .filter(d -> d.getRating() >= minRating && d.getRating() <= maxRating)
-                        .collect(Collectors.toList());
-                } else {
-                    results = results.stream()
-                        .filter(d -> d.getRating() >= minRating && d.getRating() <= maxRating)
-                        .collect(Collectors.toList());
-                }
-            }
-            
-            if (available != null) {
-                if (results.isEmpty()) {
-                    results = doctorElasticsearchRepository.findByAvailable(available);
-                } else {
-                    results = results.stream()
-                        .filter(d -> d.isAvailable() == available)
-                        .collect(Collectors.toList());
-                }
-            }
-            
-            // Aplicar paginación
-            int start = page * size;
-            int end = Math.min(start + size, results.size());
-            List<DoctorElasticsearch> paginatedResults = results.subList(start, end);
-            
-            // Crear página personalizada
-            return new PageImpl<>(paginatedResults, pageable, results.size());
+            SearchHits<DoctorElasticsearch> searchHits = buscar(
+                DoctorElasticsearchQueries.filtros(query, specialty, hospital, minExperience, maxExperience,
+                    minRating, maxRating, available, null),
+                pageable, List.of(), vista.campos());
+            return new PageImpl<>(contenido(searchHits), pageable, searchHits.getTotalHits());
             
         } catch (Exception e) {
             // Retornar página vacía en caso de error
@@ -241,6 +258,123 @@ public class DoctorElasticsearchService {
         }
     }
     
+    /**
+     * Búsqueda por disponibilidad: especialidad, hospital y rating combinados con
+     * "tiene un turno libre el día D entre desde y hasta" (minutos del día) en una sola query
+     */
+    public Page<DoctorElasticsearch> searchAvailability(String specialty, String hospital,
+                                                       Double minRating, Double maxRating,
+                                                       int dia, int desde, int hasta,
+                                                       int page, int size, VistaDoctor vista) {
+        Pageable pageable = PageRequest.of(page, size);
+        BoolQueryBuilder boolQuery = DoctorElasticsearchQueries.filtros(
+            null, specialty, hospital, null, null, minRating, maxRating, null, null);
+        boolQuery.filter(DoctorElasticsearchQueries.franjaLibre(dia, desde, hasta));
+        SearchHits<DoctorElasticsearch> searchHits = buscar(boolQuery, pageable, List.of(), vista.campos());
+        return new PageImpl<>(contenido(searchHits), pageable, searchHits.getTotalHits());
+    }
+    
+    /**
+     * Documento completo de un doctor por id
+     */
+    public Optional<DoctorElasticsearch> findById(String id) {
+        return Optional.ofNullable(limiteElasticsearch.ejecutar(
+            () -> elasticsearchTemplate.get(id, DoctorElasticsearch.class)));
+    }
+    
+    /**
+     * searchText contiene el texto (la misma consulta que findBySearchTextContaining del
+     * repositorio), trayendo del _source solo los campos de la vista
+     */
+    private Page<DoctorElasticsearch> buscarPorTexto(String texto, Pageable pageable, VistaDoctor vista) {
+        CriteriaQuery consulta = new CriteriaQuery(new Criteria("searchText").contains(texto), pageable);
+        if (vista.campos() != null) {
+            consulta.addSourceFilter(new FetchSourceFilter(vista.campos(), null));
+        }
+        SearchHits<DoctorElasticsearch> searchHits = limiteElasticsearch.ejecutar(
+            () -> elasticsearchTemplate.search(consulta, DoctorElasticsearch.class));
+        return new PageImpl<>(contenido(searchHits), pageable, searchHits.getTotalHits());
+    }
+    
+    /**
+     * Ejecuta una búsqueda paginada ordenada por relevancia y rating
+     */
+    private SearchHits<DoctorElasticsearch> buscar(QueryBuilder query, Pageable pageable,
+                                                   List<AbstractAggregationBuilder<?>> aggregations) {
+        return buscar(query, pageable, aggregations, null);
+    }
+    
+    /**
+     * Igual que la anterior trayendo del _source solo los campos indicados (null = todos)
+     */
+    private SearchHits<DoctorElasticsearch> buscar(QueryBuilder query, Pageable pageable,
+                                                   List<AbstractAggregationBuilder<?>> aggregations,
+                                                   String[] campos) {
+        Query consulta = consulta(query, pageable, aggregations, campos);
+        return limiteElasticsearch.ejecutar(() -> elasticsearchTemplate.search(consulta, DoctorElasticsearch.class));
+    }
+    
+    /**
+     * Consulta paginada ordenada por relevancia y rating, común a la búsqueda bloqueante y a la asíncrona
+     */
+    private NativeSearchQuery consulta(QueryBuilder query, Pageable pageable,
+                                       List<AbstractAggregationBuilder<?>> aggregations, String[] campos) {
+        NativeSearchQueryBuilder builder = new NativeSearchQueryBuilder()
+            .withQuery(query)
+            .withSorts(DoctorElasticsearchQueries.ordenPorRelevancia())
+            .withPageable(pageable)
+            .withTrackTotalHits(true);
+        if (!aggregations.isEmpty()) {
+            builder.withAggregations(aggregations);
+        }
+        if (campos != null) {
+            builder.withSourceFilter(new FetchSourceFilter(campos, null));
+        }
+        return builder.build();
+    }
+    
+    /**
+     * Petición nativa con el contenido de una {@link #consulta} sobre el mismo índice que
+     * usa {@link ElasticsearchOperations}, para enviarla con el cliente asíncrono
+     */
+    private SearchRequest peticion(NativeSearchQuery consulta) {
+        SearchSourceBuilder source = new SearchSourceBuilder()
+            .query(consulta.getQuery())
+            .from((int) consulta.getPageable().getOffset())
+            .size(consulta.getPageable().getPageSize())
+            .trackTotalHits(Boolean.TRUE.equals(consulta.getTrackTotalHits()));
+        consulta.getElasticsearchSorts().forEach(source::sort);
+        consulta.getAggregations().forEach(source::aggregation);
+        if (consulta.getSourceFilter() != null) {
+            source.fetchSource(consulta.getSourceFilter().getIncludes(), consulta.getSourceFilter().getExcludes());
+        }
+        return new SearchRequest(elasticsearchTemplate.getIndexCoordinatesFor(DoctorElasticsearch.class).getIndexNames())
+            .source(source);
+    }
+    
+    /**
+     * Documentos de una respuesta de búsqueda
+     */
+    private List<DoctorElasticsearch> contenido(SearchHits<DoctorElasticsearch> searchHits) {
+        return searchHits.getSearchHits().stream()
+            .map(SearchHit::getContent)
+            .collect(Collectors.toList());
+    }
+    
+    /**
+     * Respuesta paginada con facets por nivel de experiencia y especialidad
+     */
+    private Map<String, Object> respuestaConFacets(SearchHits<DoctorElasticsearch> searchHits, int page, int size) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("doctors", contenido(searchHits));
+        response.put("totalElements", searchHits.getTotalHits());
+        response.put("totalPages", (int) Math.ceil((double) searchHits.getTotalHits() / size));
+        response.put("currentPage", page);
+        response.put("pageSize", size);
+        response.put("facets", DoctorElasticsearchQueries.leerFacetasPorNivelYEspecialidad(aggregationsOf(searchHits)));
+        return response;
+    }
+    
     /**
      * Métodos de búsqueda básicos usando Spring Data
      */
@@ -414,76 +548,20 @@ public class DoctorElasticsearchService {
                                                        String experienceLevel, boolean available, 
                                                        int page, int size) {
         try {
-            Pageable pageable = PageRequest.of(page, size);
-            List<DoctorElasticsearch> results = new ArrayList<>();
-            
-            // Aplicar filtros
-            if (hospital != null && !hospital.isEmpty()) {
-                if (results.isEmpty()) {
-                    results = doctorElasticsearchRepository.findByHospitalContaining(hospital);
-                } else {
-                    results = results.stream()
-                        .filter(d -> d.getHospital().toLowerCase().contains(hospital.toLowerCase()))
-                        .collect(Collectors.toList());
-                }
-            }
-            
-            if (specialty != null && !specialty.isEmpty()) {
-                if (results.isEmpty()) {
-                    results = doctorElasticsearchRepository.findBySpecialty(specialty);
-                } else {
-                    results = results.stream()
-                        .filter(d -> d.getSpecialty().equals(specialty))
-                        .collect(Collectors.toList());
-                }
-            }
-            
-            if (experienceLevel != null && !experienceLevel.isEmpty()) {
-                if (results.isEmpty()) {
-                    results = doctorElasticsearchRepository.findByExperienceLevel(experienceLevel);
-                } else {
-                    results = results.stream()
-                        .filter(d -> d.getExperienceLevel().equals(experienceLevel))
-                        .collect(Collectors.toList());
-                }
-            }
-            
-            if (available) {
-                if (results.isEmpty()) {
-                    results = doctorElasticsearchRepository.findByAvailable(true);
-                } else {
-                    results = results.stream()
-                        .filter(DoctorElasticsearch::isAvailable)
-                        .collect(Collectors.toList());
-                }
-            }
-            
-            // Aplicar paginación
-            int start = page * size;
-            int end = Math.min(start + size, results.size());
-            List<DoctorElasticsearch> paginatedResults = results.subList(start, end);
-            
-            // Obtener facets
-            Map<String, Long> experienceFacets = getExperienceFacets(hospital != null ? hospital : "");
-            Map<String, Long> specialtyFacets = getSpecialtyFacets(hospital != null ? hospital : "");
+            BoolQueryBuilder boolQuery = DoctorElasticsearchQueries.filtros(
+                null, specialty, hospital, experienceLevel, null, null, null, null,
+                available ? Boolean.TRUE : null, null);
+            SearchHits<DoctorElasticsearch> searchHits = buscar(boolQuery, PageRequest.of(page, size),
+                DoctorElasticsearchQueries.facetasPorNivelYEspecialidad());
             
             // Construir respuesta
-            Map<String, Object> response = new HashMap<>();
-            response.put("doctors", paginatedResults);
-            response.put("totalElements", results.size());
-            response.put("totalPages", (int) Math.ceil((double) results.size() / size));
-            response.put("currentPage", page);
-            response.put("pageSize", size);
-            response.put("facets", Map.of(
-                "experienceLevel", experienceFacets,
-                "specialty", specialtyFacets
-            ));
-            response.put("filters", Map.of(
-                "hospital", hospital,
-                "specialty", specialty,
-                "experienceLevel", experienceLevel,
-                "available", available
-            ));
+            Map<String, Object> response = respuestaConFacets(searchHits, page, size);
+            Map<String, Object> filters = new HashMap<>();
+            filters.put("hospital", hospital);
+            filters.put("specialty", specialty);
+            filters.put("experienceLevel", experienceLevel);
+            filters.put("available", available);
+            response.put("filters", filters);
             
             return response;
             
@@ -500,82 +578,27 @@ public class DoctorElasticsearchService {
                                                     String experienceLevel, boolean available, 
                                                     int page, int size) {
         try {
-            Pageable pageable = PageRequest.of(page, size);
-            List<DoctorElasticsearch> results = new ArrayList<>();
+            BoolQueryBuilder boolQuery = DoctorElasticsearchQueries.filtros(
+                null, specialty, hospital, experienceLevel, null, null, null, null,
+                available ? Boolean.TRUE : null, null);
             
             // Procesar query si existe
             if (query != null && !query.trim().isEmpty()) {
-                results = processQueryString(query);
-            }
-            
-            // Aplicar filtros adicionales
-            if (hospital != null && !hospital.isEmpty()) {
-                if (results.isEmpty()) {
-                    results = doctorElasticsearchRepository.findByHospitalContaining(hospital);
-                } else {
-                    results = results.stream()
-                        .filter(d -> d.getHospital().toLowerCase().contains(hospital.toLowerCase()))
-                        .collect(Collectors.toList());
-                }
-            }
-            
-            if (specialty != null && !specialty.isEmpty()) {
-                if (results.isEmpty()) {
-                    results = doctorElasticsearchRepository.findBySpecialty(specialty);
-                } else {
-                    results = results.stream()
-                        .filter(d -> d.getSpecialty().equals(specialty))
-                        .collect(Collectors.toList());
-                }
+                boolQuery.must(processQueryString(query));
             }
             
-            if (experienceLevel != null && !experienceLevel.isEmpty()) {
-                if (results.isEmpty()) {
-                    results = doctorElasticsearchRepository.findByExperienceLevel(experienceLevel);
-                } else {
-                    results = results.stream()
-                        .filter(d -> d.getExperienceLevel().equals(experienceLevel))
-                        .collect(Collectors.toList());
-                }
-            }
-            
-            if (available) {
-                if (results.isEmpty()) {
-                    results = doctorElasticsearchRepository.findByAvailable(true);
-                } else {
-                    results = results.stream()
-                        .filter(DoctorElasticsearch::isAvailable)
-                        .collect(Collectors.toList());
-                }
-            }
-            
-            // Aplicar paginación
-            int start = page * size;
-            int end = Math.min(start + size, results.size());
-            List<DoctorElasticsearch> paginatedResults = results.subList(start, end);
-            
-            // Obtener facets
-            Map<String, Long> experienceFacets = getExperienceFacets(hospital != null ? hospital : "");
-            Map<String, Long> specialtyFacets = getSpecialtyFacets(hospital != null ? hospital : "");
+            SearchHits<DoctorElasticsearch> searchHits = buscar(boolQuery, PageRequest.of(page, size),
+                DoctorElasticsearchQueries.facetasPorNivelYEspecialidad());
             
             // Construir respuesta
-            Map<String, Object> response = new HashMap<>();
-            response.put("doctors", paginatedResults);
-            response.put("totalElements", results.size());
-            response.put("totalPages", (int) Math.ceil((double) results.size() / size));
-            response.put("currentPage", page);
-            response.put("pageSize", size);
-            response.put("facets", Map.of(
-                "experienceLevel", experienceFacets,
-                "specialty", specialtyFacets
-            ));
-            response.put("filters", Map.of(
-                "query", query,
-                "hospital", hospital,
-                "specialty", specialty,
-                "experienceLevel", experienceLevel,
-                "available", available
-            ));
+            Map<String, Object> response = respuestaConFacets(searchHits, page, size);
+            Map<String, Object> filters = new HashMap<>();
+            filters.put("query", query);
+            filters.put("hospital", hospital);
+            filters.put("specialty", specialty);
+            filters.put("experienceLevel", experienceLevel);
+            filters.put("available", available);
+            response.put("filters", filters);
             response.put("processedQuery", query);
             
             return response;
@@ -586,98 +609,62 @@ public class DoctorElasticsearchService {
     }
     
     /**
-     * Procesar string de query para extraer filtros
-     * Ejemplo: hospital.term:"Centro Médico Integral" -> filtrar por hospital
+     * Traducir string de query a una cláusula de Elasticsearch
+     * Ejemplo: hospital.term:"Centro Médico Integral" -> match sobre hospital
      */
-    private List<DoctorElasticsearch> processQueryString(String query) {
-        try {
-            // Patrón para queries como: field.term:"value"
-            if (query.contains(".term:")) {
-                String[] parts = query.split("\\.term:");
-                if (parts.length == 2) {
-                    String field = parts[0].trim();
-                    String value = parts[1].trim().replace("\"", "");
-                    
-                    switch (field.toLowerCase()) {
-                        case "hospital":
-                            return doctorElasticsearchRepository.findByHospitalContaining(value);
-                        case "specialty":
-                            return doctorElasticsearchRepository.findBySpecialty(value);
-                        case "experiencelevel":
-                            return doctorElasticsearchRepository.findByExperienceLevel(value);
-                        case "name":
-                            return doctorElasticsearchRepository.findBySearchTextContaining(value, PageRequest.of(0, 1000)).getContent();
-                        default:
-                            // Búsqueda general en searchText
-                            return doctorElasticsearchRepository.findBySearchTextContaining(value, PageRequest.of(0, 1000)).getContent();
-                    }
+    private QueryBuilder processQueryString(String query) {
+        // Patrón para queries como: field.term:"value"
+        if (query.contains(".term:")) {
+            String[] parts = query.split("\\.term:");
+            if (parts.length == 2) {
+                String field = parts[0].trim();
+                String value = parts[1].trim().replace("\"", "");
+                
+                switch (field.toLowerCase()) {
+                    case "hospital":
+                        return QueryBuilders.matchQuery("hospital", value).operator(Operator.AND);
+                    case "specialty":
+                        return QueryBuilders.termQuery("specialty", value);
+                    case "experiencelevel":
+                        return QueryBuilders.termQuery("experienceLevel", value);
+                    default:
+                        // Búsqueda general (incluye name)
+                        return DoctorElasticsearchQueries.textoLibre(value);
                 }
             }
-            
-            // Si no es un patrón específico, hacer búsqueda general
-            return doctorElasticsearchRepository.findBySearchTextContaining(query, PageRequest.of(0, 1000)).getContent();
-            
-        } catch (Exception e) {
-            // En caso de error, retornar lista vacía
-            return new ArrayList<>();
         }
+        
+        // Si no es un patrón específico, hacer búsqueda general
+        return DoctorElasticsearchQueries.textoLibre(query);
     }
     
     /**
      * BÚSQUEDA EXACTA - Como WHERE field = "valor"
-     * Resuelve el problema de espacios y búsqueda parcial
+     * Una sola petición devuelve la página de hits (solo los campos del listado)
+     * y los facets por nivel de experiencia y especialidad
      */
     public Map<String, Object> searchExact(String field, String value, int page, int size) {
+        long inicio = System.nanoTime();
         try {
-            List<DoctorElasticsearch> results = new ArrayList<>();
-            
-            // Búsqueda exacta según el campo
-            switch (field.toLowerCase()) {
-                case "hospital":
-                    results = doctorElasticsearchRepository.searchByHospitalExact(value);
-                    break;
-                case "specialty":
-                    results = doctorElasticsearchRepository.searchBySpecialtyExact(value);
-                    break;
-                case "experiencelevel":
-                    results = doctorElasticsearchRepository.searchByExperienceLevelExact(value);
-                    break;
-                case "name":
-                    results = doctorElasticsearchRepository.searchByNameExact(value);
-                    break;
-                default:
-                    throw new IllegalArgumentException("Campo no soportado: " + field);
-            }
-            
-            // Aplicar paginación
-            int start = page * size;
-            int end = Math.min(start + size, results.size());
-            List<DoctorElasticsearch> paginatedResults = results.subList(start, end);
-            
-            // Obtener facets
-            Map<String, Long> experienceFacets = getExperienceFacetsExact(field, value);
-            Map<String, Long> specialtyFacets = getSpecialtyFacetsExact(field, value);
+            BoolQueryBuilder query = DoctorElasticsearchQueries.exacta(field, value);
+            SearchHits<DoctorElasticsearch> searchHits = buscar(query, PageRequest.of(page, size),
+                DoctorElasticsearchQueries.facetasPorNivelYEspecialidad(),
+                DoctorElasticsearchQueries.CAMPOS_LISTADO);
             
             // Construir respuesta
-            Map<String, Object> response = new HashMap<>();
-            response.put("doctors", paginatedResults);
-            response.put("totalElements", results.size());
-            response.put("totalPages", (int) Math.ceil((double) results.size() / size));
-            response.put("currentPage", page);
-            response.put("pageSize", size);
-            response.put("facets", Map.of(
-                "experienceLevel", experienceFacets,
-                "specialty", specialtyFacets
-            ));
+            Map<String, Object> response = respuestaConFacets(searchHits, page, size);
             response.put("search", Map.of(
                 "field", field,
                 "value", value,
                 "type", "exact"
             ));
             
+            searchMetrics.registrar("exacta", SearchMetrics.Modo.ELASTICSEARCH, inicio,
+                searchHits.getSearchHits().size(), query::toString);
             return response;
             
         } catch (Exception e) {
+            searchMetrics.registrar("exacta", SearchMetrics.Modo.ERROR, inicio, 0, () -> field + "=" + value);
             throw new RuntimeException("Error en búsqueda exacta: " + e.getMessage(), e);
         }
     }
@@ -704,72 +691,53 @@ public class DoctorElasticsearchService {
     }
     
     /**
-     * Obtener facets de experiencia para búsqueda exacta
+     * Sincronización inteligente desde la base de datos
+     * Usa peticiones _bulk; los doctores que ya existen se cuentan como saltados
+     */
+    public Map<String, Object> syncFromDatabase() {
+        return syncFromDatabase("bulk", false);
+    }
+    
+    /**
+     * Sincronización desde la base de datos
+     * mode = "bulk" (por bloques con _bulk) o "legacy" (un doctor a la vez)
      */
-    private Map<String, Long> getExperienceFacetsExact(String field, String value) {
+    public Map<String, Object> syncFromDatabase(String mode, boolean overwrite) {
+        if ("legacy".equalsIgnoreCase(mode)) {
+            return syncOneByOne();
+        }
         try {
-            List<DoctorElasticsearch> doctors = new ArrayList<>();
-            
-            switch (field.toLowerCase()) {
-                case "hospital":
-                    doctors = doctorElasticsearchRepository.searchByHospitalExact(value);
-                    break;
-                case "specialty":
-                    doctors = doctorElasticsearchRepository.searchBySpecialtyExact(value);
-                    break;
-                case "experiencelevel":
-                    doctors = doctorElasticsearchRepository.searchByExperienceLevelExact(value);
-                    break;
-                default:
-                    return new HashMap<>();
-            }
-            
-            return doctors.stream()
-                .collect(Collectors.groupingBy(
-                    DoctorElasticsearch::getExperienceLevel,
-                    Collectors.counting()
-                ));
+            return doctorBulkIndexer.syncAll(overwrite);
         } catch (Exception e) {
-            return new HashMap<>();
+            logger.error("❌ Error en sincronización bulk: {}", e.getMessage(), e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Error en sincronización: " + e.getMessage());
+            errorResponse.put("status", "error");
+            return errorResponse;
         }
     }
     
     /**
-     * Obtener facets de especialidad para búsqueda exacta
+     * Reindexación completa en una versión nueva del índice, sin dejar de servir búsquedas
+     * Los alias solo cambian si el índice nuevo tiene tantos doctores como la base de datos
      */
-    private Map<String, Long> getSpecialtyFacetsExact(String field, String value) {
+    public Map<String, Object> reindex() {
         try {
-            List<DoctorElasticsearch> doctors = new ArrayList<>();
-            
-            switch (field.toLowerCase()) {
-                case "hospital":
-                    doctors = doctorElasticsearchRepository.searchByHospitalExact(value);
-                    break;
-                case "specialty":
-                    doctors = doctorElasticsearchRepository.searchBySpecialtyExact(value);
-                    break;
-                case "experiencelevel":
-                    doctors = doctorElasticsearchRepository.searchByExperienceLevelExact(value);
-                    break;
-                default:
-                    return new HashMap<>();
-            }
-            
-            return doctors.stream()
-                .collect(Collectors.groupingBy(
-                    DoctorElasticsearch::getSpecialty,
-                    Collectors.counting()
-                ));
+            return doctorReindexer.reindexar();
         } catch (Exception e) {
-            return new HashMap<>();
+            logger.error("❌ Error en reindexación: {}", e.getMessage(), e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Error en reindexación: " + e.getMessage());
+            errorResponse.put("status", "error");
+            return errorResponse;
         }
     }
     
     /**
-     * Sincronización inteligente desde la base de datos
-     * Verifica si ya existe antes de crear
+     * Sincronización doctor por doctor
+     * Verifica si ya existe antes de crear (dos peticiones por doctor)
      */
-    public Map<String, Object> syncFromDatabase() {
+    private Map<String, Object> syncOneByOne() {
         try {
             Map<String, Object> response = new HashMap<>();
             
@@ -804,13 +772,7 @@ public class DoctorElasticsearchService {
                     }
                     
                     // Convertir a formato Elasticsearch
-                    DoctorElasticsearch doctorES = new DoctorElasticsearch(
-                        doctor.getId(), doctor.getName(), doctor.getSpecialty(), doctor.getImg(),
-                        doctor.getExperienceYears(), doctor.getRating(), doctor.getHospital(),
-                        doctor.isAvailable(), doctor.getDescription(), doctor.getTags(),
-                        doctor.getDiasLaborales(), doctor.getHorarioEntrada(), doctor.getHorarioSalida(),
-                        doctor.getDuracionCita(), doctor.getHorariosDisponibles()
-                    );
+                    DoctorElasticsearch doctorES = doctorMapper.toElasticsearch(doctor);
                     
                     // Intentar guardar usando el template
                     try {
@@ -0,0 +1,252 @@
+package com.hn.tgu.hospital.elasticsearch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hn.tgu.hospital.repository.DoctorRepository;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest.AliasActions;
+import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.core.CountRequest;
+import org.elasticsearch.client.indices.CreateIndexRequest;
+import org.elasticsearch.client.indices.GetIndexRequest;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reindexación sin cortes con índices versionados (doctores_v1, doctores_v2...) detrás de alias.
+ *
+ * Crea la versión siguiente con el mapping y los analizadores actuales, la carga desde la
+ * base de datos en tramos paralelos, comprueba que tiene tantos doctores como la tabla y
+ * cambia los alias de lectura y de escritura en una sola petición _aliases. Las búsquedas
+ * siguen en el índice anterior hasta ese cambio; mientras tanto la propagación de cambios
+ * escribe en los dos índices, así que el nuevo no se queda atrás. Si la carga o la
+ * verificación fallan, el índice nuevo se borra y todo sigue como estaba.
+ */
+@Component
+public class DoctorReindexer {
+
+    private static final Logger logger = LoggerFactory.getLogger(DoctorReindexer.class);
+
+    private final RestHighLevelClient elasticsearchClient;
+    private final ElasticsearchOperations elasticsearchTemplate;
+    private final DoctorBulkIndexer doctorBulkIndexer;
+    private final DoctorRepository doctorRepository;
+    private final AtomicBoolean enCurso = new AtomicBoolean();
+
+    @Value("${elasticsearch.reindex.slices:4}")
+    private int tramos;
+
+    @Value("${elasticsearch.reindex.keep-previous:1}")
+    private int versionesAnteriores;
+
+    public DoctorReindexer(RestHighLevelClient elasticsearchClient,
+                           ElasticsearchOperations elasticsearchTemplate,
+                           DoctorBulkIndexer doctorBulkIndexer,
+                           DoctorRepository doctorRepository) {
+        this.elasticsearchClient = elasticsearchClient;
+        this.elasticsearchTemplate = elasticsearchTemplate;
+        this.doctorBulkIndexer = doctorBulkIndexer;
+        this.doctorRepository = doctorRepository;
+    }
+
+    /**
+     * Reindexa en una versión nueva del índice y la activa si la verificación es correcta
+     */
+    public Map<String, Object> reindexar() {
+        if (!enCurso.compareAndSet(false, true)) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Ya hay una reindexación en curso");
+            response.put("status", "warning");
+            return response;
+        }
+        try {
+            return reindexarVersion();
+        } catch (IOException e) {
+            throw new RuntimeException("Error reindexando doctores: " + e.getMessage(), e);
+        } finally {
+            enCurso.set(false);
+        }
+    }
+
+    private Map<String, Object> reindexarVersion() throws IOException {
+        long start = System.currentTimeMillis();
+        String alias = doctorBulkIndexer.indexName();
+        Set<String> activos = doctorBulkIndexer.indicesDe(alias);
+        // Índice creado antes de usar alias: tiene el nombre del alias y el cambio lo sustituye
+        boolean heredado = activos.isEmpty() && existe(alias);
+        List<String> anteriores = heredado ? List.of(alias) : new ArrayList<>(activos);
+        String nuevo = alias + "_v" + (versiones(alias).stream().findFirst().orElse(0) + 1);
+
+        JsonNode settings = leerSettings();
+        String refresco = settings.path("index").path("refresh_interval").asText("1s");
+        logger.info("🔄 Reindexando {} en {} (activo: {})", alias, nuevo, anteriores);
+        crearIndice(nuevo, settings);
+
+        Map<String, Object> carga;
+        long enIndice;
+        long enBase;
+        try {
+            // Desde aquí la propagación de cambios escribe también en el índice nuevo
+            actualizarAlias(new IndicesAliasesRequest().addAliasAction(
+                    AliasActions.add().index(nuevo).alias(DoctorBulkIndexer.ALIAS_ESCRITURA)));
+            // Sin refrescos durante la carga; se restaura el intervalo antes de contar
+            intervaloRefresco(nuevo, "-1");
+            carga = doctorBulkIndexer.cargarEnTramos(nuevo, tramos);
+            intervaloRefresco(nuevo, refresco);
+            elasticsearchClient.indices().refresh(new RefreshRequest(nuevo), RequestOptions.DEFAULT);
+            enIndice = elasticsearchClient.count(new CountRequest(nuevo), RequestOptions.DEFAULT).getCount();
+            enBase = doctorRepository.count();
+        } catch (RuntimeException | IOException e) {
+            descartar(nuevo);
+            throw e;
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("index", nuevo);
+        response.put("previous", anteriores);
+        response.put("load", carga);
+        response.put("databaseCount", enBase);
+        response.put("indexCount", enIndice);
+
+        boolean cargaCorrecta = "success".equals(carga.get("status")) || enBase == 0;
+        if (!cargaCorrecta || enIndice != enBase) {
+            descartar(nuevo);
+            String motivo = cargaCorrecta
+                    ? "el índice tiene " + enIndice + " doctores y la base de datos " + enBase
+                    : "la carga tuvo errores";
+            logger.warn("⚠️ Reindexación cancelada, se sigue usando {}: {}", anteriores, motivo);
+            response.put("message", "Reindexación cancelada: " + motivo);
+            response.put("durationMs", System.currentTimeMillis() - start);
+            response.put("status", "error");
+            return response;
+        }
+
+        cambiarAlias(alias, activos, heredado, nuevo);
+        List<String> borrados = new ArrayList<>(heredado ? List.of(alias) : List.of());
+        borrados.addAll(borrarAntiguas(alias, nuevo));
+
+        response.put("deleted", borrados);
+        response.put("message", "Reindexación completada");
+        response.put("durationMs", System.currentTimeMillis() - start);
+        response.put("status", "success");
+        logger.info("✅ Reindexación completada: {} activo con {} doctores en {} ms",
+                nuevo, enIndice, System.currentTimeMillis() - start);
+        return response;
+    }
+
+    // Lectura y escritura pasan al índice nuevo en la misma petición: nunca hay un alias sin índice
+    private void cambiarAlias(String alias, Set<String> activos, boolean heredado, String nuevo) throws IOException {
+        IndicesAliasesRequest request = new IndicesAliasesRequest();
+        request.addAliasAction(AliasActions.add().index(nuevo).alias(alias));
+        for (String activo : activos) {
+            request.addAliasAction(AliasActions.remove().index(activo).alias(alias));
+        }
+        for (String escritura : doctorBulkIndexer.indicesDe(DoctorBulkIndexer.ALIAS_ESCRITURA)) {
+            if (!escritura.equals(nuevo) && !(heredado && escritura.equals(alias))) {
+                request.addAliasAction(AliasActions.remove().index(escritura).alias(DoctorBulkIndexer.ALIAS_ESCRITURA));
+            }
+        }
+        if (heredado) {
+            // El índice antiguo ocupa el nombre del alias: se borra en la misma petición
+            request.addAliasAction(AliasActions.removeIndex().index(alias));
+        }
+        actualizarAlias(request);
+    }
+
+    // Se conservan las versiones anteriores configuradas para poder volver atrás moviendo los alias
+    private List<String> borrarAntiguas(String alias, String nuevo) {
+        List<String> borrados = new ArrayList<>();
+        try {
+            int conservadas = 0;
+            for (int version : versiones(alias)) {
+                String indice = alias + "_v" + version;
+                if (indice.equals(nuevo)) {
+                    continue;
+                }
+                if (conservadas < versionesAnteriores) {
+                    conservadas++;
+                    continue;
+                }
+                elasticsearchClient.indices().delete(new DeleteIndexRequest(indice), RequestOptions.DEFAULT);
+                borrados.add(indice);
+            }
+        } catch (Exception e) {
+            logger.warn("⚠️ No se pudieron borrar las versiones antiguas de {}: {}", alias, e.getMessage());
+        }
+        return borrados;
+    }
+
+    // Números de versión existentes, de mayor a menor
+    private List<Integer> versiones(String alias) throws IOException {
+        String prefijo = alias + "_v";
+        String[] indices = elasticsearchClient.indices()
+                .get(new GetIndexRequest(prefijo + "*"), RequestOptions.DEFAULT)
+                .getIndices();
+        List<Integer> versiones = new ArrayList<>();
+        for (String indice : indices) {
+            try {
+                versiones.add(Integer.parseInt(indice.substring(prefijo.length())));
+            } catch (NumberFormatException e) {
+                // Otro índice que empieza igual (p. ej. doctores_v2_copia)
+            }
+        }
+        versiones.sort(Comparator.reverseOrder());
+        return versiones;
+    }
+
+    private void crearIndice(String indice, JsonNode settings) throws IOException {
+        String mapping = elasticsearchTemplate.indexOps(DoctorElasticsearch.class).createMapping().toJson();
+        elasticsearchClient.indices().create(new CreateIndexRequest(indice)
+                .settings(settings.toString(), XContentType.JSON)
+                .mapping(mapping, XContentType.JSON), RequestOptions.DEFAULT);
+    }
+
+    private void intervaloRefresco(String indice, String intervalo) throws IOException {
+        elasticsearchClient.indices().putSettings(new UpdateSettingsRequest(indice)
+                .settings(Settings.builder().put("index.refresh_interval", intervalo)), RequestOptions.DEFAULT);
+    }
+
+    private void actualizarAlias(IndicesAliasesRequest request) throws IOException {
+        elasticsearchClient.indices().updateAliases(request, RequestOptions.DEFAULT);
+    }
+
+    private boolean existe(String indice) throws IOException {
+        return elasticsearchClient.indices().exists(new GetIndexRequest(indice), RequestOptions.DEFAULT);
+    }
+
+    // Borrar el índice quita también sus alias; los reintentos del outbox vuelven a ir solo al activo
+    private void descartar(String indice) {
+        try {
+            elasticsearchClient.indices().delete(new DeleteIndexRequest(indice), RequestOptions.DEFAULT);
+            logger.info("🗑️ Índice {} descartado", indice);
+        } catch (Exception e) {
+            logger.warn("⚠️ No se pudo borrar el índice {}: {}", indice, e.getMessage());
+        }
+    }
+
+    private static JsonNode leerSettings() throws IOException {
+        try (InputStream settings = new ClassPathResource(DoctorBulkIndexer.SETTINGS_PATH).getInputStream()) {
+            return new ObjectMapper().readTree(settings);
+        }
+    }
+}
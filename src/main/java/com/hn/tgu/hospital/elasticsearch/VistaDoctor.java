@@ -0,0 +1,56 @@
+package com.hn.tgu.hospital.elasticsearch;
+
+import com.hn.tgu.hospital.dto.DoctorResumenDTO;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Vista de los doctores en los listados (parámetro view).
+ *
+ * summary pide a Elasticsearch solo los campos de una fila con _source includes y devuelve
+ * {@link DoctorResumenDTO}; sin description, searchText, horariosDisponibles ni franjas la
+ * respuesta es una fracción del documento. full devuelve el documento completo.
+ */
+public enum VistaDoctor {
+    SUMMARY(DoctorElasticsearchQueries.CAMPOS_RESUMEN),
+    FULL(null);
+
+    private final String[] campos;
+
+    VistaDoctor(String[] campos) {
+        this.campos = campos;
+    }
+
+    /**
+     * Vista por nombre (summary, full) o null si no existe
+     */
+    public static VistaDoctor de(String nombre) {
+        for (VistaDoctor vista : values()) {
+            if (vista.name().equalsIgnoreCase(nombre)) {
+                return vista;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Campos del _source a pedir (null = todos)
+     */
+    public String[] campos() {
+        return campos;
+    }
+
+    public Object presentar(DoctorElasticsearch doctor) {
+        return this == SUMMARY ? DoctorResumenDTO.de(doctor) : doctor;
+    }
+
+    public List<Object> presentar(List<DoctorElasticsearch> doctores) {
+        return doctores.stream().map(this::presentar).collect(Collectors.toList());
+    }
+
+    public Page<Object> presentar(Page<DoctorElasticsearch> doctores) {
+        return doctores.map(this::presentar);
+    }
+}
@@ -1,13 +1,25 @@
 package com.hn.tgu.hospital.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+
 import java.util.List;
 import java.util.Map;
 
+// Las colecciones se cargan por lotes: tras cada consulta, una sentencia por colección con
+// los ids de los doctores devueltos (hasta LOTE_COLECCIONES), así solo se leen las filas de
+// la página (ver DoctorRepositoryBenchmark). No se usa FetchMode.SUBSELECT porque repite el
+// WHERE de la consulta sin el LIMIT y leería las colecciones de todos los doctores que cumplen
+// el filtro. Siguen siendo EAGER porque el mapeo a DTO ocurre fuera de la transacción (en prod
+// open-in-view está desactivado). No hay entity graphs por método: tags y diasLaborales son
+// listas (bags) y Hibernate no permite traer dos bags con join fetch.
 @Entity
 @Table(name = "doctors")
 public class Doctor {
   
+  // Igual que los bloques de la sincronización masiva y del streaming NDJSON
+  static final int LOTE_COLECCIONES = 500;
+  
   @Id
   @GeneratedValue(strategy = GenerationType.UUID)
   private String id;
@@ -37,12 +49,14 @@ public class Doctor {
   private String description;
   
   @ElementCollection(fetch = FetchType.EAGER)
+  @BatchSize(size = LOTE_COLECCIONES)
   @CollectionTable(name = "doctor_tags", joinColumns = @JoinColumn(name = "doctor_id"))
   @Column(name = "tag")
   private List<String> tags;
   
   // Horario de trabajo
   @ElementCollection(fetch = FetchType.EAGER)
+  @BatchSize(size = LOTE_COLECCIONES)
   @CollectionTable(name = "doctor_dias_laborales", joinColumns = @JoinColumn(name = "doctor_id"))
   @Column(name = "dia")
   private List<String> diasLaborales;
@@ -58,10 +72,12 @@ public class Doctor {
   
   // Horarios disponibles por día
   @ElementCollection(fetch = FetchType.EAGER)
+  @BatchSize(size = LOTE_COLECCIONES)
   @CollectionTable(name = "doctor_horarios_disponibles", 
                    joinColumns = @JoinColumn(name = "doctor_id"))
   @MapKeyColumn(name = "dia")
   @Column(name = "horarios", columnDefinition = "TEXT")
+  @Convert(attributeName = "value", converter = HorasConverter.class)
   private Map<String, List<String>> horariosDisponibles;
   
   // Constructores
@@ -0,0 +1,98 @@
+package com.hn.tgu.hospital.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Cambio de un doctor pendiente de propagar a Elasticsearch (outbox).
+ * Se registra en la misma transacción que la escritura JPA.
+ */
+@Entity
+@Table(name = "doctor_changes")
+public class DoctorChange {
+  
+  public enum Operation {
+    UPSERT,
+    DELETE
+  }
+  
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+  
+  @Column(name = "doctor_id", nullable = false, length = 36)
+  private String doctorId;
+  
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 10)
+  private Operation operation;
+  
+  @Column(name = "created_at", nullable = false)
+  private Instant createdAt;
+  
+  // Envíos fallidos a Elasticsearch; con default para que ddl-auto pueda añadirla a una tabla con filas
+  @Column(nullable = false, columnDefinition = "integer default 0")
+  private int attempts;
+  
+  // No se vuelve a intentar antes de este instante (null = en cuanto se pueda)
+  @Column(name = "next_attempt_at")
+  private Instant nextAttemptAt;
+  
+  // Constructores
+  public DoctorChange() {}
+  
+  public DoctorChange(String doctorId, Operation operation) {
+    this.doctorId = doctorId;
+    this.operation = operation;
+    this.createdAt = Instant.now();
+  }
+  
+  // Getters y Setters
+  public Long getId() {
+    return id;
+  }
+  
+  public void setId(Long id) {
+    this.id = id;
+  }
+  
+  public String getDoctorId() {
+    return doctorId;
+  }
+  
+  public void setDoctorId(String doctorId) {
+    this.doctorId = doctorId;
+  }
+  
+  public Operation getOperation() {
+    return operation;
+  }
+  
+  public void setOperation(Operation operation) {
+    this.operation = operation;
+  }
+  
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+  
+  public void setCreatedAt(Instant createdAt) {
+    this.createdAt = createdAt;
+  }
+  
+  public int getAttempts() {
+    return attempts;
+  }
+  
+  public void setAttempts(int attempts) {
+    this.attempts = attempts;
+  }
+  
+  public Instant getNextAttemptAt() {
+    return nextAttemptAt;
+  }
+  
+  public void setNextAttemptAt(Instant nextAttemptAt) {
+    this.nextAttemptAt = nextAttemptAt;
+  }
+}
@@ -0,0 +1,80 @@
+package com.hn.tgu.hospital.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Franja de turnos libres de un doctor en un día de la semana, en minutos [inicio, fin).
+ * Se deriva de horariosDisponibles (ver AgendaSemanal) y se regenera en cada escritura.
+ */
+@Entity
+@Table(name = "doctor_franjas")
+public class DoctorFranja {
+  
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+  
+  @Column(name = "doctor_id", nullable = false, length = 36)
+  private String doctorId;
+  
+  // 1 = lunes ... 7 = domingo
+  @Column(nullable = false)
+  private int dia;
+  
+  @Column(nullable = false)
+  private int inicio;
+  
+  @Column(nullable = false)
+  private int fin;
+  
+  // Constructores
+  public DoctorFranja() {}
+  
+  public DoctorFranja(String doctorId, int dia, int inicio, int fin) {
+    this.doctorId = doctorId;
+    this.dia = dia;
+    this.inicio = inicio;
+    this.fin = fin;
+  }
+  
+  // Getters y Setters
+  public Long getId() {
+    return id;
+  }
+  
+  public void setId(Long id) {
+    this.id = id;
+  }
+  
+  public String getDoctorId() {
+    return doctorId;
+  }
+  
+  public void setDoctorId(String doctorId) {
+    this.doctorId = doctorId;
+  }
+  
+  public int getDia() {
+    return dia;
+  }
+  
+  public void setDia(int dia) {
+    this.dia = dia;
+  }
+  
+  public int getInicio() {
+    return inicio;
+  }
+  
+  public void setInicio(int inicio) {
+    this.inicio = inicio;
+  }
+  
+  public int getFin() {
+    return fin;
+  }
+  
+  public void setFin(int fin) {
+    this.fin = fin;
+  }
+}
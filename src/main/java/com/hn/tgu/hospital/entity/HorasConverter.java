@@ -0,0 +1,59 @@
+package com.hn.tgu.hospital.entity;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Horas libres de un día guardadas como array JSON en la columna TEXT horarios, el formato de
+// los datos de V2. Sin conversor Hibernate 6 trata List<String> como un array SQL que el driver
+// no sabe leer de una columna TEXT. También lee los literales de array de Postgres ({08:00,08:30})
+// que escribía ese mapeo.
+@Converter
+public class HorasConverter implements AttributeConverter<List<String>, String> {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final TypeReference<List<String>> LISTA = new TypeReference<>() {};
+
+  @Override
+  public String convertToDatabaseColumn(List<String> horas) {
+    if (horas == null) {
+      return null;
+    }
+    try {
+      return MAPPER.writeValueAsString(horas);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("No se pudieron serializar los horarios", e);
+    }
+  }
+
+  @Override
+  public List<String> convertToEntityAttribute(String columna) {
+    if (columna == null) {
+      return null;
+    }
+    String texto = columna.trim();
+    if (texto.isEmpty()) {
+      return new ArrayList<>();
+    }
+    if (texto.startsWith("{")) {
+      List<String> horas = new ArrayList<>();
+      for (String hora : texto.substring(1, texto.length() - 1).split(",")) {
+        String limpia = hora.replace("\"", "").trim();
+        if (!limpia.isEmpty()) {
+          horas.add(limpia);
+        }
+      }
+      return horas;
+    }
+    try {
+      return new ArrayList<>(MAPPER.readValue(texto, LISTA));
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Horarios con formato no válido: " + columna, e);
+    }
+  }
+}
@@ -2,9 +2,13 @@ package com.hn.tgu.hospital.mapper;
 
 import com.hn.tgu.hospital.dto.DoctorDTO;
 import com.hn.tgu.hospital.dto.HorarioTrabajoDTO;
+import com.hn.tgu.hospital.elasticsearch.DoctorElasticsearch;
 import com.hn.tgu.hospital.entity.Doctor;
+import com.hn.tgu.hospital.service.AgendaSemanal;
+import org.springframework.data.elasticsearch.core.suggest.Completion;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -64,6 +68,49 @@ public class DoctorMapper {
     );
   }
   
+  // Convertir entidad a documento de Elasticsearch
+  public DoctorElasticsearch toElasticsearch(Doctor doctor) {
+    if (doctor == null) {
+      return null;
+    }
+    
+    DoctorElasticsearch documento = new DoctorElasticsearch(
+      doctor.getId(), doctor.getName(), doctor.getSpecialty(), doctor.getImg(),
+      doctor.getExperienceYears(), doctor.getRating(), doctor.getHospital(),
+      doctor.isAvailable(), doctor.getDescription(), doctor.getTags(),
+      doctor.getDiasLaborales(), doctor.getHorarioEntrada(), doctor.getHorarioSalida(),
+      doctor.getDuracionCita(), doctor.getHorariosDisponibles()
+    );
+    
+    // Franjas libres derivadas de horariosDisponibles (índice de disponibilidad)
+    documento.setFranjas(AgendaSemanal.de(doctor).franjas().stream()
+      .map(franja -> new DoctorElasticsearch.FranjaLibre(franja.dia(), franja.inicio(), franja.fin()))
+      .collect(Collectors.toList()));
+    
+    // Entradas del completion suggester, con el rating como peso
+    documento.setSugerenciaNombre(sugerencia(doctor.getName(), doctor.getRating()));
+    documento.setSugerenciaEspecialidad(sugerencia(doctor.getSpecialty(), doctor.getRating()));
+    documento.setSugerenciaHospital(sugerencia(doctor.getHospital(), doctor.getRating()));
+    return documento;
+  }
+  
+  // El texto completo y su final desde cada palabra, para que "sof" sugiera "Dr. Sofía Martínez"
+  private static Completion sugerencia(String texto, double rating) {
+    if (texto == null || texto.isBlank()) {
+      return null;
+    }
+    List<String> entradas = new ArrayList<>();
+    String resto = texto.strip();
+    while (!resto.isEmpty()) {
+      entradas.add(resto);
+      int espacio = resto.indexOf(' ');
+      resto = espacio < 0 ? "" : resto.substring(espacio + 1).stripLeading();
+    }
+    Completion completion = new Completion(entradas.toArray(new String[0]));
+    completion.setWeight((int) Math.round(rating * 100));
+    return completion;
+  }
+  
   // Convertir lista de entidades a lista de DTOs
   public List<DoctorDTO> toDTOList(List<Doctor> doctors) {
     if (doctors == null) {
@@ -0,0 +1,25 @@
+package com.hn.tgu.hospital.repository;
+
+import com.hn.tgu.hospital.entity.DoctorChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DoctorChangeRepository extends JpaRepository<DoctorChange, Long> {
+  
+  // Siguiente lote de cambios listos, bloqueado para que otra instancia no lo procese a la vez.
+  // Los que fallaron esperan a next_attempt_at para no reenviarse en bucle
+  @Query(value = "SELECT * FROM doctor_changes WHERE next_attempt_at IS NULL OR next_attempt_at <= :ahora " +
+                 "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+         nativeQuery = true)
+  List<DoctorChange> lockNextBatch(@Param("ahora") Instant ahora, @Param("limit") int limit);
+  
+  // Cambio pendiente más antiguo (para medir el retraso)
+  Optional<DoctorChange> findFirstByOrderByIdAsc();
+}
@@ -0,0 +1,40 @@
+package com.hn.tgu.hospital.repository;
+
+import com.hn.tgu.hospital.entity.DoctorFranja;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface DoctorFranjaRepository extends JpaRepository<DoctorFranja, Long> {
+  
+  // Borrar las franjas de un doctor antes de regenerarlas
+  @Modifying
+  @Query("DELETE FROM DoctorFranja f WHERE f.doctorId = :doctorId")
+  void deleteByDoctorId(@Param("doctorId") String doctorId);
+  
+  // Doctores con alguna franja libre que se solapa con [desde, hasta) el día dado,
+  // opcionalmente filtrados por especialidad y hospital (usa el índice (dia, inicio, fin)).
+  // Ordenados por rating antes de cortar la página, para que sean los mejor valorados
+  @Query("SELECT d.id FROM Doctor d " +
+         "WHERE EXISTS (SELECT 1 FROM DoctorFranja f WHERE f.doctorId = d.id AND f.dia = :dia " +
+         "AND f.inicio < :hasta AND f.fin > :desde) AND " +
+         "(:specialty IS NULL OR d.specialty = :specialty) AND " +
+         "(:hospital IS NULL OR d.hospital = :hospital) " +
+         "ORDER BY d.rating DESC, d.id")
+  List<String> findDoctorIdsLibres(@Param("dia") int dia,
+                                   @Param("desde") int desde,
+                                   @Param("hasta") int hasta,
+                                   @Param("specialty") String specialty,
+                                   @Param("hospital") String hospital,
+                                   Pageable pageable);
+  
+  // Doctores sin ninguna franja: los anteriores al índice (o sin turnos libres)
+  @Query("SELECT d.id FROM Doctor d WHERE NOT EXISTS (SELECT 1 FROM DoctorFranja f WHERE f.doctorId = d.id)")
+  List<String> findDoctorIdsSinFranjas();
+}
@@ -0,0 +1,10 @@
+package com.hn.tgu.hospital.repository;
+
+import java.util.List;
+
+// Consultas de solo nombres, sin cargar las colecciones EAGER de Doctor (implementadas en DoctorNombresImpl)
+public interface DoctorNombres {
+
+  // Nombres que empiezan por el prefijo, los de mejor rating primero (autocompletado sin Elasticsearch)
+  List<String> nombresQueEmpiezanPor(String prefijo, boolean normalizado, int limite);
+}
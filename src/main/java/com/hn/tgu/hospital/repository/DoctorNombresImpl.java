@@ -0,0 +1,29 @@
+package com.hn.tgu.hospital.repository;
+
+import com.hn.tgu.hospital.entity.Doctor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+
+import java.util.List;
+
+class DoctorNombresImpl implements DoctorNombres {
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Override
+  public List<String> nombresQueEmpiezanPor(String prefijo, boolean normalizado, int limite) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<String> consulta = cb.createQuery(String.class);
+    Root<Doctor> doctor = consulta.from(Doctor.class);
+    consulta.select(doctor.get("name"))
+        .where(DoctorSpecifications.nombreEmpiezaPor(prefijo, normalizado).toPredicate(doctor, consulta, cb))
+        .orderBy(cb.desc(doctor.get("rating")), cb.asc(doctor.get("id")));
+    return entityManager.createQuery(consulta)
+        .setMaxResults(limite)
+        .getResultList();
+  }
+}
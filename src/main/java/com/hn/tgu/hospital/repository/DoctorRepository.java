@@ -1,7 +1,9 @@
 package com.hn.tgu.hospital.repository;
 
 import com.hn.tgu.hospital.entity.Doctor;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -9,7 +11,7 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface DoctorRepository extends JpaRepository<Doctor, String> {
+public interface DoctorRepository extends JpaRepository<Doctor, String>, JpaSpecificationExecutor<Doctor>, DoctorNombres {
   
   // Buscar por especialidad
   List<Doctor> findBySpecialty(String specialty);
@@ -20,11 +22,8 @@ public interface DoctorRepository extends JpaRepository<Doctor, String> {
   // Buscar por disponibilidad
   List<Doctor> findByAvailable(boolean available);
   
-  // Buscar por nombre (contiene)
-  List<Doctor> findByNameContainingIgnoreCase(String name);
-  
-  // Buscar por nombre que empiece con (para autocompletado)
-  List<Doctor> findByNameStartingWithIgnoreCase(String name);
+  // La búsqueda por nombre (contiene / empieza por) va por DoctorSpecifications y DoctorNombres
+  // para usar los índices de V6
   
   // Buscar por especialidad y disponibilidad
   List<Doctor> findBySpecialtyAndAvailable(String specialty, boolean available);
@@ -41,18 +40,53 @@ public interface DoctorRepository extends JpaRepository<Doctor, String> {
   // Buscar por tags
   List<Doctor> findByTagsIn(List<String> tags);
   
-  // Query personalizada para buscar por múltiples criterios
+  // Paginación por clave (keyset): siguiente bloque ordenado por id, después de afterId
   @Query("SELECT d FROM Doctor d WHERE " +
          "(:specialty IS NULL OR d.specialty = :specialty) AND " +
          "(:hospital IS NULL OR d.hospital = :hospital) AND " +
          "(:available IS NULL OR d.available = :available) AND " +
-         "(:name IS NULL OR LOWER(d.name) LIKE LOWER(CONCAT('%', :name, '%')))")
-  List<Doctor> findByFilters(@Param("specialty") String specialty,
-                            @Param("hospital") String hospital,
-                            @Param("available") Boolean available,
-                            @Param("name") String name);
+         "(:afterId IS NULL OR d.id > :afterId) " +
+         "ORDER BY d.id")
+  List<Doctor> findPageAfter(@Param("specialty") String specialty,
+                             @Param("hospital") String hospital,
+                             @Param("available") Boolean available,
+                             @Param("afterId") String afterId,
+                             Pageable pageable);
+  
+  // Bloque de un tramo [desde, hasta) de ids, después de afterId; los extremos null no limitan
+  @Query("SELECT d FROM Doctor d WHERE " +
+         "(:desde IS NULL OR d.id >= :desde) AND " +
+         "(:hasta IS NULL OR d.id < :hasta) AND " +
+         "(:afterId IS NULL OR d.id > :afterId) " +
+         "ORDER BY d.id")
+  List<Doctor> findSliceAfter(@Param("desde") String desde,
+                              @Param("hasta") String hasta,
+                              @Param("afterId") String afterId,
+                              Pageable pageable);
+  
+  // Primer id de cada tramo de :paso doctores consecutivos (ordenados por id)
+  @Query(value = "SELECT id FROM (SELECT id, row_number() OVER (ORDER BY id) AS fila FROM doctors) t " +
+                 "WHERE (fila - 1) % :paso = 0 ORDER BY id", nativeQuery = true)
+  List<String> findIdsInicioTramos(@Param("paso") long paso);
   
   // Obtener lista de hospitales únicos
   @Query("SELECT DISTINCT d.hospital FROM Doctor d ORDER BY d.hospital")
   List<String> findDistinctHospitales();
+  
+  // Conteos por valor para los datos de referencia: filas [valor, número de doctores]
+  @Query("SELECT d.hospital, COUNT(d) FROM Doctor d GROUP BY d.hospital ORDER BY d.hospital")
+  List<Object[]> countByHospital();
+  
+  @Query("SELECT d.specialty, COUNT(d) FROM Doctor d GROUP BY d.specialty ORDER BY d.specialty")
+  List<Object[]> countBySpecialty();
+  
+  @Query("SELECT t, COUNT(d) FROM Doctor d JOIN d.tags t GROUP BY t ORDER BY t")
+  List<Object[]> countByTag();
+  
+  // Datos del autocompletado en memoria: filas [id, nombre, especialidad, hospital, rating]
+  @Query("SELECT d.id, d.name, d.specialty, d.hospital, d.rating FROM Doctor d")
+  List<Object[]> findDatosSugerencias();
+  
+  @Query("SELECT d.id, d.name, d.specialty, d.hospital, d.rating FROM Doctor d WHERE d.id = :id")
+  List<Object[]> findDatosSugerenciasById(@Param("id") String id);
 } 
\ No newline at end of file
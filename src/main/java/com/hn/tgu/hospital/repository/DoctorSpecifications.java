@@ -0,0 +1,139 @@
+package com.hn.tgu.hospital.repository;
+
+import com.hn.tgu.hospital.entity.Doctor;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Criterios de búsqueda de doctores para JpaSpecificationExecutor (fallback de Elasticsearch)
+public final class DoctorSpecifications {
+
+  // Función SQL de V5__Create_doctor_search_indexes.sql; se expande en línea y usa el índice GIN
+  public static final String FUNCION_TEXTO = "doctor_busqueda_coincide";
+
+  // Función SQL de V6__Create_doctor_name_trgm_indexes.sql: minúsculas y sin tildes, con índices trigram y de prefijo
+  public static final String FUNCION_NORMALIZAR = "doctor_normalizar";
+
+  private static final char ESCAPE = '\\';
+
+  private DoctorSpecifications() {
+  }
+
+  // Todos los criterios no nulos combinados con AND, como el bool query de Elasticsearch
+  public static Specification<Doctor> busqueda(String query, String specialty, String hospital,
+                                               Integer minExperience, Integer maxExperience,
+                                               Double minRating, Double maxRating,
+                                               Boolean available, List<String> tags,
+                                               boolean textoCompleto) {
+    return (root, criteria, cb) -> {
+      List<Predicate> predicados = new ArrayList<>();
+
+      if (query != null && !query.trim().isEmpty()) {
+        if (textoCompleto) {
+          predicados.add(cb.isTrue(cb.function(FUNCION_TEXTO, Boolean.class,
+              root.get("name"), root.get("specialty"), root.get("description"), cb.literal(query.trim()))));
+        } else {
+          // Sin la migración V5: coincidencia parcial en nombre, especialidad o descripción
+          String patron = patronContiene(query);
+          predicados.add(cb.or(
+              cb.like(cb.lower(root.get("name")), patron, ESCAPE),
+              cb.like(cb.lower(root.get("specialty")), patron, ESCAPE),
+              cb.like(cb.lower(root.get("description")), patron, ESCAPE)));
+        }
+      }
+
+      if (specialty != null && !specialty.trim().isEmpty()) {
+        predicados.add(cb.equal(cb.lower(root.get("specialty")), specialty.toLowerCase(Locale.ROOT)));
+      }
+
+      if (hospital != null && !hospital.trim().isEmpty()) {
+        predicados.add(cb.equal(cb.lower(root.get("hospital")), hospital.toLowerCase(Locale.ROOT)));
+      }
+
+      if (minExperience != null) {
+        predicados.add(cb.greaterThanOrEqualTo(root.get("experienceYears"), minExperience));
+      }
+      if (maxExperience != null) {
+        predicados.add(cb.lessThanOrEqualTo(root.get("experienceYears"), maxExperience));
+      }
+
+      if (minRating != null) {
+        predicados.add(cb.greaterThanOrEqualTo(root.get("rating"), minRating));
+      }
+      if (maxRating != null) {
+        predicados.add(cb.lessThanOrEqualTo(root.get("rating"), maxRating));
+      }
+
+      if (available != null) {
+        predicados.add(cb.equal(root.get("available"), available));
+      }
+
+      // Alguno de los tags, con EXISTS para no duplicar filas ni cargar la colección
+      if (tags != null && !tags.isEmpty()) {
+        Subquery<Integer> conTag = criteria.subquery(Integer.class);
+        Join<Doctor, String> tag = conTag.correlate(root).join("tags");
+        conTag.select(cb.literal(1)).where(tag.in(tags));
+        predicados.add(cb.exists(conTag));
+      }
+
+      return cb.and(predicados.toArray(new Predicate[0]));
+    };
+  }
+
+  // Nombre que contiene el texto, sin distinguir mayúsculas ni tildes si normalizado ("sofia" -> "Sofía")
+  public static Specification<Doctor> nombreContiene(String texto, boolean normalizado) {
+    return (root, criteria, cb) -> {
+      Expression<String> patron = cb.concat(cb.concat("%", normalizar(cb, cb.literal(escapar(texto)), normalizado)), "%");
+      return cb.like(normalizar(cb, root.get("name"), normalizado), patron, ESCAPE);
+    };
+  }
+
+  // Nombre que empieza por el prefijo (autocompletado)
+  public static Specification<Doctor> nombreEmpiezaPor(String prefijo, boolean normalizado) {
+    return (root, criteria, cb) -> {
+      Expression<String> patron = cb.concat(normalizar(cb, cb.literal(escapar(prefijo)), normalizado), "%");
+      return cb.like(normalizar(cb, root.get("name"), normalizado), patron, ESCAPE);
+    };
+  }
+
+  // Mismos criterios que DoctorRepository.findByFilters, con el nombre por nombreContiene
+  public static Specification<Doctor> filtros(String specialty, String hospital, Boolean available, String name,
+                                              boolean normalizado) {
+    Specification<Doctor> spec = (root, criteria, cb) -> {
+      List<Predicate> predicados = new ArrayList<>();
+      if (specialty != null) {
+        predicados.add(cb.equal(root.get("specialty"), specialty));
+      }
+      if (hospital != null) {
+        predicados.add(cb.equal(root.get("hospital"), hospital));
+      }
+      if (available != null) {
+        predicados.add(cb.equal(root.get("available"), available));
+      }
+      return cb.and(predicados.toArray(new Predicate[0]));
+    };
+    return name == null ? spec : spec.and(nombreContiene(name, normalizado));
+  }
+
+  // doctor_normalizar(x) con V6; lower(x) sin ella
+  private static Expression<String> normalizar(CriteriaBuilder cb, Expression<String> valor, boolean normalizado) {
+    return normalizado ? cb.function(FUNCION_NORMALIZAR, String.class, valor) : cb.lower(valor);
+  }
+
+  // Patrón LIKE en minúsculas para "contiene el texto", con los comodines del texto escapados
+  static String patronContiene(String texto) {
+    return "%" + escapar(texto.trim().toLowerCase(Locale.ROOT)) + "%";
+  }
+
+  // El texto del usuario se compara literal: %, _ y \ no actúan como comodines
+  static String escapar(String texto) {
+    return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+  }
+}
@@ -0,0 +1,53 @@
+package com.hn.tgu.hospital.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Comprueba una sola vez si existen las funciones SQL de las migraciones de búsqueda (V5, V6).
+// Flyway no corre automáticamente, así que sin ellas las consultas usan LIKE sobre lower()
+@Component
+public class FuncionesBusqueda {
+
+  private static final Logger logger = LoggerFactory.getLogger(FuncionesBusqueda.class);
+
+  private final JdbcTemplate jdbcTemplate;
+  private final Map<String, Boolean> disponibles = new ConcurrentHashMap<>();
+
+  public FuncionesBusqueda(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  public boolean textoCompleto() {
+    return disponible(DoctorSpecifications.FUNCION_TEXTO, "V5");
+  }
+
+  public boolean nombreNormalizado() {
+    return disponible(DoctorSpecifications.FUNCION_NORMALIZAR, "V6");
+  }
+
+  // La consulta va fuera de computeIfAbsent: el map la haría con el lock de su cubeta
+  // (synchronized) y fijaría el hilo virtual a su carrier mientras espera a Postgres. Dos
+  // primeras llamadas a la vez pueden comprobar la misma función; el resultado es el mismo
+  private boolean disponible(String funcion, String migracion) {
+    Boolean conocida = disponibles.get(funcion);
+    if (conocida != null) {
+      return conocida;
+    }
+    Boolean existe;
+    try {
+      existe = jdbcTemplate.queryForObject("SELECT to_regproc(?) IS NOT NULL", Boolean.class, funcion);
+    } catch (Exception e) {
+      existe = false;
+    }
+    boolean disponible = Boolean.TRUE.equals(existe);
+    if (disponibles.putIfAbsent(funcion, disponible) == null && !disponible) {
+      logger.warn("⚠️ Falta la función {} (migración {}): la búsqueda JPA usará LIKE", funcion, migracion);
+    }
+    return disponible;
+  }
+}
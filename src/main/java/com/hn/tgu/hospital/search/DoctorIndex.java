@@ -1,5 +1,6 @@
 package com.hn.tgu.hospital.search;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.data.annotation.Id;
@@ -10,7 +11,10 @@ import org.springframework.data.elasticsearch.annotations.FieldType;
 import java.util.List;
 import java.util.Map;
 
+// Vista de lectura del alias doctores: los documentos los escribe DoctorBulkIndexer con el
+// formato de DoctorElasticsearch, que tiene más campos (franjas, sugerencias...)
 @Document(indexName = "doctores")
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class DoctorIndex {
 
     @Id
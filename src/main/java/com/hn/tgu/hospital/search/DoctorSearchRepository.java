@@ -1,59 +1,80 @@
 package com.hn.tgu.hospital.search;
 
-import org.elasticsearch.action.index.IndexRequest;
-import org.elasticsearch.action.index.IndexResponse;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.elasticsearch.action.get.GetRequest;
 import org.elasticsearch.action.get.GetResponse;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Request;
 import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.Response;
 import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.core.CountRequest;
+import org.elasticsearch.client.core.CountResponse;
+import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.aggregations.AbstractAggregationBuilder;
+import org.elasticsearch.search.aggregations.Aggregations;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
-import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.search.suggest.SuggestBuilder;
+import org.elasticsearch.search.suggest.SuggestBuilders;
+import org.elasticsearch.search.suggest.completion.CompletionSuggestion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 @Repository
 public class DoctorSearchRepository {
 
+    private static final Logger logger = LoggerFactory.getLogger(DoctorSearchRepository.class);
+
     @Autowired
     private RestHighLevelClient elasticsearchClient;
 
+    // Las lecturas usan el presupuesto de latencia del circuit breaker
+    @Autowired
+    private ElasticsearchCircuitBreaker circuitBreaker;
+
     private static final String INDEX_NAME = "doctores";
 
-    public DoctorIndex save(DoctorIndex doctor) {
-        try {
-            IndexRequest request = new IndexRequest(INDEX_NAME)
-                .id(doctor.getId())
-                .source(doctor.toJson(), XContentType.JSON);
-            
-            IndexResponse response = elasticsearchClient.index(request, RequestOptions.DEFAULT);
-            return doctor;
-        } catch (IOException e) {
-            throw new RuntimeException("Error guardando doctor en Elasticsearch", e);
-        }
-    }
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
-    public List<DoctorIndex> saveAll(List<DoctorIndex> doctors) {
-        List<DoctorIndex> savedDoctors = new ArrayList<>();
-        for (DoctorIndex doctor : doctors) {
-            savedDoctors.add(save(doctor));
-        }
-        return savedDoctors;
-    }
+    // Campo completion de cada tipo de sugerencia y campo del _source que se muestra
+    private static final Map<IndiceSugerencias.Tipo, String> CAMPOS_SUGERENCIA = new EnumMap<>(Map.of(
+        IndiceSugerencias.Tipo.DOCTOR, "sugerenciaNombre",
+        IndiceSugerencias.Tipo.ESPECIALIDAD, "sugerenciaEspecialidad",
+        IndiceSugerencias.Tipo.HOSPITAL, "sugerenciaHospital"));
+    private static final Map<IndiceSugerencias.Tipo, String> CAMPOS_FUENTE = new EnumMap<>(Map.of(
+        IndiceSugerencias.Tipo.DOCTOR, "name",
+        IndiceSugerencias.Tipo.ESPECIALIDAD, "specialty",
+        IndiceSugerencias.Tipo.HOSPITAL, "hospital"));
 
+    // Las escrituras van por DoctorBulkIndexer y DoctorChangeDispatcher con el formato de
+    // DoctorElasticsearch: este repositorio solo lee
     public Optional<DoctorIndex> findById(String id) {
         try {
             GetRequest request = new GetRequest(INDEX_NAME, id);
-            GetResponse response = elasticsearchClient.get(request, RequestOptions.DEFAULT);
+            GetResponse response = elasticsearchClient.get(request, circuitBreaker.opciones());
             
             if (response.isExists()) {
                 return Optional.of(DoctorIndex.fromJson(response.getSourceAsString()));
@@ -72,7 +93,7 @@ public class DoctorSearchRepository {
             sourceBuilder.query(QueryBuilders.matchAllQuery());
             request.source(sourceBuilder);
             
-            SearchResponse response = elasticsearchClient.search(request, RequestOptions.DEFAULT);
+            SearchResponse response = elasticsearchClient.search(request, circuitBreaker.opciones());
             
             List<DoctorIndex> doctors = new ArrayList<>();
             for (SearchHit hit : response.getHits().getHits()) {
@@ -92,30 +113,96 @@ public class DoctorSearchRepository {
             sourceBuilder.size(0); // Solo contar, no obtener documentos
             request.source(sourceBuilder);
             
-            SearchResponse response = elasticsearchClient.search(request, RequestOptions.DEFAULT);
+            SearchResponse response = elasticsearchClient.search(request, circuitBreaker.opciones());
             return response.getHits().getTotalHits().value;
         } catch (IOException e) {
             throw new RuntimeException("Error contando doctores", e);
         }
     }
 
-    public List<DoctorIndex> findByNameStartingWithIgnoreCase(String name) {
+    /**
+     * Textos sugeridos para el prefijo con el completion suggester, los de mayor rating primero
+     */
+    public List<String> sugerencias(String prefijo, Set<IndiceSugerencias.Tipo> tipos, int limite) {
         try {
             SearchRequest request = new SearchRequest(INDEX_NAME);
-            SearchSourceBuilder sourceBuilder = new SearchSourceBuilder();
-            sourceBuilder.query(QueryBuilders.wildcardQuery("name", name.toLowerCase() + "*"));
+            request.source(consultaSugerencias(prefijo, tipos, limite));
+            
+            SearchResponse response = elasticsearchClient.search(request, circuitBreaker.opciones());
+            
+            // Cada opción trae el _source del doctor: se muestra el campo completo, no la palabra que coincidió
+            List<PrefijoTrie.Entrada> opciones = new ArrayList<>();
+            for (IndiceSugerencias.Tipo tipo : tipos) {
+                for (CompletionSuggestion.Entry.Option opcion : opciones(response, tipo)) {
+                    Object texto = opcion.getHit().getSourceAsMap().get(CAMPOS_FUENTE.get(tipo));
+                    if (texto != null) {
+                        opciones.add(new PrefijoTrie.Entrada(texto.toString(), opcion.getScore()));
+                    }
+                }
+            }
+            opciones.sort(Comparator.comparingDouble(PrefijoTrie.Entrada::peso).reversed());
+            return opciones.stream()
+                .map(PrefijoTrie.Entrada::texto)
+                .distinct()
+                .limit(limite)
+                .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new RuntimeException("Error obteniendo sugerencias", e);
+        }
+    }
+
+    /**
+     * Doctores cuyo nombre (alguna de sus palabras) empieza por el prefijo, con el completion suggester
+     */
+    public List<DoctorIndex> sugerirDoctores(String prefijo, int limite) {
+        try {
+            SearchRequest request = new SearchRequest(INDEX_NAME);
+            SearchSourceBuilder sourceBuilder = new SearchSourceBuilder()
+                .size(0)
+                .suggest(new SuggestBuilder().addSuggestion(CAMPOS_SUGERENCIA.get(IndiceSugerencias.Tipo.DOCTOR),
+                    SuggestBuilders.completionSuggestion(CAMPOS_SUGERENCIA.get(IndiceSugerencias.Tipo.DOCTOR))
+                        .prefix(prefijo)
+                        .size(limite)));
             request.source(sourceBuilder);
             
-            SearchResponse response = elasticsearchClient.search(request, RequestOptions.DEFAULT);
+            SearchResponse response = elasticsearchClient.search(request, circuitBreaker.opciones());
             
-            List<DoctorIndex> doctors = new ArrayList<>();
-            for (SearchHit hit : response.getHits().getHits()) {
-                doctors.add(DoctorIndex.fromJson(hit.getSourceAsString()));
+            // Un doctor puede coincidir por varias palabras; se devuelve una vez
+            Map<String, DoctorIndex> doctors = new LinkedHashMap<>();
+            for (CompletionSuggestion.Entry.Option opcion : opciones(response, IndiceSugerencias.Tipo.DOCTOR)) {
+                doctors.putIfAbsent(opcion.getHit().getId(), DoctorIndex.fromJson(opcion.getHit().getSourceAsString()));
             }
-            return doctors;
+            return new ArrayList<>(doctors.values());
         } catch (IOException e) {
-            throw new RuntimeException("Error buscando doctores por nombre", e);
+            throw new RuntimeException("Error sugiriendo doctores", e);
+        }
+    }
+
+    /**
+     * Petición de sugerencias: un completion suggester por tipo, sin documentos repetidos
+     * por texto y con solo los campos que se muestran del _source
+     */
+    public static SearchSourceBuilder consultaSugerencias(String prefijo, Set<IndiceSugerencias.Tipo> tipos, int limite) {
+        SuggestBuilder suggest = new SuggestBuilder();
+        for (IndiceSugerencias.Tipo tipo : tipos) {
+            suggest.addSuggestion(CAMPOS_SUGERENCIA.get(tipo),
+                SuggestBuilders.completionSuggestion(CAMPOS_SUGERENCIA.get(tipo))
+                    .prefix(prefijo)
+                    .skipDuplicates(true)
+                    .size(limite));
         }
+        return new SearchSourceBuilder()
+            .size(0)
+            .fetchSource(CAMPOS_FUENTE.values().toArray(new String[0]), null)
+            .suggest(suggest);
+    }
+
+    private static List<CompletionSuggestion.Entry.Option> opciones(SearchResponse response, IndiceSugerencias.Tipo tipo) {
+        if (response.getSuggest() == null) {
+            return List.of();
+        }
+        CompletionSuggestion suggestion = response.getSuggest().getSuggestion(CAMPOS_SUGERENCIA.get(tipo));
+        return suggestion != null ? suggestion.getOptions() : List.of();
     }
 
     public List<DoctorIndex> findBySpecialty(String specialty) {
@@ -125,7 +212,7 @@ public class DoctorSearchRepository {
             sourceBuilder.query(QueryBuilders.matchQuery("specialty", specialty));
             request.source(sourceBuilder);
             
-            SearchResponse response = elasticsearchClient.search(request, RequestOptions.DEFAULT);
+            SearchResponse response = elasticsearchClient.search(request, circuitBreaker.opciones());
             
             List<DoctorIndex> doctors = new ArrayList<>();
             for (SearchHit hit : response.getHits().getHits()) {
@@ -144,7 +231,7 @@ public class DoctorSearchRepository {
             sourceBuilder.query(QueryBuilders.matchQuery("hospital", hospital));
             request.source(sourceBuilder);
             
-            SearchResponse response = elasticsearchClient.search(request, RequestOptions.DEFAULT);
+            SearchResponse response = elasticsearchClient.search(request, circuitBreaker.opciones());
             
             List<DoctorIndex> doctors = new ArrayList<>();
             for (SearchHit hit : response.getHits().getHits()) {
@@ -163,7 +250,7 @@ public class DoctorSearchRepository {
             sourceBuilder.query(QueryBuilders.termQuery("available", available));
             request.source(sourceBuilder);
             
-            SearchResponse response = elasticsearchClient.search(request, RequestOptions.DEFAULT);
+            SearchResponse response = elasticsearchClient.search(request, circuitBreaker.opciones());
             
             List<DoctorIndex> doctors = new ArrayList<>();
             for (SearchHit hit : response.getHits().getHits()) {
@@ -189,7 +276,7 @@ public class DoctorSearchRepository {
             
             request.source(sourceBuilder);
             
-            SearchResponse response = elasticsearchClient.search(request, RequestOptions.DEFAULT);
+            SearchResponse response = elasticsearchClient.search(request, circuitBreaker.opciones());
             
             List<DoctorIndex> doctors = new ArrayList<>();
             for (SearchHit hit : response.getHits().getHits()) {
@@ -202,6 +289,85 @@ public class DoctorSearchRepository {
         }
     }
 
+    /**
+     * Construye la búsqueda avanzada (bool query, paginación y ordenamiento) sin ejecutarla
+     */
+    public static SearchSourceBuilder consultaAvanzada(String query, String specialty, String hospital,
+                                                       Integer minExperience, Integer maxExperience,
+                                                       Double minRating, Double maxRating,
+                                                       Boolean available, List<String> tags) {
+        SearchSourceBuilder sourceBuilder = new SearchSourceBuilder();
+        
+        // Construir query compuesta usando bool query
+        var boolQuery = QueryBuilders.boolQuery();
+        
+        // Query de texto libre con dis_max para mejor relevancia
+        if (query != null && !query.trim().isEmpty()) {
+            var disMaxQuery = QueryBuilders.disMaxQuery()
+                .add(QueryBuilders.matchQuery("name", query).boost(3.0f))           // Nombre es más importante
+                .add(QueryBuilders.matchQuery("specialty", query).boost(2.5f))      // Especialidad muy importante
+                .add(QueryBuilders.multiMatchQuery(query, "description", "description.es")
+                    .boost(1.5f))                                                   // Descripción importante
+                .add(QueryBuilders.matchQuery("searchText", query).boost(1.0f))     // Texto de búsqueda normal
+                .add(QueryBuilders.multiMatchQuery(query, "name.prefijo", "specialty.prefijo", "hospital.prefijo")
+                    .boost(1.0f))                                                   // Palabras a medio escribir
+                .tieBreaker(0.3f);                                                  // Factor de desempate
+            
+            boolQuery.must(disMaxQuery);
+        }
+        
+        // Filtros específicos usando filter context (no afectan score)
+        if (specialty != null && !specialty.trim().isEmpty()) {
+            boolQuery.filter(QueryBuilders.termQuery("specialty", specialty));
+        }
+        
+        if (hospital != null && !hospital.trim().isEmpty()) {
+            boolQuery.filter(QueryBuilders.termQuery("hospital", hospital));
+        }
+        
+        // Filtro de disponibilidad
+        if (available != null) {
+            if (available) {
+                boolQuery.filter(QueryBuilders.termQuery("available", true));
+            } else {
+                // Para disponibilidad false, usar must_not para ser más específico
+                boolQuery.mustNot(QueryBuilders.termQuery("available", false));
+            }
+        }
+        
+        // Filtros de rango numérico
+        if (minExperience != null || maxExperience != null) {
+            var rangeQuery = QueryBuilders.rangeQuery("experienceYears");
+            if (minExperience != null) rangeQuery.gte(minExperience);
+            if (maxExperience != null) rangeQuery.lte(maxExperience);
+            boolQuery.filter(rangeQuery);
+        }
+        
+        if (minRating != null || maxRating != null) {
+            var rangeQuery = QueryBuilders.rangeQuery("rating");
+            if (minRating != null) rangeQuery.gte(minRating);
+            if (maxRating != null) rangeQuery.lte(maxRating);
+            boolQuery.filter(rangeQuery);
+        }
+        
+        // Filtros de tags usando terms query
+        if (tags != null && !tags.isEmpty()) {
+            boolQuery.filter(QueryBuilders.termsQuery("tags", tags));
+        }
+        
+        // Configurar la query principal
+        sourceBuilder.query(boolQuery);
+        
+        // Configurar paginación y límites
+        sourceBuilder.from(0).size(100); // Máximo 100 resultados
+        
+        // Configurar ordenamiento: primero por relevancia, luego por rating
+        sourceBuilder.sort("_score", SortOrder.DESC);  // Ordenar por score de relevancia
+        sourceBuilder.sort("rating", SortOrder.DESC);  // Luego por rating (descendente)
+        
+        return sourceBuilder;
+    }
+
     /**
      * Búsqueda avanzada con múltiples filtros usando Elasticsearch 7.10
      * Implementa mejores prácticas según la documentación oficial
@@ -210,96 +376,90 @@ public class DoctorSearchRepository {
                                            Integer minExperience, Integer maxExperience, 
                                            Double minRating, Double maxRating, 
                                            Boolean available, List<String> tags) {
+        return search(consultaAvanzada(query, specialty, hospital,
+            minExperience, maxExperience, minRating, maxRating, available, tags));
+    }
+
+    /**
+     * Ejecuta una búsqueda ya construida (p. ej. con {@link #consultaAvanzada}) sobre el índice de doctores
+     */
+    public List<DoctorIndex> search(SearchSourceBuilder sourceBuilder) {
         try {
             SearchRequest request = new SearchRequest(INDEX_NAME);
-            SearchSourceBuilder sourceBuilder = new SearchSourceBuilder();
-            
-            // Construir query compuesta usando bool query
-            var boolQuery = QueryBuilders.boolQuery();
-            
-            // Query de texto libre con dis_max para mejor relevancia
-            if (query != null && !query.trim().isEmpty()) {
-                var disMaxQuery = QueryBuilders.disMaxQuery()
-                    .add(QueryBuilders.matchQuery("name", query).boost(3.0f))           // Nombre es más importante
-                    .add(QueryBuilders.matchQuery("specialty", query).boost(2.5f))      // Especialidad muy importante
-                    .add(QueryBuilders.matchQuery("description", query).boost(1.5f))    // Descripción importante
-                    .add(QueryBuilders.matchQuery("searchText", query).boost(1.0f))     // Texto de búsqueda normal
-                    .tieBreaker(0.3f);                                                  // Factor de desempate
-                
-                boolQuery.must(disMaxQuery);
-            }
-            
-            // Filtros específicos usando filter context (no afectan score)
-            if (specialty != null && !specialty.trim().isEmpty()) {
-                boolQuery.filter(QueryBuilders.termQuery("specialty", specialty));
-            }
-            
-            if (hospital != null && !hospital.trim().isEmpty()) {
-                boolQuery.filter(QueryBuilders.termQuery("hospital", hospital));
-            }
-            
-            // Filtro de disponibilidad
-            if (available != null) {
-                if (available) {
-                    boolQuery.filter(QueryBuilders.termQuery("available", true));
-                } else {
-                    // Para disponibilidad false, usar must_not para ser más específico
-                    boolQuery.mustNot(QueryBuilders.termQuery("available", false));
-                }
-            }
-            
-            // Filtros de rango numérico
-            if (minExperience != null || maxExperience != null) {
-                var rangeQuery = QueryBuilders.rangeQuery("experienceYears");
-                if (minExperience != null) rangeQuery.gte(minExperience);
-                if (maxExperience != null) rangeQuery.lte(maxExperience);
-                boolQuery.filter(rangeQuery);
-            }
-            
-            if (minRating != null || maxRating != null) {
-                var rangeQuery = QueryBuilders.rangeQuery("rating");
-                if (minRating != null) rangeQuery.gte(minRating);
-                if (maxRating != null) rangeQuery.lte(maxRating);
-                boolQuery.filter(rangeQuery);
-            }
-            
-            // Filtros de tags usando terms query
-            if (tags != null && !tags.isEmpty()) {
-                boolQuery.filter(QueryBuilders.termsQuery("tags", tags));
-            }
-            
-            // Configurar la query principal
-            sourceBuilder.query(boolQuery);
-            
-            // Configurar paginación y límites
-            sourceBuilder.from(0).size(100); // Máximo 100 resultados
-            
-            // Configurar ordenamiento: primero por relevancia, luego por rating
-            sourceBuilder.sort("_score", SortOrder.DESC);  // Ordenar por score de relevancia
-            sourceBuilder.sort("rating", SortOrder.DESC);  // Luego por rating (descendente)
-            
             request.source(sourceBuilder);
             
-            System.out.println("🔍 [Elasticsearch 7.10] Query construida: " + boolQuery.toString());
-            System.out.println("🔍 [Elasticsearch 7.10] Ordenamiento: Score DESC, Rating DESC");
-            
-            SearchResponse response = elasticsearchClient.search(request, RequestOptions.DEFAULT);
+            SearchResponse response = elasticsearchClient.search(request, circuitBreaker.opciones());
             
             List<DoctorIndex> doctors = new ArrayList<>();
             for (SearchHit hit : response.getHits().getHits()) {
                 doctors.add(DoctorIndex.fromJson(hit.getSourceAsString()));
             }
             
-            System.out.println("🔍 [Elasticsearch 7.10] Resultados encontrados: " + doctors.size() + " de " + response.getHits().getTotalHits().value);
+            logger.debug("🔍 Resultados encontrados: {} de {}", doctors.size(), response.getHits().getTotalHits().value);
             
             return doctors;
             
         } catch (IOException e) {
-            System.err.println("❌ Error en búsqueda avanzada de Elasticsearch: " + e.getMessage());
             throw new RuntimeException("Error en búsqueda avanzada de Elasticsearch", e);
         }
     }
 
+    /**
+     * Como {@link #search(SearchSourceBuilder)} sin bloquear: la petición sale por el cliente de
+     * bajo nivel y la respuesta se parsea en el executor de búsquedas
+     * ({@link ElasticsearchCircuitBreaker#listenerRest}); con searchAsync del cliente de alto
+     * nivel el parseo de una página de 100 documentos se haría en el reactor de E/S
+     */
+    public CompletableFuture<List<DoctorIndex>> searchAsync(SearchSourceBuilder sourceBuilder) {
+        Request request = new Request("POST", "/" + INDEX_NAME + "/_search");
+        request.setJsonEntity(sourceBuilder.toString());
+        request.setOptions(circuitBreaker.opciones());
+
+        CompletableFuture<Response> respuesta = new CompletableFuture<>();
+        elasticsearchClient.getLowLevelClient().performRequestAsync(request, circuitBreaker.listenerRest(respuesta));
+
+        return respuesta.thenApply(response -> {
+            JsonNode hits;
+            try (InputStream cuerpo = response.getEntity().getContent()) {
+                hits = objectMapper.readTree(cuerpo).path("hits");
+            } catch (IOException e) {
+                throw new UncheckedIOException("Respuesta de búsqueda no válida", e);
+            }
+            List<DoctorIndex> doctors = new ArrayList<>();
+            for (JsonNode hit : hits.path("hits")) {
+                doctors.add(objectMapper.convertValue(hit.path("_source"), DoctorIndex.class));
+            }
+            logger.debug("🔍 Resultados encontrados: {} de {}", doctors.size(), hits.path("total").path("value").asLong());
+            return doctors;
+        });
+    }
+
+    /**
+     * Solo las agregaciones de una query (size 0), sin bloquear
+     */
+    public CompletableFuture<Aggregations> aggregationsAsync(QueryBuilder query,
+                                                             List<AbstractAggregationBuilder<?>> aggregations) {
+        SearchSourceBuilder sourceBuilder = new SearchSourceBuilder().query(query).size(0);
+        aggregations.forEach(sourceBuilder::aggregation);
+        SearchRequest request = new SearchRequest(INDEX_NAME).source(sourceBuilder);
+
+        CompletableFuture<SearchResponse> respuesta = new CompletableFuture<>();
+        elasticsearchClient.searchAsync(request, circuitBreaker.opciones(),
+            circuitBreaker.listener(respuesta));
+        return respuesta.thenApply(SearchResponse::getAggregations);
+    }
+
+    /**
+     * Número de doctores que cumplen una query, sin bloquear
+     */
+    public CompletableFuture<Long> countAsync(QueryBuilder query) {
+        CountRequest request = new CountRequest(INDEX_NAME).query(query);
+
+        CompletableFuture<CountResponse> respuesta = new CompletableFuture<>();
+        elasticsearchClient.countAsync(request, circuitBreaker.opciones(), circuitBreaker.listener(respuesta));
+        return respuesta.thenApply(CountResponse::getCount);
+    }
+
     /**
      * Búsqueda con boosting personalizado para mejor relevancia
      * Implementa func_score query según documentación oficial
@@ -318,6 +478,7 @@ public class DoctorSearchRepository {
                     .field("name", 3.0f)        // Nombre es 3x más importante
                     .field("specialty", 2.5f)   // Especialidad es 2.5x más importante
                     .field("description", 1.5f) // Descripción es 1.5x más importante
+                    .field("description.es", 1.5f)
                     .tieBreaker(0.3f);
                 
                 boolQuery.must(multiMatch);
@@ -338,9 +499,9 @@ public class DoctorSearchRepository {
             
             request.source(sourceBuilder);
             
-            System.out.println("🔍 [Elasticsearch 7.10] Búsqueda con boosting: " + boolQuery.toString());
+            logger.debug("🔍 Búsqueda con boosting: {}", boolQuery);
             
-            SearchResponse response = elasticsearchClient.search(request, RequestOptions.DEFAULT);
+            SearchResponse response = elasticsearchClient.search(request, circuitBreaker.opciones());
             
             List<DoctorIndex> doctors = new ArrayList<>();
             for (SearchHit hit : response.getHits().getHits()) {
@@ -350,7 +511,6 @@ public class DoctorSearchRepository {
             return doctors;
             
         } catch (IOException e) {
-            System.err.println("❌ Error en búsqueda con boosting: " + e.getMessage());
             throw new RuntimeException("Error en búsqueda con boosting", e);
         }
     }
@@ -0,0 +1,165 @@
+package com.hn.tgu.hospital.search;
+
+import com.hn.tgu.hospital.config.AsyncSearchConfig;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.http.client.config.RequestConfig;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker de las búsquedas en Elasticsearch.
+ *
+ * Cuenta como fallo toda excepción y como llamada lenta la que supera el presupuesto de
+ * latencia. Si en la ventana de llamadas recientes la tasa de fallos o de lentas pasa el
+ * umbral, se abre y las búsquedas van directamente a JPA sin tocar el cluster. Pasado el
+ * tiempo de espera deja pasar unas pocas llamadas de prueba (semiabierto) y según cómo
+ * vayan se cierra o se vuelve a abrir. El estado se exporta como resilience4j.circuitbreaker.*
+ * con la etiqueta name=elasticsearch.
+ *
+ * Además del breaker, cada búsqueda usa {@link #opciones()}, que limita el socket timeout
+ * y la espera por una conexión del pool al presupuesto, para no esperar los timeouts del
+ * cliente cuando el cluster va lento o el pool está lleno.
+ *
+ * Las búsquedas asíncronas reciben la respuesta con {@link #listener} o {@link #listenerRest},
+ * que completan el future en el executor de búsquedas y no en el reactor de E/S del cliente.
+ * httpasyncclient devuelve la conexión al pool antes de ejecutar los callbacks y solo después
+ * reinicia su estado: si un callback tarda (convertir los hits, despachar la respuesta) otro
+ * hilo puede tomar esa conexión para la siguiente petición, y falla con "Unexpected request
+ * state READY". Con el cliente de alto nivel el parseo de la respuesta sigue en el reactor;
+ * las búsquedas con respuestas grandes usan el de bajo nivel y parsean en el executor.
+ */
+@Component
+public class ElasticsearchCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ElasticsearchCircuitBreaker.class);
+
+    public static final String NOMBRE = "elasticsearch";
+
+    private final CircuitBreaker circuitBreaker;
+    private final RequestOptions opciones;
+    private final LimiteElasticsearch limite;
+    private final Executor busquedasExecutor;
+
+    public ElasticsearchCircuitBreaker(MeterRegistry meterRegistry,
+                                       LimiteElasticsearch limite,
+                                       @Qualifier(AsyncSearchConfig.EXECUTOR) Executor busquedasExecutor,
+                                       @Value("${doctors.search.circuit-breaker.latency-budget:1500ms}") Duration presupuesto,
+                                       @Value("${doctors.search.circuit-breaker.window-size:50}") int ventana,
+                                       @Value("${doctors.search.circuit-breaker.minimum-calls:20}") int minimoLlamadas,
+                                       @Value("${doctors.search.circuit-breaker.failure-rate-threshold:50}") float umbralFallos,
+                                       @Value("${doctors.search.circuit-breaker.slow-call-rate-threshold:80}") float umbralLentas,
+                                       @Value("${doctors.search.circuit-breaker.wait-in-open:30s}") Duration esperaAbierto,
+                                       @Value("${doctors.search.circuit-breaker.half-open-calls:5}") int llamadasPrueba) {
+        this.limite = limite;
+        this.busquedasExecutor = busquedasExecutor;
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(ventana)
+                .minimumNumberOfCalls(minimoLlamadas)
+                .failureRateThreshold(umbralFallos)
+                .slowCallDurationThreshold(presupuesto)
+                .slowCallRateThreshold(umbralLentas)
+                .waitDurationInOpenState(esperaAbierto)
+                .permittedNumberOfCallsInHalfOpenState(llamadasPrueba)
+                .build();
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        this.circuitBreaker = registry.circuitBreaker(NOMBRE);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+
+        circuitBreaker.getEventPublisher().onStateTransition(evento ->
+                logger.warn("🔌 Circuit breaker de Elasticsearch: {}", evento.getStateTransition()));
+
+        int presupuestoMs = (int) presupuesto.toMillis();
+        this.opciones = RequestOptions.DEFAULT.toBuilder()
+                .setRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(presupuestoMs)
+                        .setSocketTimeout(presupuestoMs)
+                        // Sustituye a la configuración del cliente entera: sin esto esperaría sin límite por el pool
+                        .setConnectionRequestTimeout(presupuestoMs)
+                        .build())
+                .build();
+    }
+
+    /**
+     * Ejecuta la llamada si el breaker lo permite; si está abierto lanza
+     * {@link CallNotPermittedException} sin llamar al cluster. Con hilos virtuales espera
+     * antes turno en {@link LimiteElasticsearch}, fuera del breaker: esperar no es un fallo del cluster
+     */
+    public <T> T ejecutar(Supplier<T> llamada) {
+        return limite.ejecutar(() -> circuitBreaker.executeSupplier(llamada));
+    }
+
+    /**
+     * Versión asíncrona de {@link #ejecutar}: la llamada cuenta al completarse el future, y
+     * con el breaker abierto el future falla con {@link CallNotPermittedException}
+     */
+    public <T> CompletableFuture<T> ejecutarAsync(Supplier<CompletionStage<T>> llamada) {
+        return circuitBreaker.executeCompletionStage(llamada).toCompletableFuture();
+    }
+
+    /**
+     * Opciones de petición con timeouts limitados al presupuesto de latencia
+     */
+    public RequestOptions opciones() {
+        return opciones;
+    }
+
+    /**
+     * Listener de una llamada asíncrona del cliente que completa el future en el executor de
+     * búsquedas. Si el executor está lleno, el future falla con {@link RejectedExecutionException}
+     */
+    public <T> ActionListener<T> listener(CompletableFuture<T> future) {
+        return ActionListener.wrap(
+                respuesta -> completarFuera(() -> future.complete(respuesta), future),
+                error -> completarFuera(() -> future.completeExceptionally(error), future));
+    }
+
+    /**
+     * Como {@link #listener} para el cliente de bajo nivel: la respuesta se lee y parsea ya
+     * en el executor de búsquedas
+     */
+    public ResponseListener listenerRest(CompletableFuture<Response> future) {
+        return new ResponseListener() {
+            @Override
+            public void onSuccess(Response respuesta) {
+                completarFuera(() -> future.complete(respuesta), future);
+            }
+
+            @Override
+            public void onFailure(Exception error) {
+                completarFuera(() -> future.completeExceptionally(error), future);
+            }
+        };
+    }
+
+    private void completarFuera(Runnable completar, CompletableFuture<?> future) {
+        try {
+            busquedasExecutor.execute(completar);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    public CircuitBreaker.State estado() {
+        return circuitBreaker.getState();
+    }
+}
@@ -0,0 +1,197 @@
+package com.hn.tgu.hospital.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Índice en memoria para el autocompletado: nombres de doctores, especialidades y hospitales.
+ *
+ * Hay un {@link PrefijoTrie} por tipo. Cada texto se indexa sin tildes ni mayúsculas y a
+ * partir de cada palabra ("sof" encuentra "Dr. Sofía Martínez"), y pesa lo que el mejor
+ * rating de los doctores que lo tienen. Los cambios llegan doctor a doctor con
+ * {@link #actualizar}, que solo toca los textos cuyo peso cambia. Las escrituras se
+ * serializan; las búsquedas no bloquean.
+ */
+public class IndiceSugerencias {
+
+    public enum Tipo {
+        DOCTOR, ESPECIALIDAD, HOSPITAL;
+
+        /**
+         * Tipo por nombre (doctor, especialidad, hospital) o null si no existe
+         */
+        public static Tipo de(String nombre) {
+            for (Tipo tipo : values()) {
+                if (tipo.name().equalsIgnoreCase(nombre)) {
+                    return tipo;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Lo que el índice necesita de un doctor
+     */
+    public record Ficha(String nombre, String especialidad, String hospital, double rating) {
+
+        String texto(Tipo tipo) {
+            return switch (tipo) {
+                case DOCTOR -> nombre;
+                case ESPECIALIDAD -> especialidad;
+                case HOSPITAL -> hospital;
+            };
+        }
+    }
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Comparator<PrefijoTrie.Entrada> ORDEN =
+            Comparator.comparingDouble(PrefijoTrie.Entrada::peso).reversed().thenComparing(PrefijoTrie.Entrada::texto);
+
+    private final Map<String, Ficha> fichas = new HashMap<>();
+    // Por tipo y texto, cuántos doctores tienen cada rating (el peso es el mayor)
+    private final Map<Tipo, Map<String, TreeMap<Double, Integer>>> ratings = new EnumMap<>(Tipo.class);
+    private final Map<Tipo, PrefijoTrie> tries = new EnumMap<>(Tipo.class);
+
+    public IndiceSugerencias(int maxSugerencias) {
+        for (Tipo tipo : Tipo.values()) {
+            ratings.put(tipo, new HashMap<>());
+            tries.put(tipo, new PrefijoTrie(maxSugerencias));
+        }
+    }
+
+    /**
+     * Hasta limite textos de los tipos pedidos que empiezan (alguna de sus palabras) por el prefijo
+     */
+    public List<String> sugerir(String prefijo, Collection<Tipo> tipos, int limite) {
+        String clave = normalizar(prefijo);
+        if (clave.isEmpty()) {
+            return List.of();
+        }
+        List<PrefijoTrie.Entrada> candidatas = new ArrayList<>();
+        for (Tipo tipo : tipos) {
+            candidatas.addAll(tries.get(tipo).buscar(clave, limite));
+        }
+        if (tipos.size() > 1) {
+            candidatas.sort(ORDEN);
+        }
+        List<String> sugerencias = new ArrayList<>(Math.min(limite, candidatas.size()));
+        for (PrefijoTrie.Entrada candidata : candidatas) {
+            if (sugerencias.size() == limite) {
+                break;
+            }
+            // Un hospital puede llamarse igual que otra cosa; se muestra una vez
+            if (!sugerencias.contains(candidata.texto())) {
+                sugerencias.add(candidata.texto());
+            }
+        }
+        return sugerencias;
+    }
+
+    /**
+     * Alta, cambio o baja (ficha null) de un doctor
+     */
+    public synchronized void actualizar(String doctorId, Ficha ficha) {
+        Ficha anterior = ficha != null ? fichas.put(doctorId, ficha) : fichas.remove(doctorId);
+        if (anterior != null && anterior.equals(ficha)) {
+            return;
+        }
+        for (Tipo tipo : Tipo.values()) {
+            if (anterior != null) {
+                quitar(tipo, anterior.texto(tipo), anterior.rating());
+            }
+            if (ficha != null) {
+                poner(tipo, ficha.texto(tipo), ficha.rating());
+            }
+        }
+    }
+
+    public synchronized int doctores() {
+        return fichas.size();
+    }
+
+    public synchronized int nodos() {
+        return tries.values().stream().mapToInt(PrefijoTrie::nodos).sum();
+    }
+
+    private void poner(Tipo tipo, String texto, double rating) {
+        if (texto == null || texto.isBlank()) {
+            return;
+        }
+        TreeMap<Double, Integer> conteos = ratings.get(tipo).computeIfAbsent(texto, t -> new TreeMap<>());
+        Double anterior = conteos.isEmpty() ? null : conteos.lastKey();
+        conteos.merge(rating, 1, Integer::sum);
+        if (anterior == null || rating > anterior) {
+            indexar(tipo, texto, rating);
+        }
+    }
+
+    private void quitar(Tipo tipo, String texto, double rating) {
+        if (texto == null || texto.isBlank()) {
+            return;
+        }
+        TreeMap<Double, Integer> conteos = ratings.get(tipo).get(texto);
+        Integer doctores = conteos != null ? conteos.get(rating) : null;
+        if (doctores == null) {
+            return;
+        }
+        if (doctores > 1) {
+            conteos.put(rating, doctores - 1);
+            return;
+        }
+        conteos.remove(rating);
+        // Se fue el último doctor con ese rating: puede cambiar el peso o desaparecer el texto
+        if (conteos.isEmpty()) {
+            ratings.get(tipo).remove(texto);
+            for (String clave : claves(texto)) {
+                tries.get(tipo).borrar(clave, texto);
+            }
+        } else if (rating > conteos.lastKey()) {
+            indexar(tipo, texto, conteos.lastKey());
+        }
+    }
+
+    private void indexar(Tipo tipo, String texto, double peso) {
+        PrefijoTrie.Entrada entrada = new PrefijoTrie.Entrada(texto, peso);
+        for (String clave : claves(texto)) {
+            tries.get(tipo).insertar(clave, entrada);
+        }
+    }
+
+    /**
+     * Minúsculas, sin tildes y con las palabras separadas por un espacio; conserva el espacio
+     * final para que "dr " no encuentre "drago"
+     */
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinMarcas = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        String clave = SEPARADORES.matcher(sinMarcas.toLowerCase(Locale.ROOT)).replaceAll(" ");
+        return clave.stripLeading();
+    }
+
+    // Una clave por palabra: el texto normalizado desde el comienzo de cada palabra
+    static List<String> claves(String texto) {
+        String normalizado = normalizar(texto).strip();
+        List<String> claves = new ArrayList<>();
+        if (normalizado.isEmpty()) {
+            return claves;
+        }
+        claves.add(normalizado);
+        for (int i = normalizado.indexOf(' '); i >= 0; i = normalizado.indexOf(' ', i + 1)) {
+            claves.add(normalizado.substring(i + 1));
+        }
+        return claves;
+    }
+}
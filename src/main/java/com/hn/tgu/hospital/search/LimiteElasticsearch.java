@@ -0,0 +1,72 @@
+package com.hn.tgu.hospital.search;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Límite de llamadas síncronas a Elasticsearch en curso cuando las peticiones van en hilos
+ * virtuales (spring.threads.virtual.enabled).
+ *
+ * El cliente REST espera cada respuesta en un future de Apache con synchronized + wait, y en
+ * Java 21 eso fija el hilo virtual a su carrier durante toda la llamada. El planificador
+ * compensa añadiendo carriers hasta jdk.virtualThreadScheduler.maxPoolSize (256); sin límite,
+ * miles de búsquedas los agotarían y los demás hilos virtuales (también los que solo esperan
+ * a Postgres) dejarían de avanzar. El semáforo deja pasar como mucho
+ * elasticsearch.client.max-blocking-calls llamadas (por defecto el pool de conexiones: más no
+ * pueden estar en vuelo) y el resto espera aparcado, sin ocupar carrier, hasta el presupuesto
+ * de latencia; pasado ese tiempo falla con {@link RejectedExecutionException}.
+ *
+ * Con hilos de plataforma no limita nada: la espera ya la acota el pool de Tomcat.
+ */
+@Component
+public class LimiteElasticsearch {
+
+    private final boolean activo;
+    private final Semaphore permisos;
+    private final long esperaNanos;
+
+    public LimiteElasticsearch(MeterRegistry meterRegistry,
+                               @Value("${spring.threads.virtual.enabled:false}") boolean hilosVirtuales,
+                               @Value("${elasticsearch.client.max-blocking-calls:${elasticsearch.client.max-connections:100}}") int maximo,
+                               @Value("${doctors.search.circuit-breaker.latency-budget:1500ms}") Duration espera) {
+        this.activo = hilosVirtuales;
+        this.permisos = new Semaphore(maximo, true);
+        this.esperaNanos = espera.toNanos();
+
+        if (activo) {
+            Gauge.builder("elasticsearch.client.blocking.waiting", permisos, Semaphore::getQueueLength)
+                    .description("Llamadas síncronas a Elasticsearch esperando turno (hilos virtuales)")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Ejecuta la llamada cuando hay turno; con hilos de plataforma, directamente
+     */
+    public <T> T ejecutar(Supplier<T> llamada) {
+        if (!activo) {
+            return llamada.get();
+        }
+        try {
+            if (!permisos.tryAcquire(esperaNanos, TimeUnit.NANOSECONDS)) {
+                throw new RejectedExecutionException("Demasiadas llamadas a Elasticsearch en curso");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrumpido esperando turno para Elasticsearch", e);
+        }
+        try {
+            return llamada.get();
+        } finally {
+            permisos.release();
+        }
+    }
+}
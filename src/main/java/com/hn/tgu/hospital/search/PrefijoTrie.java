@@ -0,0 +1,315 @@
+package com.hn.tgu.hospital.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Trie comprimido (radix) de claves normalizadas con los K mejores textos de cada subárbol.
+ *
+ * Cada nodo guarda las entradas cuya clave termina en él y los K textos de mayor peso de
+ * todo su subárbol, así que una consulta por prefijo es recorrer el prefijo y devolver la
+ * lista ya calculada. Al insertar o borrar solo se recalculan los nodos del camino.
+ *
+ * Las escrituras deben estar serializadas por quien lo usa; las lecturas no bloquean:
+ * los hijos y las listas de cada nodo son arrays inmutables que se sustituyen enteros,
+ * y un nodo cuya etiqueta cambia se reemplaza por una copia.
+ */
+public class PrefijoTrie {
+
+    /**
+     * Texto sugerido con su peso (mayor primero)
+     */
+    public record Entrada(String texto, double peso) {
+    }
+
+    private static final Entrada[] VACIO = new Entrada[0];
+    private static final Comparator<Entrada> ORDEN = Comparator.comparingDouble(Entrada::peso).reversed()
+            .thenComparing(Entrada::texto);
+
+    private final int k;
+    private final Nodo raiz = new Nodo("");
+
+    public PrefijoTrie(int k) {
+        this.k = k;
+    }
+
+    /**
+     * Hasta limite textos (como mucho K) cuyas claves empiezan por el prefijo ya normalizado
+     */
+    public List<Entrada> buscar(String prefijo, int limite) {
+        Nodo nodo = raiz;
+        int i = 0;
+        while (i < prefijo.length()) {
+            Nodo hijo = nodo.hijo(prefijo.charAt(i));
+            if (hijo == null) {
+                return List.of();
+            }
+            String etiqueta = hijo.etiqueta;
+            int resto = prefijo.length() - i;
+            if (resto <= etiqueta.length()) {
+                // El prefijo acaba dentro de la arista: vale si coincide con su comienzo
+                return etiqueta.regionMatches(0, prefijo, i, resto) ? primeros(hijo.mejores, limite) : List.of();
+            }
+            if (!prefijo.startsWith(etiqueta, i)) {
+                return List.of();
+            }
+            nodo = hijo;
+            i += etiqueta.length();
+        }
+        return primeros(nodo.mejores, limite);
+    }
+
+    /**
+     * Añade la entrada bajo la clave, o actualiza su peso si ya estaba
+     */
+    public void insertar(String clave, Entrada entrada) {
+        List<Nodo> camino = new ArrayList<>();
+        camino.add(raiz);
+        Nodo nodo = raiz;
+        int i = 0;
+        while (true) {
+            if (i == clave.length()) {
+                nodo.propias = conEntrada(nodo.propias, entrada);
+                break;
+            }
+            char c = clave.charAt(i);
+            Nodo hijo = nodo.hijo(c);
+            if (hijo == null) {
+                nodo.ponerHijo(hoja(clave.substring(i), entrada));
+                break;
+            }
+            String etiqueta = hijo.etiqueta;
+            int comun = comun(etiqueta, clave, i);
+            if (comun == etiqueta.length()) {
+                nodo = hijo;
+                camino.add(nodo);
+                i += comun;
+                continue;
+            }
+            // La clave se separa a mitad de la arista: nodo intermedio con la parte común
+            Nodo intermedio = new Nodo(etiqueta.substring(0, comun));
+            intermedio.ponerHijo(hijo.copia(etiqueta.substring(comun)));
+            if (i + comun == clave.length()) {
+                intermedio.propias = new Entrada[]{entrada};
+            } else {
+                intermedio.ponerHijo(hoja(clave.substring(i + comun), entrada));
+            }
+            intermedio.mejores = mejores(intermedio);
+            nodo.ponerHijo(intermedio);
+            break;
+        }
+        for (int j = camino.size() - 1; j >= 0; j--) {
+            Nodo actual = camino.get(j);
+            Entrada[] anteriores = actual.mejores;
+            if (contiene(anteriores, entrada.texto())) {
+                // Cambio de peso de un texto que ya estaba: puede bajar, se recalcula
+                actual.mejores = mejores(actual);
+            } else if (anteriores.length < k || ORDEN.compare(entrada, anteriores[anteriores.length - 1]) < 0) {
+                actual.mejores = conMejor(anteriores, entrada);
+            } else {
+                // No entra en los K de este nodo, así que tampoco en los de sus ancestros
+                break;
+            }
+        }
+    }
+
+    /**
+     * Quita el texto de la clave; los nodos que se quedan vacíos se eliminan o se fusionan
+     */
+    public void borrar(String clave, String texto) {
+        List<Nodo> camino = new ArrayList<>();
+        camino.add(raiz);
+        Nodo nodo = raiz;
+        int i = 0;
+        while (i < clave.length()) {
+            Nodo hijo = nodo.hijo(clave.charAt(i));
+            if (hijo == null || !clave.startsWith(hijo.etiqueta, i)) {
+                return;
+            }
+            nodo = hijo;
+            camino.add(nodo);
+            i += hijo.etiqueta.length();
+        }
+        nodo.propias = sinTexto(nodo.propias, texto);
+
+        for (int j = camino.size() - 1; j >= 0; j--) {
+            Nodo actual = camino.get(j);
+            if (j < camino.size() - 1 && !contiene(actual.mejores, texto)) {
+                // El texto no estaba entre los K de este nodo: de aquí hacia arriba no cambia nada
+                break;
+            }
+            if (j > 0 && actual.propias.length == 0 && actual.hijos.nodos.length <= 1) {
+                Nodo padre = camino.get(j - 1);
+                if (actual.hijos.nodos.length == 0) {
+                    padre.quitarHijo(actual.etiqueta.charAt(0));
+                } else {
+                    // Un solo hijo y nada propio: se une con el hijo en una sola arista
+                    Nodo unico = actual.hijos.nodos[0];
+                    padre.ponerHijo(unico.copia(actual.etiqueta + unico.etiqueta));
+                }
+            } else {
+                actual.mejores = mejores(actual);
+            }
+        }
+    }
+
+    /**
+     * Número de nodos, para estimar el tamaño
+     */
+    public int nodos() {
+        return contar(raiz);
+    }
+
+    private int contar(Nodo nodo) {
+        int total = 1;
+        for (Nodo hijo : nodo.hijos.nodos) {
+            total += contar(hijo);
+        }
+        return total;
+    }
+
+    private Nodo hoja(String etiqueta, Entrada entrada) {
+        Nodo hoja = new Nodo(etiqueta);
+        hoja.propias = new Entrada[]{entrada};
+        hoja.mejores = hoja.propias;
+        return hoja;
+    }
+
+    // K mejores textos distintos entre las entradas propias y los mejores de cada hijo
+    private Entrada[] mejores(Nodo nodo) {
+        List<Entrada> candidatas = new ArrayList<>(Arrays.asList(nodo.propias));
+        for (Nodo hijo : nodo.hijos.nodos) {
+            candidatas.addAll(Arrays.asList(hijo.mejores));
+        }
+        candidatas.sort(ORDEN);
+        List<Entrada> mejores = new ArrayList<>(Math.min(k, candidatas.size()));
+        for (Entrada candidata : candidatas) {
+            if (mejores.size() == k) {
+                break;
+            }
+            // El mismo texto puede llegar por varias claves (una por palabra)
+            if (mejores.stream().noneMatch(e -> e.texto().equals(candidata.texto()))) {
+                mejores.add(candidata);
+            }
+        }
+        return mejores.toArray(VACIO);
+    }
+
+    // Inserta una entrada nueva en una lista ya ordenada, quedándose con K
+    private Entrada[] conMejor(Entrada[] mejores, Entrada entrada) {
+        int posicion = 0;
+        while (posicion < mejores.length && ORDEN.compare(mejores[posicion], entrada) < 0) {
+            posicion++;
+        }
+        Entrada[] resultado = new Entrada[Math.min(k, mejores.length + 1)];
+        System.arraycopy(mejores, 0, resultado, 0, posicion);
+        resultado[posicion] = entrada;
+        System.arraycopy(mejores, posicion, resultado, posicion + 1, resultado.length - posicion - 1);
+        return resultado;
+    }
+
+    private static boolean contiene(Entrada[] entradas, String texto) {
+        for (Entrada entrada : entradas) {
+            if (entrada.texto().equals(texto)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Entrada> primeros(Entrada[] entradas, int limite) {
+        return List.of(Arrays.copyOf(entradas, Math.min(limite, entradas.length)));
+    }
+
+    private static Entrada[] conEntrada(Entrada[] entradas, Entrada entrada) {
+        Entrada[] resultado = sinTexto(entradas, entrada.texto());
+        resultado = Arrays.copyOf(resultado, resultado.length + 1);
+        resultado[resultado.length - 1] = entrada;
+        return resultado;
+    }
+
+    private static Entrada[] sinTexto(Entrada[] entradas, String texto) {
+        return Arrays.stream(entradas).filter(e -> !e.texto().equals(texto)).toArray(Entrada[]::new);
+    }
+
+    private static int comun(String etiqueta, String clave, int desde) {
+        int maximo = Math.min(etiqueta.length(), clave.length() - desde);
+        int n = 0;
+        while (n < maximo && etiqueta.charAt(n) == clave.charAt(desde + n)) {
+            n++;
+        }
+        return n;
+    }
+
+    // Hijos ordenados por su primer carácter, en arrays paralelos que no se modifican
+    private record Hijos(char[] primeros, Nodo[] nodos) {
+        static final Hijos NINGUNO = new Hijos(new char[0], new Nodo[0]);
+    }
+
+    private static final class Nodo {
+
+        final String etiqueta;
+        volatile Hijos hijos = Hijos.NINGUNO;
+        volatile Entrada[] propias = VACIO;
+        volatile Entrada[] mejores = VACIO;
+
+        Nodo(String etiqueta) {
+            this.etiqueta = etiqueta;
+        }
+
+        Nodo hijo(char c) {
+            Hijos actuales = hijos;
+            int posicion = Arrays.binarySearch(actuales.primeros, c);
+            return posicion >= 0 ? actuales.nodos[posicion] : null;
+        }
+
+        // Añade o sustituye el hijo que empieza por el mismo carácter
+        void ponerHijo(Nodo hijo) {
+            Hijos actuales = hijos;
+            char c = hijo.etiqueta.charAt(0);
+            int posicion = Arrays.binarySearch(actuales.primeros, c);
+            if (posicion >= 0) {
+                Nodo[] nodos = actuales.nodos.clone();
+                nodos[posicion] = hijo;
+                hijos = new Hijos(actuales.primeros, nodos);
+                return;
+            }
+            int insercion = -posicion - 1;
+            char[] primeros = new char[actuales.primeros.length + 1];
+            Nodo[] nodos = new Nodo[actuales.nodos.length + 1];
+            System.arraycopy(actuales.primeros, 0, primeros, 0, insercion);
+            System.arraycopy(actuales.nodos, 0, nodos, 0, insercion);
+            primeros[insercion] = c;
+            nodos[insercion] = hijo;
+            System.arraycopy(actuales.primeros, insercion, primeros, insercion + 1, actuales.primeros.length - insercion);
+            System.arraycopy(actuales.nodos, insercion, nodos, insercion + 1, actuales.nodos.length - insercion);
+            hijos = new Hijos(primeros, nodos);
+        }
+
+        void quitarHijo(char c) {
+            Hijos actuales = hijos;
+            int posicion = Arrays.binarySearch(actuales.primeros, c);
+            if (posicion < 0) {
+                return;
+            }
+            char[] primeros = new char[actuales.primeros.length - 1];
+            Nodo[] nodos = new Nodo[actuales.nodos.length - 1];
+            System.arraycopy(actuales.primeros, 0, primeros, 0, posicion);
+            System.arraycopy(actuales.nodos, 0, nodos, 0, posicion);
+            System.arraycopy(actuales.primeros, posicion + 1, primeros, posicion, primeros.length - posicion);
+            System.arraycopy(actuales.nodos, posicion + 1, nodos, posicion, nodos.length - posicion);
+            hijos = new Hijos(primeros, nodos);
+        }
+
+        // Mismo contenido con otra etiqueta (al partir o fusionar aristas)
+        Nodo copia(String etiqueta) {
+            Nodo copia = new Nodo(etiqueta);
+            copia.hijos = hijos;
+            copia.propias = propias;
+            copia.mejores = mejores;
+            return copia;
+        }
+    }
+}
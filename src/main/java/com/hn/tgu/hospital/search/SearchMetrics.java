@@ -0,0 +1,114 @@
+package com.hn.tgu.hospital.search;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Métricas y log de consultas lentas de las búsquedas de doctores.
+ *
+ * Por cada búsqueda registra un timer (doctors.search) y el número de resultados
+ * (doctors.search.results) etiquetados por operación y modo: elasticsearch, memoria (autocompletado),
+ * jpa_fallback o error. Las caídas a JPA se cuentan aparte por causa (doctors.search.fallbacks)
+ * y las partes que faltan en una búsqueda combinada, por parte y causa (doctors.search.multi.partial).
+ * La consulta se recibe como Supplier y solo se convierte a texto si se va a escribir:
+ * en DEBUG siempre, y en WARN para una muestra de las que superan el umbral de lentitud.
+ */
+@Component
+public class SearchMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchMetrics.class);
+
+    public enum Modo {
+        ELASTICSEARCH("elasticsearch"),
+        MEMORIA("memoria"),
+        JPA_FALLBACK("jpa_fallback"),
+        ERROR("error");
+
+        private final String etiqueta;
+
+        Modo(String etiqueta) {
+            this.etiqueta = etiqueta;
+        }
+
+        public String etiqueta() {
+            return etiqueta;
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final long umbralLentaNanos;
+    private final double muestreoLentas;
+
+    public SearchMetrics(MeterRegistry meterRegistry,
+                         @Value("${doctors.search.slow-query-threshold:500ms}") Duration umbralLenta,
+                         @Value("${doctors.search.slow-query-sample-rate:0.1}") double muestreoLentas) {
+        this.meterRegistry = meterRegistry;
+        this.umbralLentaNanos = umbralLenta.toNanos();
+        this.muestreoLentas = muestreoLentas;
+    }
+
+    /**
+     * Registra una búsqueda terminada que empezó en inicioNanos (System.nanoTime())
+     */
+    public void registrar(String operacion, Modo modo, long inicioNanos, int resultados, Supplier<String> consulta) {
+        long duracion = System.nanoTime() - inicioNanos;
+
+        Timer.builder("doctors.search")
+                .description("Duración de las búsquedas de doctores")
+                .tag("operacion", operacion)
+                .tag("modo", modo.etiqueta())
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(duracion, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("doctors.search.results")
+                .description("Número de doctores devueltos por búsqueda")
+                .tag("operacion", operacion)
+                .tag("modo", modo.etiqueta())
+                .register(meterRegistry)
+                .record(resultados);
+
+        boolean lenta = duracion >= umbralLentaNanos;
+        if (lenta && logger.isWarnEnabled() && ThreadLocalRandom.current().nextDouble() < muestreoLentas) {
+            logger.warn("🐢 Búsqueda lenta {} ({}) en {} ms con {} resultados: {}",
+                    operacion, modo.etiqueta(), TimeUnit.NANOSECONDS.toMillis(duracion), resultados, consulta.get());
+        } else if (logger.isDebugEnabled()) {
+            logger.debug("🔍 Búsqueda {} ({}) en {} ms con {} resultados: {}",
+                    operacion, modo.etiqueta(), TimeUnit.NANOSECONDS.toMillis(duracion), resultados, consulta.get());
+        }
+    }
+
+    /**
+     * Cuenta una caída a JPA por fallo de Elasticsearch
+     */
+    public void fallback(String operacion, Throwable causa) {
+        Counter.builder("doctors.search.fallbacks")
+                .description("Búsquedas que pasaron a JPA por un fallo de Elasticsearch")
+                .tag("operacion", operacion)
+                .tag("causa", causa.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Cuenta una parte de una búsqueda combinada que se devolvió sin ella (timeout o error)
+     */
+    public void parcial(String parte, String causa) {
+        Counter.builder("doctors.search.multi.partial")
+                .description("Partes de búsquedas combinadas que no llegaron a tiempo o fallaron")
+                .tag("parte", parte)
+                .tag("causa", causa)
+                .register(meterRegistry)
+                .increment();
+    }
+}
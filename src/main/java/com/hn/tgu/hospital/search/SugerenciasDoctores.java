@@ -0,0 +1,153 @@
+package com.hn.tgu.hospital.search;
+
+import com.hn.tgu.hospital.cache.DoctorInvalidationBus;
+import com.hn.tgu.hospital.repository.DoctorRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Autocompletado en memoria sobre {@link IndiceSugerencias}, sin ir a Elasticsearch.
+ *
+ * El índice se construye con una consulta de solo columnas al arrancar y luego se actualiza
+ * doctor a doctor con los ids que llegan por {@link DoctorInvalidationBus}, agrupados en cada
+ * ciclo de doctors.suggest.refresh-ms. Con {@link DoctorInvalidationBus#TODOS} se reconstruye
+ * entero y se sustituye de una vez. Las construcciones completas (segundos con cientos de miles
+ * de doctores) van en un hilo propio para no retener el planificador compartido con el outbox
+ * y los demás @Scheduled; mientras duran, las escrituras se acumulan y se aplican después.
+ * Mientras no está construido, {@link #sugerir} devuelve vacío y se usa el camino anterior.
+ */
+@Component
+public class SugerenciasDoctores {
+
+    private static final Logger logger = LoggerFactory.getLogger(SugerenciasDoctores.class);
+
+    private final DoctorRepository doctorRepository;
+    private final int maxSugerencias;
+    private final Set<String> pendientes = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean construyendo = new AtomicBoolean();
+    private final ExecutorService construccion = Executors.newSingleThreadExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "sugerencias-construccion");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+    private volatile IndiceSugerencias indice;
+
+    public SugerenciasDoctores(DoctorRepository doctorRepository,
+                               DoctorInvalidationBus invalidationBus,
+                               MeterRegistry meterRegistry,
+                               @Value("${doctors.suggest.max-suggestions:10}") int maxSugerencias) {
+        this.doctorRepository = doctorRepository;
+        this.maxSugerencias = maxSugerencias;
+        invalidationBus.suscribir(pendientes::add);
+
+        Gauge.builder("doctors.suggest.doctors", this, s -> s.indice != null ? s.indice.doctores() : 0)
+                .description("Doctores en el índice de autocompletado en memoria")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sugerencias de los tipos pedidos, o vacío si el índice aún no está construido
+     */
+    public Optional<List<String>> sugerir(String prefijo, Collection<IndiceSugerencias.Tipo> tipos, int limite) {
+        IndiceSugerencias actual = indice;
+        if (actual == null) {
+            return Optional.empty();
+        }
+        return Optional.of(actual.sugerir(prefijo, tipos, Math.min(limite, maxSugerencias)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void construirAlArrancar() {
+        lanzarConstruccion();
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        construccion.shutdownNow();
+    }
+
+    /**
+     * Lanza la construcción si hace falta (o sigue en curso) y si no aplica las escrituras recibidas
+     */
+    @Scheduled(fixedDelayString = "${doctors.suggest.refresh-ms:1000}")
+    public void aplicarCambios() {
+        if (construyendo.get()) {
+            return;
+        }
+        IndiceSugerencias actual = indice;
+        if (actual == null || pendientes.remove(DoctorInvalidationBus.TODOS)) {
+            lanzarConstruccion();
+            return;
+        }
+
+        List<String> ids = new ArrayList<>(pendientes);
+        for (String id : ids) {
+            // Se quita antes de leer: una escritura posterior lo vuelve a dejar pendiente
+            pendientes.remove(id);
+            try {
+                List<Object[]> filas = doctorRepository.findDatosSugerenciasById(id);
+                actual.actualizar(id, filas.isEmpty() ? null : ficha(filas.get(0)));
+            } catch (Exception e) {
+                pendientes.add(id);
+                logger.warn("⚠️ No se pudo actualizar el autocompletado del doctor {}: {}", id, e.getMessage());
+            }
+        }
+    }
+
+    // Una sola construcción a la vez; lo que se escriba mientras tanto queda en pendientes
+    private void lanzarConstruccion() {
+        if (!construyendo.compareAndSet(false, true)) {
+            return;
+        }
+        pendientes.clear();
+        try {
+            construccion.execute(() -> {
+                try {
+                    reconstruir();
+                } catch (Exception e) {
+                    pendientes.add(DoctorInvalidationBus.TODOS);
+                    logger.warn("⚠️ No se pudo construir el índice de autocompletado: {}", e.getMessage());
+                } finally {
+                    construyendo.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Executor cerrado durante el apagado
+            construyendo.set(false);
+        }
+    }
+
+    private void reconstruir() {
+        long inicio = System.currentTimeMillis();
+        IndiceSugerencias nuevo = new IndiceSugerencias(maxSugerencias);
+        for (Object[] fila : doctorRepository.findDatosSugerencias()) {
+            nuevo.actualizar((String) fila[0], ficha(fila));
+        }
+        indice = nuevo;
+        logger.info("🔤 Índice de autocompletado construido: {} doctores, {} nodos en {} ms",
+                nuevo.doctores(), nuevo.nodos(), System.currentTimeMillis() - inicio);
+    }
+
+    private static IndiceSugerencias.Ficha ficha(Object[] fila) {
+        return new IndiceSugerencias.Ficha((String) fila[1], (String) fila[2], (String) fila[3],
+                ((Number) fila[4]).doubleValue());
+    }
+}
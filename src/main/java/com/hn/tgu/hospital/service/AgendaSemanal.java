@@ -0,0 +1,148 @@
+package com.hn.tgu.hospital.service;
+
+import com.hn.tgu.hospital.entity.Doctor;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Horarios disponibles de un doctor como un bitset por día de la semana.
+ *
+ * El bit i de un día indica que el turno que empieza en inicio + i * duracion está libre,
+ * donde inicio es el horarioEntrada del doctor y duracion su duracionCita. Los turnos
+ * libres consecutivos se agrupan en franjas [inicio, fin) en minutos del día, que es lo
+ * que se guarda en la tabla doctor_franjas para poder consultarlo con índices.
+ */
+public final class AgendaSemanal {
+
+    public static final int DIAS = 7;
+
+    private static final int DURACION_POR_DEFECTO = 30;
+    private static final int MINUTOS_DIA = 24 * 60;
+
+    private final int inicio;
+    private final int duracion;
+    private final BitSet[] dias = new BitSet[DIAS];
+
+    private AgendaSemanal(int inicio, int duracion) {
+        this.inicio = inicio;
+        this.duracion = duracion;
+        for (int i = 0; i < DIAS; i++) {
+            dias[i] = new BitSet();
+        }
+    }
+
+    /**
+     * Franja libre: día de la semana (1 = lunes ... 7 = domingo) y minutos [inicio, fin)
+     */
+    public record Franja(int dia, int inicio, int fin) {
+    }
+
+    public static AgendaSemanal de(Doctor doctor) {
+        int duracion = doctor.getDuracionCita() > 0 ? doctor.getDuracionCita() : DURACION_POR_DEFECTO;
+        int entrada = minuto(doctor.getHorarioEntrada());
+        AgendaSemanal agenda = new AgendaSemanal(Math.max(entrada, 0), duracion);
+
+        Map<String, List<String>> horarios = doctor.getHorariosDisponibles();
+        if (horarios == null) {
+            return agenda;
+        }
+        for (Map.Entry<String, List<String>> entry : horarios.entrySet()) {
+            int dia = dia(entry.getKey());
+            if (dia < 0 || entry.getValue() == null) {
+                continue;
+            }
+            for (String hora : entry.getValue()) {
+                int turno = agenda.turno(minuto(hora));
+                if (turno >= 0) {
+                    agenda.dias[dia - 1].set(turno);
+                }
+            }
+        }
+        return agenda;
+    }
+
+    /**
+     * Indica si el turno que contiene el minuto dado está libre
+     */
+    public boolean libre(int dia, int minuto) {
+        if (dia < 1 || dia > DIAS || minuto < inicio) {
+            return false;
+        }
+        return dias[dia - 1].get((minuto - inicio) / duracion);
+    }
+
+    /**
+     * Turnos libres consecutivos agrupados en franjas, ordenadas por día y hora
+     */
+    public List<Franja> franjas() {
+        List<Franja> franjas = new ArrayList<>();
+        for (int d = 0; d < DIAS; d++) {
+            BitSet bits = dias[d];
+            int desde = bits.nextSetBit(0);
+            while (desde >= 0) {
+                int hasta = bits.nextClearBit(desde);
+                franjas.add(new Franja(d + 1, inicio + desde * duracion, inicio + hasta * duracion));
+                desde = bits.nextSetBit(hasta);
+            }
+        }
+        return franjas;
+    }
+
+    // Posición del turno en el bitset, o -1 si la hora no cae en la rejilla del doctor
+    private int turno(int minuto) {
+        if (minuto < inicio || minuto >= MINUTOS_DIA || (minuto - inicio) % duracion != 0) {
+            return -1;
+        }
+        return (minuto - inicio) / duracion;
+    }
+
+    /**
+     * Día de la semana (1 = lunes ... 7 = domingo) a partir del nombre en español,
+     * con o sin tildes; -1 si no se reconoce
+     */
+    public static int dia(String nombre) {
+        if (nombre == null) {
+            return -1;
+        }
+        String normalizado = Normalizer.normalize(nombre.trim().toLowerCase(Locale.ROOT), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "");
+        return switch (normalizado) {
+            case "lunes" -> 1;
+            case "martes" -> 2;
+            case "miercoles" -> 3;
+            case "jueves" -> 4;
+            case "viernes" -> 5;
+            case "sabado" -> 6;
+            case "domingo" -> 7;
+            default -> -1;
+        };
+    }
+
+    /**
+     * Minuto del día de una hora "HH:mm"; -1 si no es válida
+     */
+    public static int minuto(String hora) {
+        if (hora == null) {
+            return -1;
+        }
+        String[] partes = hora.trim().split(":");
+        if (partes.length != 2) {
+            return -1;
+        }
+        try {
+            int horas = Integer.parseInt(partes[0]);
+            int minutos = Integer.parseInt(partes[1]);
+            if (horas < 0 || horas > 23 || minutos < 0 || minutos > 59) {
+                return -1;
+            }
+            return horas * 60 + minutos;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.hn.tgu.hospital.service;
+
+import com.hn.tgu.hospital.cache.ReferenceData;
+import com.hn.tgu.hospital.cache.ReferenceDataCache;
+import com.hn.tgu.hospital.config.AsyncSearchConfig;
+import com.hn.tgu.hospital.elasticsearch.DoctorElasticsearchQueries;
+import com.hn.tgu.hospital.search.DoctorSearchRepository;
+import com.hn.tgu.hospital.search.ElasticsearchCircuitBreaker;
+import com.hn.tgu.hospital.search.SearchMetrics;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Búsqueda multicriterio repartida en partes independientes que se lanzan a la vez.
+ *
+ * Las partes son los doctores (Elasticsearch con fallback a JPA), los facets (solo
+ * agregaciones, size 0), el total (_count) y los hospitales y especialidades de la foto de
+ * {@link ReferenceDataCache}. Las tres primeras usan la misma query, así que cuadran entre sí.
+ * Se espera a todas como mucho hasta el plazo de la petición y la respuesta se arma con las
+ * que llegaron; las que no llegaron a tiempo o fallaron se listan en "partial" en lugar de
+ * hacer fallar la búsqueda entera. Las partes tardías no se cancelan: terminan y se descartan.
+ */
+@Service
+public class BusquedaCombinadaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BusquedaCombinadaService.class);
+
+    public static final String DOCTORES = "doctors";
+    public static final String FACETS = "facets";
+    public static final String TOTAL = "totalHits";
+    public static final String REFERENCIA = "reference";
+
+    private final DoctorSearchService doctorSearchService;
+    private final DoctorSearchRepository doctorSearchRepository;
+    private final ElasticsearchCircuitBreaker circuitBreaker;
+    private final ReferenceDataCache referenceDataCache;
+    private final SearchMetrics searchMetrics;
+    private final Executor busquedasExecutor;
+    private final Duration plazoPorDefecto;
+    private final Duration plazoMaximo;
+
+    public BusquedaCombinadaService(DoctorSearchService doctorSearchService,
+                                    DoctorSearchRepository doctorSearchRepository,
+                                    ElasticsearchCircuitBreaker circuitBreaker,
+                                    ReferenceDataCache referenceDataCache,
+                                    SearchMetrics searchMetrics,
+                                    @Qualifier(AsyncSearchConfig.EXECUTOR) Executor busquedasExecutor,
+                                    @Value("${doctors.search.multi.deadline:800ms}") Duration plazoPorDefecto,
+                                    @Value("${doctors.search.multi.max-deadline:5s}") Duration plazoMaximo) {
+        this.doctorSearchService = doctorSearchService;
+        this.doctorSearchRepository = doctorSearchRepository;
+        this.circuitBreaker = circuitBreaker;
+        this.referenceDataCache = referenceDataCache;
+        this.searchMetrics = searchMetrics;
+        this.busquedasExecutor = busquedasExecutor;
+        this.plazoPorDefecto = plazoPorDefecto;
+        this.plazoMaximo = plazoMaximo;
+    }
+
+    /**
+     * Lanza las partes y completa con la respuesta combinada al llegar todas o al vencer el
+     * plazo (null = doctors.search.multi.deadline, limitado a max-deadline)
+     */
+    public CompletableFuture<Map<String, Object>> buscar(String query, String specialty, String hospital,
+                                                         Integer minExperience, Integer maxExperience,
+                                                         Double minRating, Double maxRating,
+                                                         Boolean available, List<String> tags,
+                                                         Duration plazo) {
+        long plazoMs = plazo(plazo).toMillis();
+        QueryBuilder consulta = DoctorSearchRepository.consultaAvanzada(
+            query, specialty, hospital, minExperience, maxExperience, minRating, maxRating, available, tags).query();
+
+        Map<String, CompletableFuture<?>> partes = new LinkedHashMap<>();
+        partes.put(DOCTORES, doctorSearchService.buscarConFacetsAsync(
+            query, specialty, hospital, minExperience, maxExperience, minRating, maxRating, available, tags));
+        partes.put(FACETS, circuitBreaker.ejecutarAsync(
+                () -> doctorSearchRepository.aggregationsAsync(consulta, DoctorElasticsearchQueries.facetas()))
+            .thenApply(DoctorElasticsearchQueries::leerFacetas));
+        partes.put(TOTAL, circuitBreaker.ejecutarAsync(() -> doctorSearchRepository.countAsync(consulta)));
+        partes.put(REFERENCIA, referencia());
+
+        return CompletableFuture.allOf(partes.values().toArray(CompletableFuture[]::new))
+            // Los fallos se leen parte a parte al combinar
+            .exceptionally(e -> null)
+            .completeOnTimeout(null, plazoMs, TimeUnit.MILLISECONDS)
+            .thenApply(ignorado -> combinar(partes, plazoMs));
+    }
+
+    private Duration plazo(Duration pedido) {
+        if (pedido == null || pedido.isNegative() || pedido.isZero()) {
+            return plazoPorDefecto;
+        }
+        return pedido.compareTo(plazoMaximo) > 0 ? plazoMaximo : pedido;
+    }
+
+    /**
+     * Hospitales y especialidades de la foto en memoria; solo la primera vez consulta
+     * Postgres, por eso va al executor de búsquedas y no al hilo que llama
+     */
+    private CompletableFuture<Map<String, Object>> referencia() {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                ReferenceData foto = referenceDataCache.obtener();
+                Map<String, Object> referencia = new LinkedHashMap<>();
+                referencia.put("hospitals", foto.hospitals().values());
+                referencia.put("specialties", foto.specialties().values());
+                return referencia;
+            }, busquedasExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private Map<String, Object> combinar(Map<String, CompletableFuture<?>> partes, long plazoMs) {
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        List<String> parciales = new ArrayList<>();
+        partes.forEach((nombre, parte) -> {
+            if (!parte.isDone()) {
+                parciales.add(nombre);
+                searchMetrics.parcial(nombre, "timeout");
+            } else if (parte.isCompletedExceptionally()) {
+                parciales.add(nombre);
+                searchMetrics.parcial(nombre, "error");
+            } else {
+                respuesta.put(nombre, parte.join());
+            }
+        });
+        if (!parciales.isEmpty()) {
+            logger.debug("⏱️ Búsqueda combinada sin {} (plazo {} ms)", parciales, plazoMs);
+        }
+        respuesta.put("partial", parciales);
+        respuesta.put("deadlineMs", plazoMs);
+        return respuesta;
+    }
+}
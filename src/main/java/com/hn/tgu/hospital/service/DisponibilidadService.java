@@ -0,0 +1,121 @@
+package com.hn.tgu.hospital.service;
+
+import com.hn.tgu.hospital.dto.DoctorDTO;
+import com.hn.tgu.hospital.entity.Doctor;
+import com.hn.tgu.hospital.entity.DoctorFranja;
+import com.hn.tgu.hospital.mapper.DoctorMapper;
+import com.hn.tgu.hospital.repository.DoctorFranjaRepository;
+import com.hn.tgu.hospital.repository.DoctorRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Índice de disponibilidad: mantiene la tabla doctor_franjas a partir de los horarios
+ * disponibles de cada doctor y responde "quién está libre el día D a la hora T" sin
+ * cargar ni parsear los horarios de todos los doctores.
+ *
+ * Flyway no se ejecuta automáticamente y con ddl-auto la tabla se crea vacía, así que al
+ * arrancar se generan desde Java las franjas de los doctores que no tienen ninguna.
+ */
+@Service
+public class DisponibilidadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DisponibilidadService.class);
+
+    private static final int LOTE_RECONSTRUCCION = 500;
+
+    @Autowired
+    private DoctorFranjaRepository doctorFranjaRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private DoctorMapper doctorMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${doctors.disponibilidad.rebuild-on-startup:true}")
+    private boolean reconstruirAlArrancar;
+
+    /**
+     * Genera las franjas de los doctores que no tienen ninguna, por lotes y cada lote en su
+     * transacción. Los doctores sin turnos libres se recalculan en cada arranque (no dejan filas)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruirPendientes() {
+        if (!reconstruirAlArrancar) {
+            return;
+        }
+        try {
+            List<String> ids = doctorFranjaRepository.findDoctorIdsSinFranjas();
+            if (ids.isEmpty()) {
+                return;
+            }
+            TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+            for (int desde = 0; desde < ids.size(); desde += LOTE_RECONSTRUCCION) {
+                List<String> lote = ids.subList(desde, Math.min(desde + LOTE_RECONSTRUCCION, ids.size()));
+                transaccion.executeWithoutResult(status -> doctorRepository.findAllById(lote).forEach(this::indexar));
+            }
+            logger.info("🗓️ Franjas libres generadas para {} doctores", ids.size());
+        } catch (Exception e) {
+            logger.error("❌ Error generando las franjas libres de los doctores", e);
+        }
+    }
+
+    /**
+     * Regenera las franjas de un doctor; se llama dentro de la transacción de la escritura
+     */
+    @Transactional
+    public void indexar(Doctor doctor) {
+        doctorFranjaRepository.deleteByDoctorId(doctor.getId());
+        List<DoctorFranja> franjas = AgendaSemanal.de(doctor).franjas().stream()
+                .map(franja -> new DoctorFranja(doctor.getId(), franja.dia(), franja.inicio(), franja.fin()))
+                .collect(Collectors.toList());
+        doctorFranjaRepository.saveAll(franjas);
+    }
+
+    /**
+     * Borra las franjas de un doctor eliminado
+     */
+    @Transactional
+    public void eliminar(String doctorId) {
+        doctorFranjaRepository.deleteByDoctorId(doctorId);
+    }
+
+    /**
+     * Doctores con algún turno libre que se solapa con [desde, hasta) (minutos del día) el día dado
+     */
+    @Transactional(readOnly = true)
+    public List<DoctorDTO> buscarLibres(int dia, int desde, int hasta, String specialty, String hospital, int limit) {
+        List<String> ids = doctorFranjaRepository.findDoctorIdsLibres(dia, desde, hasta, specialty, hospital,
+                PageRequest.of(0, limit));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        // findAllById no respeta el orden de los ids, que ya vienen por rating
+        Map<String, Doctor> doctores = doctorRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Doctor::getId, Function.identity()));
+        return ids.stream()
+                .map(doctores::get)
+                .filter(Objects::nonNull)
+                .map(doctorMapper::toDTO)
+                .collect(Collectors.toList());
+    }
+}
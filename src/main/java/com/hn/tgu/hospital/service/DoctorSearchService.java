@@ -1,22 +1,48 @@
 package com.hn.tgu.hospital.service;
 
+import com.hn.tgu.hospital.config.AsyncSearchConfig;
 import com.hn.tgu.hospital.dto.DoctorDTO;
+import com.hn.tgu.hospital.elasticsearch.DoctorBulkIndexer;
 import com.hn.tgu.hospital.entity.Doctor;
 import com.hn.tgu.hospital.mapper.DoctorMapper;
 import com.hn.tgu.hospital.repository.DoctorRepository;
+import com.hn.tgu.hospital.repository.DoctorSpecifications;
+import com.hn.tgu.hospital.repository.FuncionesBusqueda;
 import com.hn.tgu.hospital.search.DoctorIndex;
 import com.hn.tgu.hospital.search.DoctorSearchRepository;
+import com.hn.tgu.hospital.search.ElasticsearchCircuitBreaker;
+import com.hn.tgu.hospital.search.IndiceSugerencias;
+import com.hn.tgu.hospital.search.SearchMetrics;
+import com.hn.tgu.hospital.search.SugerenciasDoctores;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 public class DoctorSearchService {
 
+    private static final Logger logger = LoggerFactory.getLogger(DoctorSearchService.class);
+
     @Autowired
     private DoctorSearchRepository doctorSearchRepository;
 
@@ -26,6 +52,29 @@ public class DoctorSearchService {
     @Autowired
     private DoctorMapper doctorMapper;
 
+    @Autowired
+    private SearchMetrics searchMetrics;
+
+    @Autowired
+    private ElasticsearchCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private FuncionesBusqueda funcionesBusqueda;
+
+    @Autowired
+    private SugerenciasDoctores sugerenciasDoctores;
+
+    @Autowired
+    private DoctorBulkIndexer doctorBulkIndexer;
+
+    @Autowired
+    @Qualifier(AsyncSearchConfig.EXECUTOR)
+    private Executor busquedasExecutor;
+
+    // Máximo de doctores que devuelve la búsqueda JPA, igual que el size de Elasticsearch
+    @Value("${doctors.search.jpa.max-results:100}")
+    private int maxResultadosJPA;
+
     /**
      * Búsqueda avanzada con facets usando Elasticsearch
      */
@@ -33,62 +82,84 @@ public class DoctorSearchService {
                                           Integer minExperience, Integer maxExperience, 
                                           Double minRating, Double maxRating, 
                                           Boolean available, List<String> tags) {
-        try {
-            System.out.println("🔍 [DoctorSearchService] Intentando búsqueda con Elasticsearch...");
-            
-            // Usar Elasticsearch real
-            List<DoctorIndex> results = doctorSearchRepository.searchAdvanced(
-                query, specialty, hospital, minExperience, maxExperience, 
-                minRating, maxRating, available, tags);
-            
-            System.out.println("✅ [DoctorSearchService] Búsqueda Elasticsearch exitosa: " + results.size() + " resultados");
-            
-            return results.stream()
-                    .map(this::convertToDoctorDTO)
-                    .collect(Collectors.toList());
-                    
-        } catch (Exception e) {
-            System.err.println("❌ Error en búsqueda Elasticsearch: " + e.getMessage());
-            System.err.println("🔄 [DoctorSearchService] Fallback a JPA...");
-            
-            // Fallback a JPA
-            return buscarConJPA(query, specialty, hospital, minExperience, maxExperience, minRating, maxRating, available, tags);
-        }
+        SearchSourceBuilder consulta = DoctorSearchRepository.consultaAvanzada(
+            query, specialty, hospital, minExperience, maxExperience, minRating, maxRating, available, tags);
+        return buscar("avanzada", consulta::toString,
+            () -> doctorSearchRepository.search(consulta),
+            () -> buscarConJPA(query, specialty, hospital, minExperience, maxExperience, minRating, maxRating, available, tags));
+    }
+
+    /**
+     * Como {@link #buscarConFacets}, sin bloquear el hilo que llama mientras responde Elasticsearch
+     */
+    public CompletableFuture<List<DoctorDTO>> buscarConFacetsAsync(String query, String specialty, String hospital,
+                                                                  Integer minExperience, Integer maxExperience,
+                                                                  Double minRating, Double maxRating,
+                                                                  Boolean available, List<String> tags) {
+        SearchSourceBuilder consulta = DoctorSearchRepository.consultaAvanzada(
+            query, specialty, hospital, minExperience, maxExperience, minRating, maxRating, available, tags);
+        return buscarAsync("avanzada", consulta::toString,
+            () -> doctorSearchRepository.searchAsync(consulta),
+            () -> buscarConJPA(query, specialty, hospital, minExperience, maxExperience, minRating, maxRating, available, tags));
     }
 
     /**
-     * Búsqueda con sugerencias usando Elasticsearch
+     * Doctores mientras se escribe: completion suggester sobre el nombre; sin Elasticsearch,
+     * nombre que contiene el texto
      */
     public List<DoctorDTO> buscarConSugerencias(String query) {
+        return buscar("sugerencias", () -> "prefix=" + query,
+            () -> doctorSearchRepository.sugerirDoctores(query, 10),
+            () -> doctorRepository.findBy(
+                    DoctorSpecifications.nombreContiene(query, funcionesBusqueda.nombreNormalizado()),
+                    q -> q.sortBy(Sort.by(Sort.Order.desc("rating"), Sort.Order.asc("id"))).limit(10).all())
+                .stream()
+                .map(doctorMapper::toDTO)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Sugerencias del índice en memoria; mientras se construye, del completion suggester de
+     * Elasticsearch o, sin Elasticsearch, nombres con un prefijo en Postgres
+     */
+    public List<String> obtenerSugerencias(String prefix, Set<IndiceSugerencias.Tipo> tipos) {
+        long inicio = System.nanoTime();
+        Optional<List<String>> enMemoria = sugerenciasDoctores.sugerir(prefix, tipos, 10);
+        if (enMemoria.isPresent()) {
+            searchMetrics.registrar("autocompletado", SearchMetrics.Modo.MEMORIA, inicio,
+                    enMemoria.get().size(), () -> "prefix=" + prefix + " tipos=" + tipos);
+            return enMemoria.get();
+        }
         try {
-            System.out.println("🔍 [DoctorSearchService] Búsqueda con sugerencias en Elasticsearch: " + query);
-            
-            // Usar Elasticsearch real
-            List<DoctorIndex> results = doctorSearchRepository.searchAdvanced(
-                query, null, null, null, null, null, null, null, null);
-            
-            return results.stream()
-                    .map(this::convertToDoctorDTO)
-                    .collect(Collectors.toList());
-                    
+            List<String> sugerencias = circuitBreaker.ejecutar(
+                    () -> doctorSearchRepository.sugerencias(prefix, tipos, 10));
+            searchMetrics.registrar("autocompletado", SearchMetrics.Modo.ELASTICSEARCH, inicio,
+                    sugerencias.size(), () -> "prefix=" + prefix + " tipos=" + tipos);
+            return sugerencias;
+        } catch (CallNotPermittedException e) {
+            return sugerenciasJPA(prefix, tipos, inicio);
         } catch (Exception e) {
-            System.err.println("❌ Error en búsqueda con sugerencias: " + e.getMessage());
-            return buscarConJPA(query, null, null, null, null, null, null, null, null);
+            logger.warn("⚠️ Error obteniendo sugerencias en Elasticsearch, usando JPA: {}", e.getMessage());
+            searchMetrics.fallback("autocompletado", e);
+            return sugerenciasJPA(prefix, tipos, inicio);
         }
     }
 
-    /**
-     * Obtener sugerencias de autocompletado
-     */
-    public List<String> obtenerSugerencias(String prefix) {
+    // En Postgres solo hay sugerencias de nombres
+    private List<String> sugerenciasJPA(String prefix, Set<IndiceSugerencias.Tipo> tipos, long inicio) {
+        if (!tipos.contains(IndiceSugerencias.Tipo.DOCTOR)) {
+            searchMetrics.registrar("autocompletado", SearchMetrics.Modo.ERROR, inicio, 0, () -> "prefix=" + prefix);
+            return List.of();
+        }
         try {
-            List<DoctorIndex> doctors = doctorSearchRepository.findByNameStartingWithIgnoreCase(prefix);
-            return doctors.stream()
-                    .map(DoctorIndex::getName)
-                    .limit(10)
-                    .collect(Collectors.toList());
+            List<String> sugerencias = doctorRepository.nombresQueEmpiezanPor(
+                    prefix, funcionesBusqueda.nombreNormalizado(), 10);
+            searchMetrics.registrar("autocompletado", SearchMetrics.Modo.JPA_FALLBACK, inicio,
+                    sugerencias.size(), () -> "prefix=" + prefix);
+            return sugerencias;
         } catch (Exception e) {
-            System.err.println("❌ Error obteniendo sugerencias: " + e.getMessage());
+            logger.warn("⚠️ Error obteniendo sugerencias: {}", e.getMessage());
+            searchMetrics.registrar("autocompletado", SearchMetrics.Modo.ERROR, inicio, 0, () -> "prefix=" + prefix);
             return List.of();
         }
     }
@@ -97,106 +168,67 @@ public class DoctorSearchService {
      * Búsqueda por especialidad
      */
     public List<DoctorDTO> buscarPorEspecialidad(String specialty) {
-        try {
-            System.out.println("🔍 [DoctorSearchService] Búsqueda por especialidad en Elasticsearch: " + specialty);
-            
-            List<DoctorIndex> doctors = doctorSearchRepository.findBySpecialty(specialty);
-            return doctors.stream()
-                    .map(this::convertToDoctorDTO)
-                    .collect(Collectors.toList());
-        } catch (Exception e) {
-            System.err.println("❌ Error en búsqueda por especialidad: " + e.getMessage());
-            return buscarConJPA(null, specialty, null, null, null, null, null, null, null);
-        }
+        return buscar("especialidad", () -> "specialty=" + specialty,
+            () -> doctorSearchRepository.findBySpecialty(specialty),
+            () -> buscarConJPA(null, specialty, null, null, null, null, null, null, null));
     }
 
     /**
      * Búsqueda por hospital
      */
     public List<DoctorDTO> buscarPorHospital(String hospital) {
-        try {
-            List<DoctorIndex> doctors = doctorSearchRepository.findByHospital(hospital);
-            return doctors.stream()
-                    .map(this::convertToDoctorDTO)
-                    .collect(Collectors.toList());
-        } catch (Exception e) {
-            System.err.println("❌ Error en búsqueda por hospital: " + e.getMessage());
-            return buscarConJPA(null, null, hospital, null, null, null, null, null, null);
-        }
+        return buscar("hospital", () -> "hospital=" + hospital,
+            () -> doctorSearchRepository.findByHospital(hospital),
+            () -> buscarConJPA(null, null, hospital, null, null, null, null, null, null));
     }
 
     /**
      * Búsqueda por disponibilidad
      */
     public List<DoctorDTO> buscarPorDisponibilidad(boolean available) {
-        try {
-            List<DoctorIndex> doctors = doctorSearchRepository.findByAvailable(available);
-            return doctors.stream()
-                    .map(this::convertToDoctorDTO)
-                    .collect(Collectors.toList());
-        } catch (Exception e) {
-            System.err.println("❌ Error en búsqueda por disponibilidad: " + e.getMessage());
-            return buscarConJPA(null, null, null, null, null, null, null, available, null);
-        }
+        return buscar("disponibilidad", () -> "available=" + available,
+            () -> doctorSearchRepository.findByAvailable(available),
+            () -> buscarConJPA(null, null, null, null, null, null, null, available, null));
     }
 
     /**
      * Búsqueda por rango de experiencia
      */
     public List<DoctorDTO> buscarPorExperiencia(int minYears, int maxYears) {
-        try {
-            // Por ahora usamos JPA como fallback hasta implementar la consulta de rango
-            return buscarConJPA(null, null, null, minYears, maxYears, null, null, null, null);
-        } catch (Exception e) {
-            System.err.println("❌ Error en búsqueda por experiencia: " + e.getMessage());
-            return buscarConJPA(null, null, null, minYears, maxYears, null, null, null, null);
-        }
+        // Por ahora usamos JPA como fallback hasta implementar la consulta de rango
+        return buscarSoloJPA("experiencia", () -> "experienceYears=" + minYears + ".." + maxYears,
+            () -> buscarConJPA(null, null, null, minYears, maxYears, null, null, null, null));
     }
 
     /**
      * Búsqueda por rango de rating
      */
     public List<DoctorDTO> buscarPorRating(double minRating, double maxRating) {
-        try {
-            // Por ahora usamos JPA como fallback hasta implementar la consulta de rango
-            return buscarConJPA(null, null, null, null, null, minRating, maxRating, null, null);
-        } catch (Exception e) {
-            System.err.println("❌ Error en búsqueda por rating: " + e.getMessage());
-            return buscarConJPA(null, null, null, null, null, minRating, maxRating, null, null);
-        }
+        // Por ahora usamos JPA como fallback hasta implementar la consulta de rango
+        return buscarSoloJPA("rating", () -> "rating=" + minRating + ".." + maxRating,
+            () -> buscarConJPA(null, null, null, null, null, minRating, maxRating, null, null));
     }
 
     /**
      * Búsqueda por tags
      */
     public List<DoctorDTO> buscarPorTags(List<String> tags) {
-        try {
-            List<DoctorIndex> doctors = doctorSearchRepository.findByTagsIn(tags);
-            return doctors.stream()
-                    .map(this::convertToDoctorDTO)
-                    .collect(Collectors.toList());
-        } catch (Exception e) {
-            System.err.println("❌ Error en búsqueda por tags: " + e.getMessage());
-            return buscarConJPA(null, null, null, null, null, null, null, null, tags);
-        }
+        return buscar("tags", () -> "tags=" + tags,
+            () -> doctorSearchRepository.findByTagsIn(tags),
+            () -> buscarConJPA(null, null, null, null, null, null, null, null, tags));
     }
 
     /**
      * Sincronizar datos de JPA a Elasticsearch
+     * Usa el mismo formato de documento que DoctorElasticsearch (con franjas y sugerencias)
      */
     public void sincronizarDatos() {
         try {
-            List<Doctor> doctors = doctorRepository.findAll();
-            
-            List<DoctorIndex> doctorIndices = doctors.stream()
-                    .map(this::convertToDoctorIndex)
-                    .collect(Collectors.toList());
-            
-            doctorSearchRepository.saveAll(doctorIndices);
-            System.out.println("✅ " + doctors.size() + " doctores sincronizados en Elasticsearch");
+            Map<String, Object> resultado = doctorBulkIndexer.syncAll(true);
+            logger.info("✅ {} doctores sincronizados en Elasticsearch", resultado.get("syncedCount"));
             
         } catch (Exception e) {
-            System.err.println("❌ Error sincronizando datos: " + e.getMessage());
+            logger.error("❌ Error sincronizando datos: {}", e.getMessage());
             throw e;
         }
     }
@@ -205,19 +237,43 @@ public class DoctorSearchService {
      * Procesar query del frontend que viene como string (ej: "specialty:Cardiología AND hospital:Clínica Vida")
      */
     public List<DoctorDTO> procesarQueryFrontend(String queryString) {
+        SearchSourceBuilder consulta = consultaFrontend(queryString);
+        if (consulta == null) {
+            // Query vacía o no válida: todos los doctores
+            return buscarSoloJPA("frontend", () -> queryString != null ? queryString : "", this::todosConJPA);
+        }
+        
+        // Usar Elasticsearch con los parámetros parseados
+        return buscar("frontend", consulta::toString,
+            () -> doctorSearchRepository.search(consulta),
+            this::todosConJPA);
+    }
+
+    /**
+     * Como {@link #procesarQueryFrontend}, sin bloquear el hilo que llama
+     */
+    public CompletableFuture<List<DoctorDTO>> procesarQueryFrontendAsync(String queryString) {
+        SearchSourceBuilder consulta = consultaFrontend(queryString);
+        if (consulta == null) {
+            return soloJPAAsync("frontend", () -> queryString != null ? queryString : "", this::todosConJPA);
+        }
+        return buscarAsync("frontend", consulta::toString,
+            () -> doctorSearchRepository.searchAsync(consulta),
+            this::todosConJPA);
+    }
+
+    /**
+     * Consulta de Elasticsearch para una query del frontend, o null si está vacía o no es válida
+     */
+    private SearchSourceBuilder consultaFrontend(String queryString) {
+        if (queryString == null || queryString.trim().isEmpty()) {
+            return null;
+        }
         try {
-            System.out.println("🔍 [DoctorSearchService] Procesando query del frontend: " + queryString);
-            
-            if (queryString == null || queryString.trim().isEmpty()) {
-                System.out.println("🔍 [DoctorSearchService] Query vacía, devolviendo todos los doctores");
-                return buscarConJPA(null, null, null, null, null, null, null, null, null);
-            }
-            
             // Parsear la query del frontend
             var parsedQuery = parseFrontendQuery(queryString);
             
-            // Usar Elasticsearch con los parámetros parseados
-            List<DoctorIndex> results = doctorSearchRepository.searchAdvanced(
+            return DoctorSearchRepository.consultaAvanzada(
                 parsedQuery.get("query"),
                 parsedQuery.get("specialty"),
                 parsedQuery.get("hospital"),
@@ -228,17 +284,16 @@ public class DoctorSearchService {
                 parsedQuery.get("available") != null ? Boolean.parseBoolean(parsedQuery.get("available")) : null,
                 parsedQuery.get("tags") != null ? List.of(parsedQuery.get("tags").split(",")) : null
             );
-            
-            return results.stream()
-                    .map(this::convertToDoctorDTO)
-                    .collect(Collectors.toList());
-                    
-        } catch (Exception e) {
-            System.err.println("❌ Error procesando query del frontend: " + e.getMessage());
-            return buscarConJPA(null, null, null, null, null, null, null, null, null);
+        } catch (NumberFormatException e) {
+            logger.warn("⚠️ Query del frontend no válida '{}': {}", queryString, e.getMessage());
+            return null;
         }
     }
 
+    private List<DoctorDTO> todosConJPA() {
+        return buscarConJPA(null, null, null, null, null, null, null, null, null);
+    }
+
     /**
      * Parsear query del frontend (ej: "specialty:Cardiología AND hospital:Clínica Vida")
      */
@@ -287,53 +342,124 @@ public class DoctorSearchService {
                 }
             }
             
-            System.out.println("🔍 [parseFrontendQuery] Query parseada: " + parsed);
+            logger.debug("🔍 Query del frontend parseada: {}", parsed);
             
         } catch (Exception e) {
-            System.err.println("❌ Error parseando query: " + e.getMessage());
+            logger.warn("⚠️ Error parseando query: {}", e.getMessage());
         }
         
         return parsed;
     }
 
-    // Métodos de fallback usando JPA
+    /**
+     * Ejecuta una búsqueda en Elasticsearch a través del circuit breaker y, si falla o el
+     * breaker está abierto, su equivalente en JPA, registrando duración, modo y número de resultados
+     */
+    private List<DoctorDTO> buscar(String operacion, Supplier<String> consulta,
+                                   Supplier<List<DoctorIndex>> elasticsearch,
+                                   Supplier<List<DoctorDTO>> jpa) {
+        long inicio = System.nanoTime();
+        try {
+            List<DoctorDTO> resultado = circuitBreaker.ejecutar(elasticsearch).stream()
+                    .map(this::convertToDoctorDTO)
+                    .collect(Collectors.toList());
+            searchMetrics.registrar(operacion, SearchMetrics.Modo.ELASTICSEARCH, inicio, resultado.size(), consulta);
+            return resultado;
+        } catch (CallNotPermittedException e) {
+            // Breaker abierto: directo a JPA, sin log por petición
+            searchMetrics.fallback(operacion, e);
+            return ejecutarJPA(operacion, inicio, consulta, jpa);
+        } catch (Exception e) {
+            logger.warn("⚠️ Búsqueda {} en Elasticsearch falló, usando JPA: {}", operacion, e.getMessage());
+            searchMetrics.fallback(operacion, e);
+            return ejecutarJPA(operacion, inicio, consulta, jpa);
+        }
+    }
+
+    /**
+     * Versión asíncrona de {@link #buscar}. El future de Elasticsearch y el fallback a JPA, que
+     * bloquea, se completan en el executor de búsquedas. Si está lleno, el future falla con
+     * {@link RejectedExecutionException}
+     */
+    private CompletableFuture<List<DoctorDTO>> buscarAsync(String operacion, Supplier<String> consulta,
+                                                          Supplier<CompletionStage<List<DoctorIndex>>> elasticsearch,
+                                                          Supplier<List<DoctorDTO>> jpa) {
+        long inicio = System.nanoTime();
+        return circuitBreaker.ejecutarAsync(elasticsearch)
+                .thenApply(indices -> {
+                    List<DoctorDTO> resultado = indices.stream()
+                            .map(this::convertToDoctorDTO)
+                            .collect(Collectors.toList());
+                    searchMetrics.registrar(operacion, SearchMetrics.Modo.ELASTICSEARCH, inicio, resultado.size(), consulta);
+                    return resultado;
+                })
+                .exceptionallyCompose(e -> {
+                    Throwable causa = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    // Breaker abierto: directo a JPA, sin log por petición
+                    if (!(causa instanceof CallNotPermittedException)) {
+                        logger.warn("⚠️ Búsqueda {} en Elasticsearch falló, usando JPA: {}", operacion, causa.getMessage());
+                    }
+                    searchMetrics.fallback(operacion, causa);
+                    return jpaAsync(operacion, inicio, consulta, jpa);
+                });
+    }
+
+    private CompletableFuture<List<DoctorDTO>> soloJPAAsync(String operacion, Supplier<String> consulta,
+                                                           Supplier<List<DoctorDTO>> jpa) {
+        return jpaAsync(operacion, System.nanoTime(), consulta, jpa);
+    }
+
+    private CompletableFuture<List<DoctorDTO>> jpaAsync(String operacion, long inicio, Supplier<String> consulta,
+                                                       Supplier<List<DoctorDTO>> jpa) {
+        try {
+            return CompletableFuture.supplyAsync(() -> ejecutarJPA(operacion, inicio, consulta, jpa), busquedasExecutor);
+        } catch (RejectedExecutionException e) {
+            searchMetrics.registrar(operacion, SearchMetrics.Modo.ERROR, inicio, 0, consulta);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Ejecuta una búsqueda en JPA registrando duración, modo y número de resultados
+     */
+    private List<DoctorDTO> buscarSoloJPA(String operacion, Supplier<String> consulta, Supplier<List<DoctorDTO>> jpa) {
+        return ejecutarJPA(operacion, System.nanoTime(), consulta, jpa);
+    }
+
+    private List<DoctorDTO> ejecutarJPA(String operacion, long inicio, Supplier<String> consulta,
+                                       Supplier<List<DoctorDTO>> jpa) {
+        try {
+            List<DoctorDTO> resultado = jpa.get();
+            searchMetrics.registrar(operacion, SearchMetrics.Modo.JPA_FALLBACK, inicio, resultado.size(), consulta);
+            return resultado;
+        } catch (RuntimeException e) {
+            searchMetrics.registrar(operacion, SearchMetrics.Modo.ERROR, inicio, 0, consulta);
+            throw e;
+        }
+    }
+
+    // Métodos de fallback usando JPA: una sola consulta con todos los filtros, ordenada por rating y limitada
     private List<DoctorDTO> buscarConJPA(String query, String specialty, String hospital, 
                                         Integer minExperience, Integer maxExperience, 
                                         Double minRating, Double maxRating, 
                                         Boolean available, List<String> tags) {
         
-        System.out.println("🔍 [buscarConJPA] Parámetros recibidos:");
-        System.out.println("  - Query: " + query);
-        System.out.println("  - Specialty: " + specialty);
-        System.out.println("  - Hospital: " + hospital);
-        System.out.println("  - MinExperience: " + minExperience);
-        System.out.println("  - MaxExperience: " + maxExperience);
-        System.out.println("  - MinRating: " + minRating);
-        System.out.println("  - MaxRating: " + maxRating);
-        System.out.println("  - Available: " + available);
-        System.out.println("  - Tags: " + tags);
+        Specification<Doctor> spec = DoctorSpecifications.busqueda(query, specialty, hospital,
+                minExperience, maxExperience, minRating, maxRating, available, tags, funcionesBusqueda.textoCompleto());
         
-        List<Doctor> doctors = doctorRepository.findAll();
+        List<Doctor> doctors = doctorRepository.findBy(spec, q -> q
+                .sortBy(Sort.by(Sort.Order.desc("rating"), Sort.Order.asc("id")))
+                .limit(maxResultadosJPA)
+                .all());
         
-        // Aplicar filtros en memoria
-        List<Doctor> filteredDoctors = doctors.stream()
-                .filter(doctor -> specialty == null || doctor.getSpecialty().equalsIgnoreCase(specialty))
-                .filter(doctor -> hospital == null || doctor.getHospital().equalsIgnoreCase(hospital))
-                .filter(doctor -> minExperience == null || doctor.getExperienceYears() >= minExperience)
-                .filter(doctor -> maxExperience == null || doctor.getExperienceYears() <= maxExperience)
-                .filter(doctor -> minRating == null || doctor.getRating() >= minRating)
-                .filter(doctor -> maxRating == null || doctor.getRating() <= maxRating)
-                .filter(doctor -> available == null || doctor.isAvailable() == available)
-                .collect(Collectors.toList());
-        
-        System.out.println("🔍 [buscarConJPA] Doctores filtrados: " + filteredDoctors.size() + " de " + doctors.size());
+        logger.debug("🔍 [buscarConJPA] Doctores encontrados: {}", doctors.size());
         
-        return filteredDoctors.stream()
+        return doctors.stream()
                 .map(doctorMapper::toDTO)
                 .collect(Collectors.toList());
     }
 
-    private DoctorDTO convertToDoctorDTO(DoctorIndex doctorIndex) {
+    DoctorDTO convertToDoctorDTO(DoctorIndex doctorIndex) {
         DoctorDTO dto = new DoctorDTO();
         dto.id = doctorIndex.getId();
         dto.name = doctorIndex.getName();
@@ -347,20 +473,4 @@ public class DoctorSearchService {
         dto.diasLaborales = doctorIndex.getDiasLaborales();
         return dto;
     }
-
-    private DoctorIndex convertToDoctorIndex(Doctor doctor) {
-        DoctorIndex index = new DoctorIndex();
-        index.setId(doctor.getId());
-        index.setName(doctor.getName());
-        index.setSpecialty(doctor.getSpecialty());
-        index.setHospital(doctor.getHospital());
-        index.setDescription(doctor.getDescription());
-        index.setExperienceYears(doctor.getExperienceYears());
-        index.setRating(doctor.getRating());
-        index.setAvailable(doctor.isAvailable());
-        index.setTags(doctor.getTags());
-        index.setDiasLaborales(doctor.getDiasLaborales());
-        index.setSearchText(doctor.getName() + " " + doctor.getSpecialty() + " " + doctor.getDescription());
-        return index;
-    }
 }
@@ -1,15 +1,30 @@
 package com.hn.tgu.hospital.service;
 
+import com.hn.tgu.hospital.cache.DoctorCache;
+import com.hn.tgu.hospital.cache.DoctorInvalidationBus;
 import com.hn.tgu.hospital.dto.DoctorDTO;
 import com.hn.tgu.hospital.entity.Doctor;
+import com.hn.tgu.hospital.entity.DoctorChange;
 import com.hn.tgu.hospital.mapper.DoctorMapper;
+import com.hn.tgu.hospital.repository.DoctorChangeRepository;
 import com.hn.tgu.hospital.repository.DoctorRepository;
+import com.hn.tgu.hospital.repository.DoctorSpecifications;
+import com.hn.tgu.hospital.repository.FuncionesBusqueda;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class DoctorService {
@@ -19,6 +34,30 @@ public class DoctorService {
   
   @Autowired
   private DoctorMapper doctorMapper;
+  
+  @Autowired
+  private DoctorChangeRepository doctorChangeRepository;
+  
+  @Autowired
+  private DoctorCache doctorCache;
+  
+  @Autowired
+  private DoctorInvalidationBus doctorInvalidationBus;
+  
+  @Autowired
+  private FuncionesBusqueda funcionesBusqueda;
+  
+  @Autowired
+  private DisponibilidadService disponibilidadService;
+  
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+  
+  @PersistenceContext
+  private EntityManager entityManager;
+  
+  @Value("${doctors.stream.fetch-size:500}")
+  private int streamFetchSize;
 
   // Obtener todos los doctores
   public List<Doctor> obtenerTodos() {
@@ -31,18 +70,29 @@ public class DoctorService {
   }
 
   // Crear nuevo doctor
+  @Transactional
   public Doctor crear(Doctor doctor) {
-    return doctorRepository.save(doctor);
+    Doctor savedDoctor = doctorRepository.save(doctor);
+    disponibilidadService.indexar(savedDoctor);
+    registrarCambio(savedDoctor.getId(), DoctorChange.Operation.UPSERT);
+    return savedDoctor;
   }
 
   // Actualizar doctor
+  @Transactional
   public Doctor actualizar(Doctor doctor) {
-    return doctorRepository.save(doctor);
+    Doctor savedDoctor = doctorRepository.save(doctor);
+    disponibilidadService.indexar(savedDoctor);
+    registrarCambio(savedDoctor.getId(), DoctorChange.Operation.UPSERT);
+    return savedDoctor;
   }
 
   // Eliminar doctor
+  @Transactional
   public void eliminar(String id) {
+    disponibilidadService.eliminar(id);
     doctorRepository.deleteById(id);
+    registrarCambio(id, DoctorChange.Operation.DELETE);
   }
 
   // Buscar por especialidad
@@ -62,12 +112,14 @@ public class DoctorService {
 
   // Buscar por nombre
   public List<Doctor> buscarPorNombre(String name) {
-    return doctorRepository.findByNameContainingIgnoreCase(name);
+    return doctorRepository.findAll(
+        DoctorSpecifications.nombreContiene(name, funcionesBusqueda.nombreNormalizado()));
   }
 
   // Buscar con filtros
   public List<Doctor> buscarConFiltros(String specialty, String hospital, Boolean available, String name) {
-    return doctorRepository.findByFilters(specialty, hospital, available, name);
+    return doctorRepository.findAll(
+        DoctorSpecifications.filtros(specialty, hospital, available, name, funcionesBusqueda.nombreNormalizado()));
   }
 
   // Verificar si existe
@@ -85,6 +137,31 @@ public class DoctorService {
     return doctorRepository.findByAvailable(true);
   }
 
+  // Obtener una página por clave (keyset): hasta limit doctores con id mayor que afterId
+  public List<Doctor> obtenerPagina(String specialty, String hospital, Boolean available,
+                                    String afterId, int limit) {
+    return doctorRepository.findPageAfter(specialty, hospital, available, afterId, PageRequest.of(0, limit));
+  }
+
+  // Recorrer todos los doctores que cumplen los filtros, cargando bloques de streamFetchSize.
+  // Cada bloque es una consulta keyset en su propia transacción de solo lectura y, antes de leer
+  // el siguiente, se vacía el contexto de persistencia: con open-in-view (perfil por defecto) el
+  // EntityManager de la petición sigue ligado al hilo del streaming y acumularía todos los
+  // doctores ya escritos. Así la memoria usada no crece con la tabla.
+  public Stream<Doctor> recorrer(String specialty, String hospital, Boolean available) {
+    TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+    lectura.setReadOnly(true);
+    Function<String, List<Doctor>> bloque = afterId -> {
+      entityManager.clear();
+      return lectura.execute(status -> obtenerPagina(specialty, hospital, available, afterId, streamFetchSize));
+    };
+    return Stream.iterate(bloque.apply(null), b -> !b.isEmpty(),
+            b -> b.size() < streamFetchSize
+                ? List.<Doctor>of()
+                : bloque.apply(b.get(b.size() - 1).getId()))
+        .flatMap(List::stream);
+  }
+
   // Métodos legacy para compatibilidad
   public List<DoctorDTO> getAllDoctors() {
     List<Doctor> doctors = doctorRepository.findAll();
@@ -93,30 +170,40 @@ public class DoctorService {
         .collect(Collectors.toList());
   }
 
+  // Doctor por id desde la caché en memoria
   public Optional<DoctorDTO> getDoctorById(String id) {
-    return doctorRepository.findById(id)
-        .map(doctorMapper::toDTO);
+    return doctorCache.obtener(id, clave -> doctorRepository.findById(clave)
+        .map(doctorMapper::toDTO));
   }
 
+  @Transactional
   public DoctorDTO createDoctor(DoctorDTO doctorDTO) {
     Doctor doctor = doctorMapper.toEntity(doctorDTO);
     Doctor savedDoctor = doctorRepository.save(doctor);
+    disponibilidadService.indexar(savedDoctor);
+    registrarCambio(savedDoctor.getId(), DoctorChange.Operation.UPSERT);
     return doctorMapper.toDTO(savedDoctor);
   }
 
+  @Transactional
   public Optional<DoctorDTO> updateDoctor(String id, DoctorDTO doctorDTO) {
     return doctorRepository.findById(id)
         .map(existingDoctor -> {
           doctorDTO.id = id;
           Doctor doctor = doctorMapper.toEntity(doctorDTO);
           Doctor savedDoctor = doctorRepository.save(doctor);
+          disponibilidadService.indexar(savedDoctor);
+          registrarCambio(id, DoctorChange.Operation.UPSERT);
           return doctorMapper.toDTO(savedDoctor);
         });
   }
 
+  @Transactional
   public boolean deleteDoctor(String id) {
     if (doctorRepository.existsById(id)) {
+      disponibilidadService.eliminar(id);
       doctorRepository.deleteById(id);
+      registrarCambio(id, DoctorChange.Operation.DELETE);
       return true;
     }
     return false;
@@ -144,25 +231,27 @@ public class DoctorService {
   }
 
   public List<DoctorDTO> findByName(String name) {
-    List<Doctor> doctors = doctorRepository.findByNameContainingIgnoreCase(name);
+    List<Doctor> doctors = doctorRepository.findAll(
+        DoctorSpecifications.nombreContiene(name, funcionesBusqueda.nombreNormalizado()));
     return doctors.stream()
         .map(doctorMapper::toDTO)
         .collect(Collectors.toList());
   }
 
   public List<DoctorDTO> findByFilters(String specialty, String hospital, Boolean available, String name) {
-    List<Doctor> doctors = doctorRepository.findByFilters(specialty, hospital, available, name);
+    List<Doctor> doctors = doctorRepository.findAll(
+        DoctorSpecifications.filtros(specialty, hospital, available, name, funcionesBusqueda.nombreNormalizado()));
     return doctors.stream()
         .map(doctorMapper::toDTO)
         .collect(Collectors.toList());
   }
 
   public boolean existsById(String id) {
-    return doctorRepository.existsById(id);
+    return getDoctorById(id).isPresent();
   }
 
   public long count() {
-    return doctorRepository.count();
+    return doctorCache.contar(doctorRepository::count);
   }
 
   public List<DoctorDTO> getAvailableDoctors() {
@@ -171,4 +260,10 @@ public class DoctorService {
         .map(doctorMapper::toDTO)
         .collect(Collectors.toList());
   }
+
+  // Registrar el cambio en la outbox y avisar a las cachés, dentro de la misma transacción que la escritura
+  private void registrarCambio(String doctorId, DoctorChange.Operation operation) {
+    doctorChangeRepository.save(new DoctorChange(doctorId, operation));
+    doctorInvalidationBus.publicar(doctorId);
+  }
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+-- Script DDL para la tabla de cambios pendientes de indexar (outbox)
+-- V3__Create_doctor_changes_table.sql
+
+CREATE TABLE IF NOT EXISTS doctor_changes (
+    id BIGSERIAL PRIMARY KEY,
+    doctor_id VARCHAR(36) NOT NULL,
+    operation VARCHAR(10) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Índice para agrupar cambios del mismo doctor
+CREATE INDEX idx_doctor_changes_doctor_id ON doctor_changes(doctor_id);
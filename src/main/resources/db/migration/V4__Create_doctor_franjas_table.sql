@@ -0,0 +1,54 @@
+-- Script DDL para el índice de franjas libres por día (derivado de doctor_horarios_disponibles)
+-- V4__Create_doctor_franjas_table.sql
+
+CREATE TABLE IF NOT EXISTS doctor_franjas (
+    id BIGSERIAL PRIMARY KEY,
+    doctor_id VARCHAR(36) NOT NULL,
+    dia INT NOT NULL,
+    inicio INT NOT NULL,
+    fin INT NOT NULL,
+    FOREIGN KEY (doctor_id) REFERENCES doctors(id) ON DELETE CASCADE
+);
+
+-- Índice para "quién está libre el día D entre T1 y T2"
+CREATE INDEX idx_doctor_franjas_dia_inicio ON doctor_franjas(dia, inicio, fin);
+
+-- Índice para regenerar las franjas de un doctor
+CREATE INDEX idx_doctor_franjas_doctor_id ON doctor_franjas(doctor_id);
+
+-- Carga inicial, igual que AgendaSemanal: cada hora "HH:mm" libre pasa a minutos, se descartan
+-- las que no caen en la rejilla del doctor (horario_entrada + k * duracion_cita) y los turnos
+-- consecutivos se agrupan en una franja. Si no se ejecuta esta migración, DisponibilidadService
+-- genera las franjas al arrancar.
+INSERT INTO doctor_franjas (doctor_id, dia, inicio, fin)
+SELECT doctor_id, dia, MIN(minuto), MAX(minuto) + duracion
+FROM (
+    SELECT s.doctor_id, s.dia, s.minuto, s.duracion,
+           (s.minuto - s.entrada) / s.duracion - ROW_NUMBER() OVER (PARTITION BY s.doctor_id, s.dia ORDER BY s.minuto) AS grupo
+    FROM (
+        SELECT DISTINCT h.doctor_id,
+               CASE translate(lower(trim(h.dia)), 'áéíóú', 'aeiou')
+                   WHEN 'lunes' THEN 1
+                   WHEN 'martes' THEN 2
+                   WHEN 'miercoles' THEN 3
+                   WHEN 'jueves' THEN 4
+                   WHEN 'viernes' THEN 5
+                   WHEN 'sabado' THEN 6
+                   WHEN 'domingo' THEN 7
+               END AS dia,
+               split_part(hora, ':', 1)::int * 60 + split_part(hora, ':', 2)::int AS minuto,
+               CASE WHEN trim(d.horario_entrada) ~ '^([01]?[0-9]|2[0-3]):[0-5][0-9]$'
+                    THEN split_part(trim(d.horario_entrada), ':', 1)::int * 60 + split_part(trim(d.horario_entrada), ':', 2)::int
+                    ELSE 0
+               END AS entrada,
+               CASE WHEN d.duracion_cita > 0 THEN d.duracion_cita ELSE 30 END AS duracion
+        FROM doctor_horarios_disponibles h
+        JOIN doctors d ON d.id = h.doctor_id
+        CROSS JOIN LATERAL regexp_split_to_table(translate(COALESCE(h.horarios, ''), '[]{}" ', ''), ',') AS hora
+        WHERE hora ~ '^([01]?[0-9]|2[0-3]):[0-5][0-9]$'
+    ) s
+    WHERE s.dia IS NOT NULL
+      AND s.minuto >= s.entrada
+      AND (s.minuto - s.entrada) % s.duracion = 0
+) g
+GROUP BY doctor_id, dia, duracion, grupo;
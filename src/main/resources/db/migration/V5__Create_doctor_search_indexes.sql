@@ -0,0 +1,32 @@
+-- Índices para la búsqueda JPA (fallback de Elasticsearch)
+-- V5__Create_doctor_search_indexes.sql
+
+-- Documento de texto completo del doctor: nombre, especialidad y descripción en español
+CREATE OR REPLACE FUNCTION doctor_documento(p_name TEXT, p_specialty TEXT, p_description TEXT)
+RETURNS tsvector
+LANGUAGE sql IMMUTABLE PARALLEL SAFE AS $$
+    SELECT to_tsvector('spanish'::regconfig,
+        coalesce(p_name, '') || ' ' || coalesce(p_specialty, '') || ' ' || coalesce(p_description, ''))
+$$;
+
+-- Coincidencia con una consulta escrita por el usuario (palabras, "frases", -exclusiones).
+-- Es una función SQL de una sola expresión: Postgres la expande en línea y la condición
+-- queda como to_tsvector(...) @@ websearch_to_tsquery(...), que usa idx_doctors_busqueda
+CREATE OR REPLACE FUNCTION doctor_busqueda_coincide(p_name TEXT, p_specialty TEXT, p_description TEXT, p_consulta TEXT)
+RETURNS boolean
+LANGUAGE sql IMMUTABLE PARALLEL SAFE AS $$
+    SELECT doctor_documento(p_name, p_specialty, p_description) @@ websearch_to_tsquery('spanish'::regconfig, p_consulta)
+$$;
+
+CREATE INDEX IF NOT EXISTS idx_doctors_busqueda
+    ON doctors USING GIN (doctor_documento(name, specialty, description));
+
+-- Filtros por igualdad sin distinguir mayúsculas
+CREATE INDEX IF NOT EXISTS idx_doctors_specialty_lower ON doctors (lower(specialty));
+CREATE INDEX IF NOT EXISTS idx_doctors_hospital_lower ON doctors (lower(hospital));
+
+-- Orden por rating con LIMIT
+CREATE INDEX IF NOT EXISTS idx_doctors_rating ON doctors (rating DESC, id);
+
+-- Filtro por tags (EXISTS por tag)
+CREATE INDEX IF NOT EXISTS idx_doctor_tags_tag ON doctor_tags (tag);
@@ -0,0 +1,21 @@
+-- Búsqueda por nombre sin tildes ni mayúsculas (buscar por nombre y autocompletado)
+-- V6__Create_doctor_name_trgm_indexes.sql
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+-- unaccent(text) es STABLE porque depende del search_path; con el diccionario explícito
+-- el resultado es fijo y se puede declarar IMMUTABLE para usarlo en índices
+CREATE OR REPLACE FUNCTION doctor_normalizar(p_texto TEXT)
+RETURNS text
+LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT AS $$
+    SELECT lower(public.unaccent('public.unaccent'::regdictionary, p_texto))
+$$;
+
+-- LIKE '%texto%' y LIKE 'prefijo%' sobre el nombre normalizado ("sofia" encuentra "Sofía")
+CREATE INDEX IF NOT EXISTS idx_doctors_nombre_trgm
+    ON doctors USING GIN (doctor_normalizar(name) gin_trgm_ops);
+
+-- Prefijos de una o dos letras, donde los trigramas apenas filtran
+CREATE INDEX IF NOT EXISTS idx_doctors_nombre_prefijo
+    ON doctors (doctor_normalizar(name) text_pattern_ops);
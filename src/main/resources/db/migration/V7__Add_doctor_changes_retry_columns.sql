@@ -0,0 +1,5 @@
+-- Reintentos con espera creciente para los cambios que Elasticsearch rechaza
+-- V7__Add_doctor_changes_retry_columns.sql
+
+ALTER TABLE doctor_changes ADD COLUMN IF NOT EXISTS attempts INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE doctor_changes ADD COLUMN IF NOT EXISTS next_attempt_at TIMESTAMP;
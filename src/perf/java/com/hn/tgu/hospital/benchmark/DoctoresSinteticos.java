@@ -0,0 +1,139 @@
+package com.hn.tgu.hospital.benchmark;
+
+import com.hn.tgu.hospital.entity.Doctor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Generador determinista de doctores sintéticos para benchmarks y pruebas de carga.
+ *
+ * Los valores siguen la forma de los datos reales: especialidades y hospitales de un
+ * catálogo corto, entre 1 y 6 tags, entre 3 y 6 días laborales y, por cada día, una
+ * parte de los turnos libres entre la hora de entrada y la de salida.
+ */
+public final class DoctoresSinteticos {
+
+    public static final String[] ESPECIALIDADES = {
+        "Cardiología", "Pediatría", "Dermatología", "Neurología", "Ginecología",
+        "Traumatología", "Oftalmología", "Psiquiatría", "Medicina General", "Endocrinología"
+    };
+
+    public static final String[] HOSPITALES = {
+        "Hospital Escuela", "Hospital San Felipe", "Hospital Militar", "Hospital Mario Catarino Rivas",
+        "Hospital Leonardo Martínez", "Hospital del Valle", "Hospital Viera", "Hospital La Paz"
+    };
+
+    public static final String[] TAGS = {
+        "adultos", "niños", "urgencias", "telemedicina", "seguro", "cirugía", "consulta rápida",
+        "bilingüe", "tercera edad", "deportistas", "crónicos", "prevención"
+    };
+
+    public static final String[] DIAS = {
+        "lunes", "martes", "miércoles", "jueves", "viernes", "sábado", "domingo"
+    };
+
+    private static final String[] NOMBRES = {
+        "Ana", "Carlos", "María", "José", "Lucía", "Javier", "Sofía", "Miguel", "Elena", "Andrés"
+    };
+
+    private static final String[] APELLIDOS = {
+        "Martínez", "López", "Hernández", "García", "Rodríguez", "Flores", "Mejía", "Zelaya", "Castro", "Ramos"
+    };
+
+    private static final int[] ENTRADAS = {7 * 60, 8 * 60, 9 * 60, 13 * 60};
+    private static final int[] DURACIONES = {15, 20, 30, 45, 60};
+
+    private DoctoresSinteticos() {
+    }
+
+    /**
+     * Genera n doctores con ids doc-000000, doc-000001... a partir de la semilla dada
+     */
+    public static List<Doctor> generar(int n, long semilla) {
+        SplittableRandom random = new SplittableRandom(semilla);
+        List<Doctor> doctores = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            doctores.add(doctor(i, random));
+        }
+        return doctores;
+    }
+
+    private static Doctor doctor(int i, SplittableRandom random) {
+        String nombre = "Dr. " + elegir(NOMBRES, random) + " " + elegir(APELLIDOS, random)
+                + " " + elegir(APELLIDOS, random);
+        String especialidad = elegir(ESPECIALIDADES, random);
+        int entrada = ENTRADAS[random.nextInt(ENTRADAS.length)];
+        int salida = entrada + (4 + random.nextInt(6)) * 60;
+        int duracion = DURACIONES[random.nextInt(DURACIONES.length)];
+        List<String> dias = dias(random);
+
+        Doctor doctor = new Doctor(
+                nombre,
+                especialidad,
+                "https://img.example.com/doctores/" + i + ".jpg",
+                random.nextInt(1, 41),
+                Math.round(random.nextDouble(3.0, 5.0) * 10) / 10.0,
+                elegir(HOSPITALES, random),
+                random.nextInt(10) < 8,
+                "Especialista en " + especialidad.toLowerCase() + " con atención a "
+                        + elegir(TAGS, random) + " y " + elegir(TAGS, random) + ".",
+                tags(random),
+                dias,
+                hora(entrada),
+                hora(salida),
+                duracion,
+                horarios(dias, entrada, salida, duracion, random));
+        doctor.setId(String.format("doc-%06d", i));
+        return doctor;
+    }
+
+    private static List<String> tags(SplittableRandom random) {
+        int cantidad = random.nextInt(1, 7);
+        List<String> tags = new ArrayList<>(cantidad);
+        while (tags.size() < cantidad) {
+            String tag = elegir(TAGS, random);
+            if (!tags.contains(tag)) {
+                tags.add(tag);
+            }
+        }
+        return tags;
+    }
+
+    private static List<String> dias(SplittableRandom random) {
+        int cantidad = random.nextInt(3, 7);
+        int primero = random.nextInt(0, DIAS.length - cantidad + 1);
+        List<String> dias = new ArrayList<>(cantidad);
+        for (int d = primero; d < primero + cantidad; d++) {
+            dias.add(DIAS[d]);
+        }
+        return dias;
+    }
+
+    private static Map<String, List<String>> horarios(List<String> dias, int entrada, int salida,
+                                                      int duracion, SplittableRandom random) {
+        Map<String, List<String>> horarios = new LinkedHashMap<>();
+        for (String dia : dias) {
+            List<String> libres = new ArrayList<>();
+            for (int minuto = entrada; minuto + duracion <= salida; minuto += duracion) {
+                // Alrededor de dos tercios de los turnos siguen libres
+                if (random.nextInt(3) > 0) {
+                    libres.add(hora(minuto));
+                }
+            }
+            horarios.put(dia, libres);
+        }
+        return horarios;
+    }
+
+    private static String hora(int minuto) {
+        return String.format("%02d:%02d", minuto / 60, minuto % 60);
+    }
+
+    private static String elegir(String[] valores, SplittableRandom random) {
+        return valores[random.nextInt(valores.length)];
+    }
+}
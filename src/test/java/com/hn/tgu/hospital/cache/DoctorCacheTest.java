@@ -0,0 +1,122 @@
+package com.hn.tgu.hospital.cache;
+
+import com.hn.tgu.hospital.dto.DoctorDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DoctorCacheTest {
+
+    private LocalDoctorInvalidationBus bus;
+    private DoctorCache cache;
+    private TransactionTemplate transaccion;
+    private final AtomicInteger cargas = new AtomicInteger();
+    private final AtomicInteger conteos = new AtomicInteger();
+
+    @BeforeEach
+    void preparar() {
+        bus = new LocalDoctorInvalidationBus();
+        cache = new DoctorCache(bus, new SimpleMeterRegistry(), 100, Duration.ofMinutes(10), Duration.ofMinutes(10));
+        transaccion = new TransactionTemplate(new TransaccionesEnMemoria());
+    }
+
+    private Optional<DoctorDTO> obtener(String id) {
+        return cache.obtener(id, clave -> {
+            cargas.incrementAndGet();
+            DoctorDTO doctor = new DoctorDTO();
+            doctor.setId(clave);
+            return Optional.of(doctor);
+        });
+    }
+
+    private long contar() {
+        return cache.contar(() -> (long) conteos.incrementAndGet());
+    }
+
+    @Test
+    void unaEscrituraInvalidaElDoctorSoloAlConfirmar() {
+        obtener("1");
+
+        transaccion.executeWithoutResult(estado -> {
+            bus.publicar("1");
+            // Dentro de la transacción la caché sigue sirviendo el DTO anterior
+            obtener("1");
+            assertThat(cargas).hasValue(1);
+        });
+
+        obtener("1");
+        assertThat(cargas).hasValue(2);
+    }
+
+    @Test
+    void unaEscrituraRevertidaNoInvalida() {
+        obtener("1");
+
+        transaccion.executeWithoutResult(estado -> {
+            bus.publicar("1");
+            estado.setRollbackOnly();
+        });
+
+        obtener("1");
+        assertThat(cargas).hasValue(1);
+    }
+
+    @Test
+    void todosVaciaLaCacheYElConteo() {
+        obtener("1");
+        obtener("2");
+        assertThat(contar()).isEqualTo(1);
+        assertThat(contar()).isEqualTo(1);
+
+        bus.publicar(DoctorInvalidationBus.TODOS);
+
+        obtener("1");
+        obtener("2");
+        assertThat(cargas).hasValue(4);
+        assertThat(contar()).isEqualTo(2);
+    }
+
+    @Test
+    void noGuardaLoCargadoAntesDeUnaInvalidacion() {
+        // La invalidación llega mientras se carga: lo leído ya no vale y no se guarda
+        cache.obtener("1", clave -> {
+            cargas.incrementAndGet();
+            bus.publicar(clave);
+            return Optional.empty();
+        });
+
+        obtener("1");
+        assertThat(cargas).hasValue(2);
+    }
+
+    // Transacciones sin recurso: basta para que se ejecuten las sincronizaciones de commit
+    private static class TransaccionesEnMemoria extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
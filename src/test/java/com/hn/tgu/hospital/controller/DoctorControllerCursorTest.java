@@ -0,0 +1,30 @@
+package com.hn.tgu.hospital.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DoctorControllerCursorTest {
+
+  @Test
+  void elCursorDevuelveElMismoId() {
+    String id = "3f2b8c1e-9a4d-4e6f-b1c2-0d9e8f7a6b5c";
+    assertThat(DoctorController.decodificarCursor(DoctorController.codificarCursor(id))).isEqualTo(id);
+  }
+
+  @Test
+  void elCursorSeUsaTalCualEnLaUrl() {
+    // Bytes que en Base64 estándar darían '+', '/' y '='
+    String cursor = DoctorController.codificarCursor("ñ?>~");
+    assertThat(cursor).doesNotContain("+", "/", "=");
+    assertThat(DoctorController.decodificarCursor(cursor)).isEqualTo("ñ?>~");
+  }
+
+  @Test
+  void unCursorQueNoEsBase64EsUnError() {
+    // El controlador lo convierte en 400
+    assertThatThrownBy(() -> DoctorController.decodificarCursor("no es un cursor!"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
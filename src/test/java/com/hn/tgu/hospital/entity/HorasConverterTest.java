@@ -0,0 +1,45 @@
+package com.hn.tgu.hospital.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HorasConverterTest {
+
+  private final HorasConverter converter = new HorasConverter();
+
+  @Test
+  void guardaLasHorasComoArrayJson() {
+    assertThat(converter.convertToDatabaseColumn(List.of("08:00", "08:30"))).isEqualTo("[\"08:00\",\"08:30\"]");
+    assertThat(converter.convertToDatabaseColumn(List.of())).isEqualTo("[]");
+    assertThat(converter.convertToDatabaseColumn(null)).isNull();
+  }
+
+  @Test
+  void leeElFormatoDeLosDatosIniciales() {
+    assertThat(converter.convertToEntityAttribute("[\"08:00\",\"08:30\",\"09:00\"]"))
+        .containsExactly("08:00", "08:30", "09:00");
+    assertThat(converter.convertToEntityAttribute(" [] ")).isEmpty();
+  }
+
+  @Test
+  void leeLiteralesDeArrayDePostgres() {
+    assertThat(converter.convertToEntityAttribute("{08:00,08:30}")).containsExactly("08:00", "08:30");
+    assertThat(converter.convertToEntityAttribute("{\"08:00\", \"09:15\"}")).containsExactly("08:00", "09:15");
+    assertThat(converter.convertToEntityAttribute("{}")).isEmpty();
+  }
+
+  @Test
+  void columnaVaciaONula() {
+    assertThat(converter.convertToEntityAttribute("")).isEmpty();
+    assertThat(converter.convertToEntityAttribute(null)).isNull();
+  }
+
+  @Test
+  void idaYVuelta() {
+    List<String> horas = List.of("07:00", "07:20", "13:40");
+    assertThat(converter.convertToEntityAttribute(converter.convertToDatabaseColumn(horas))).isEqualTo(horas);
+  }
+}
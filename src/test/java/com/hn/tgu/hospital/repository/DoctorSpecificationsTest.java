@@ -0,0 +1,33 @@
+package com.hn.tgu.hospital.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DoctorSpecificationsTest {
+
+  @Test
+  void patronContieneEscapaLosComodinesDelTexto() {
+    assertThat(DoctorSpecifications.patronContiene("  Cardio 100%  ")).isEqualTo("%cardio 100\\%%");
+    assertThat(DoctorSpecifications.patronContiene("pediatria_general")).isEqualTo("%pediatria\\_general%");
+  }
+
+  @Test
+  void patronContieneSinComodinesSoloPasaAMinusculas() {
+    assertThat(DoctorSpecifications.patronContiene("Neurología")).isEqualTo("%neurología%");
+  }
+
+  @Test
+  void escaparDejaLiteralesElPorcentajeElGuionBajoYLaBarra() {
+    assertThat(DoctorSpecifications.escapar("50%")).isEqualTo("50\\%");
+    assertThat(DoctorSpecifications.escapar("a_b")).isEqualTo("a\\_b");
+    // La barra se escapa primero para no duplicar las que se añaden después
+    assertThat(DoctorSpecifications.escapar("c:\\%_")).isEqualTo("c:\\\\\\%\\_");
+  }
+
+  @Test
+  void escaparNoTocaElTextoNormal() {
+    assertThat(DoctorSpecifications.escapar("Dra. Sofía Martínez")).isEqualTo("Dra. Sofía Martínez");
+    assertThat(DoctorSpecifications.escapar("")).isEmpty();
+  }
+}
@@ -0,0 +1,90 @@
+package com.hn.tgu.hospital.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndiceSugerenciasTest {
+
+    private static final Set<IndiceSugerencias.Tipo> DOCTORES = EnumSet.of(IndiceSugerencias.Tipo.DOCTOR);
+    private static final Set<IndiceSugerencias.Tipo> TODOS = EnumSet.allOf(IndiceSugerencias.Tipo.class);
+
+    @Test
+    void normalizarQuitaTildesMayusculasYSignos() {
+        assertThat(IndiceSugerencias.normalizar("Dr. Sofía  MARTÍNEZ")).isEqualTo("dr sofia martinez");
+        assertThat(IndiceSugerencias.normalizar("  Peña-Núñez")).isEqualTo("pena nunez");
+        assertThat(IndiceSugerencias.normalizar(null)).isEmpty();
+    }
+
+    @Test
+    void normalizarConservaElEspacioFinal() {
+        // "dr " es una palabra completa y no debe encontrar "drago"
+        assertThat(IndiceSugerencias.normalizar("Dr. ")).isEqualTo("dr ");
+    }
+
+    @Test
+    void clavesEmpiezaEnCadaPalabra() {
+        assertThat(IndiceSugerencias.claves("Dr. Sofía Martínez"))
+                .containsExactly("dr sofia martinez", "sofia martinez", "martinez");
+        assertThat(IndiceSugerencias.claves("  ")).isEmpty();
+    }
+
+    @Test
+    void sugiereDesdeCualquierPalabraSinTildes() {
+        IndiceSugerencias indice = new IndiceSugerencias(10);
+        indice.actualizar("1", new IndiceSugerencias.Ficha("Dr. Sofía Martínez", "Cardiología", "Hospital Escuela", 4.5));
+        indice.actualizar("2", new IndiceSugerencias.Ficha("Dr. Drago López", "Pediatría", "Hospital Viera", 4.0));
+
+        assertThat(indice.sugerir("sof", DOCTORES, 10)).containsExactly("Dr. Sofía Martínez");
+        assertThat(indice.sugerir("MARTI", DOCTORES, 10)).containsExactly("Dr. Sofía Martínez");
+        assertThat(indice.sugerir("dr ", DOCTORES, 10)).containsExactly("Dr. Sofía Martínez", "Dr. Drago López");
+        assertThat(indice.sugerir("dra", DOCTORES, 10)).containsExactly("Dr. Drago López");
+        assertThat(indice.sugerir("cardio", TODOS, 10)).containsExactly("Cardiología");
+        assertThat(indice.sugerir("   ", TODOS, 10)).isEmpty();
+    }
+
+    @Test
+    void elPesoDeUnTextoEsElMejorRatingDeSusDoctores() {
+        IndiceSugerencias indice = new IndiceSugerencias(10);
+        indice.actualizar("1", new IndiceSugerencias.Ficha("Dr. A", "Neurología", "H1", 3.0));
+        indice.actualizar("2", new IndiceSugerencias.Ficha("Dr. B", "Nefrología", "H1", 4.0));
+        indice.actualizar("3", new IndiceSugerencias.Ficha("Dr. C", "Neurología", "H1", 5.0));
+        assertThat(indice.sugerir("ne", TODOS, 10)).containsExactly("Neurología", "Nefrología");
+
+        // Si se va el doctor de 5.0, Neurología pesa 3.0 y pasa detrás
+        indice.actualizar("3", null);
+        assertThat(indice.sugerir("ne", TODOS, 10)).containsExactly("Nefrología", "Neurología");
+
+        // Sin doctores el texto desaparece
+        indice.actualizar("1", null);
+        assertThat(indice.sugerir("neu", TODOS, 10)).isEmpty();
+        assertThat(indice.doctores()).isEqualTo(1);
+    }
+
+    @Test
+    void unTextoRepetidoEntreTiposSeMuestraUnaVez() {
+        IndiceSugerencias indice = new IndiceSugerencias(10);
+        indice.actualizar("1", new IndiceSugerencias.Ficha("San Felipe", "Medicina General", "San Felipe", 4.0));
+
+        assertThat(indice.sugerir("san", TODOS, 10)).containsExactly("San Felipe");
+    }
+
+    @Test
+    void respetaElLimite() {
+        IndiceSugerencias indice = new IndiceSugerencias(10);
+        for (int i = 0; i < 5; i++) {
+            indice.actualizar(String.valueOf(i), new IndiceSugerencias.Ficha("Dr. Ramos " + i, "E", "H", i));
+        }
+
+        assertThat(indice.sugerir("ramos", DOCTORES, 2)).containsExactly("Dr. Ramos 4", "Dr. Ramos 3");
+    }
+
+    @Test
+    void tipoPorNombre() {
+        assertThat(IndiceSugerencias.Tipo.de("Especialidad")).isEqualTo(IndiceSugerencias.Tipo.ESPECIALIDAD);
+        assertThat(IndiceSugerencias.Tipo.de("clinica")).isNull();
+    }
+}
@@ -0,0 +1,146 @@
+package com.hn.tgu.hospital.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrefijoTrieTest {
+
+    private static PrefijoTrie.Entrada entrada(String texto, double peso) {
+        return new PrefijoTrie.Entrada(texto, peso);
+    }
+
+    private static List<String> textos(List<PrefijoTrie.Entrada> entradas) {
+        return entradas.stream().map(PrefijoTrie.Entrada::texto).toList();
+    }
+
+    @Test
+    void devuelveLosKMejoresDelSubarbolPorPeso() {
+        PrefijoTrie trie = new PrefijoTrie(2);
+        trie.insertar("sofia", entrada("Sofía", 4.0));
+        trie.insertar("sonia", entrada("Sonia", 5.0));
+        trie.insertar("sol", entrada("Sol", 3.0));
+        trie.insertar("marta", entrada("Marta", 4.5));
+
+        assertThat(textos(trie.buscar("so", 10))).containsExactly("Sonia", "Sofía");
+        assertThat(textos(trie.buscar("sof", 10))).containsExactly("Sofía");
+        assertThat(textos(trie.buscar("", 10))).containsExactly("Sonia", "Marta");
+        assertThat(textos(trie.buscar("so", 1))).containsExactly("Sonia");
+    }
+
+    @Test
+    void aPesoIgualOrdenaPorTexto() {
+        PrefijoTrie trie = new PrefijoTrie(10);
+        trie.insertar("b", entrada("B", 4.0));
+        trie.insertar("a", entrada("A", 4.0));
+
+        assertThat(textos(trie.buscar("", 10))).containsExactly("A", "B");
+    }
+
+    @Test
+    void elPrefijoPuedeAcabarAMitadDeUnaArista() {
+        PrefijoTrie trie = new PrefijoTrie(10);
+        trie.insertar("cardiologia", entrada("Cardiología", 4.0));
+
+        assertThat(textos(trie.buscar("card", 10))).containsExactly("Cardiología");
+        assertThat(textos(trie.buscar("cardiologia", 10))).containsExactly("Cardiología");
+        assertThat(trie.buscar("carx", 10)).isEmpty();
+        assertThat(trie.buscar("cardiologias", 10)).isEmpty();
+    }
+
+    @Test
+    void bajarElPesoRecalculaLosMejores() {
+        PrefijoTrie trie = new PrefijoTrie(1);
+        trie.insertar("ana", entrada("Ana", 5.0));
+        trie.insertar("andres", entrada("Andrés", 4.0));
+        assertThat(textos(trie.buscar("an", 10))).containsExactly("Ana");
+
+        trie.insertar("ana", entrada("Ana", 3.0));
+        assertThat(textos(trie.buscar("an", 10))).containsExactly("Andrés");
+    }
+
+    @Test
+    void borrarDejaEntrarAlSiguienteYFusionaNodos() {
+        PrefijoTrie trie = new PrefijoTrie(1);
+        trie.insertar("ana", entrada("Ana", 5.0));
+        trie.insertar("andres", entrada("Andrés", 4.0));
+        int nodos = trie.nodos();
+
+        trie.borrar("ana", "Ana");
+        assertThat(textos(trie.buscar("an", 10))).containsExactly("Andrés");
+        assertThat(trie.buscar("ana", 10)).isEmpty();
+        assertThat(trie.nodos()).isLessThan(nodos);
+
+        trie.borrar("andres", "Andrés");
+        assertThat(trie.buscar("", 10)).isEmpty();
+        assertThat(trie.nodos()).isEqualTo(1);
+    }
+
+    @Test
+    void borrarUnaClaveQueNoExisteNoCambiaNada() {
+        PrefijoTrie trie = new PrefijoTrie(10);
+        trie.insertar("lopez", entrada("López", 4.0));
+
+        trie.borrar("lop", "López");
+        trie.borrar("lopez", "Otro");
+        assertThat(textos(trie.buscar("lo", 10))).containsExactly("López");
+    }
+
+    // Inserciones, cambios de peso y borrados al azar comparados con una búsqueda por fuerza bruta
+    @Test
+    void coincideConLaFuerzaBrutaTrasEscriturasAlAzar() {
+        int k = 3;
+        Random random = new Random(7);
+        String[] silabas = {"a", "an", "ana", "b", "ba", "c", "ca", "car"};
+        PrefijoTrie trie = new PrefijoTrie(k);
+        // clave -> texto -> peso
+        Map<String, Map<String, Double>> esperado = new HashMap<>();
+
+        for (int paso = 0; paso < 3000; paso++) {
+            String clave = silabas[random.nextInt(silabas.length)] + silabas[random.nextInt(silabas.length)];
+            String texto = "T" + random.nextInt(12);
+            if (random.nextInt(4) == 0) {
+                trie.borrar(clave, texto);
+                Map<String, Double> textos = esperado.get(clave);
+                if (textos != null) {
+                    textos.remove(texto);
+                }
+            } else {
+                double peso = random.nextInt(10) / 2.0;
+                trie.insertar(clave, entrada(texto, peso));
+                esperado.computeIfAbsent(clave, c -> new HashMap<>()).put(texto, peso);
+            }
+
+            if (paso % 50 == 0) {
+                for (String prefijo : new String[]{"", "a", "an", "ana", "b", "ca", "car", "anb", "caa"}) {
+                    assertThat(trie.buscar(prefijo, k))
+                            .as("prefijo '%s' en el paso %d", prefijo, paso)
+                            .isEqualTo(fuerzaBruta(esperado, prefijo, k));
+                }
+            }
+        }
+    }
+
+    // Mejores textos distintos de las claves con el prefijo, con el mayor peso de cada uno
+    private static List<PrefijoTrie.Entrada> fuerzaBruta(Map<String, Map<String, Double>> esperado,
+                                                         String prefijo, int k) {
+        Map<String, Double> mejores = new HashMap<>();
+        esperado.forEach((clave, textos) -> {
+            if (clave.startsWith(prefijo)) {
+                textos.forEach((texto, peso) -> mejores.merge(texto, peso, Math::max));
+            }
+        });
+        List<PrefijoTrie.Entrada> entradas = new ArrayList<>();
+        mejores.forEach((texto, peso) -> entradas.add(entrada(texto, peso)));
+        entradas.sort(Comparator.comparingDouble(PrefijoTrie.Entrada::peso).reversed()
+                .thenComparing(PrefijoTrie.Entrada::texto));
+        return entradas.subList(0, Math.min(k, entradas.size()));
+    }
+}
@@ -0,0 +1,103 @@
+package com.hn.tgu.hospital.service;
+
+import com.hn.tgu.hospital.entity.Doctor;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AgendaSemanalTest {
+
+    private static Doctor doctor(String entrada, int duracion, Map<String, List<String>> horarios) {
+        Doctor doctor = new Doctor();
+        doctor.setHorarioEntrada(entrada);
+        doctor.setDuracionCita(duracion);
+        doctor.setHorariosDisponibles(horarios);
+        return doctor;
+    }
+
+    @Test
+    void agrupaLosTurnosConsecutivosEnFranjas() {
+        Map<String, List<String>> horarios = new LinkedHashMap<>();
+        horarios.put("Lunes", List.of("08:00", "08:30", "09:00", "10:30"));
+        AgendaSemanal agenda = AgendaSemanal.de(doctor("08:00", 30, horarios));
+
+        assertThat(agenda.franjas()).containsExactly(
+                new AgendaSemanal.Franja(1, 8 * 60, 9 * 60 + 30),
+                new AgendaSemanal.Franja(1, 10 * 60 + 30, 11 * 60));
+    }
+
+    @Test
+    void descartaLasHorasFueraDeLaRejillaDelDoctor() {
+        // Entrada 08:15 y citas de 30 minutos: 09:00 no es el comienzo de ningún turno
+        Map<String, List<String>> horarios = Map.of("lunes", List.of("08:15", "08:45", "09:00", "09:15", "10:15"));
+        AgendaSemanal agenda = AgendaSemanal.de(doctor("08:15", 30, horarios));
+
+        assertThat(agenda.franjas()).containsExactly(
+                new AgendaSemanal.Franja(1, 495, 585),
+                new AgendaSemanal.Franja(1, 615, 645));
+    }
+
+    @Test
+    void ordenaPorDiaYAceptaNombresConTildes() {
+        Map<String, List<String>> horarios = new LinkedHashMap<>();
+        horarios.put("Sábado", List.of("09:00"));
+        horarios.put("miércoles", List.of("09:00"));
+        horarios.put("feriado", List.of("09:00"));
+        AgendaSemanal agenda = AgendaSemanal.de(doctor("09:00", 60, horarios));
+
+        assertThat(agenda.franjas()).containsExactly(
+                new AgendaSemanal.Franja(3, 540, 600),
+                new AgendaSemanal.Franja(6, 540, 600));
+    }
+
+    @Test
+    void sinDuracionNiEntradaValidasUsaTreintaMinutosDesdeMedianoche() {
+        Map<String, List<String>> horarios = Map.of("martes", List.of("00:30", "01:00", "01:15"));
+        AgendaSemanal agenda = AgendaSemanal.de(doctor("sin hora", 0, horarios));
+
+        assertThat(agenda.franjas()).containsExactly(new AgendaSemanal.Franja(2, 30, 90));
+    }
+
+    @Test
+    void libreMiraElTurnoQueContieneElMinuto() {
+        Map<String, List<String>> horarios = Map.of("viernes", List.of("10:00"));
+        AgendaSemanal agenda = AgendaSemanal.de(doctor("08:00", 20, horarios));
+
+        assertThat(agenda.libre(5, 10 * 60)).isTrue();
+        assertThat(agenda.libre(5, 10 * 60 + 19)).isTrue();
+        assertThat(agenda.libre(5, 10 * 60 + 20)).isFalse();
+        assertThat(agenda.libre(5, 7 * 60)).isFalse();
+        assertThat(agenda.libre(4, 10 * 60)).isFalse();
+        assertThat(agenda.libre(8, 10 * 60)).isFalse();
+    }
+
+    @Test
+    void sinHorariosNoHayFranjas() {
+        assertThat(AgendaSemanal.de(doctor("08:00", 30, null)).franjas()).isEmpty();
+    }
+
+    @Test
+    void minutoSoloAceptaHorasValidas() {
+        assertThat(AgendaSemanal.minuto("07:05")).isEqualTo(425);
+        assertThat(AgendaSemanal.minuto(" 7:05 ")).isEqualTo(425);
+        assertThat(AgendaSemanal.minuto("24:00")).isEqualTo(-1);
+        assertThat(AgendaSemanal.minuto("10:60")).isEqualTo(-1);
+        assertThat(AgendaSemanal.minuto("10")).isEqualTo(-1);
+        assertThat(AgendaSemanal.minuto("aa:bb")).isEqualTo(-1);
+        assertThat(AgendaSemanal.minuto(null)).isEqualTo(-1);
+    }
+
+    @Test
+    void diaReconoceLosNombresEnEspanol() {
+        assertThat(AgendaSemanal.dia("Lunes")).isEqualTo(1);
+        assertThat(AgendaSemanal.dia(" MIÉRCOLES ")).isEqualTo(3);
+        assertThat(AgendaSemanal.dia("sabado")).isEqualTo(6);
+        assertThat(AgendaSemanal.dia("domingo")).isEqualTo(7);
+        assertThat(AgendaSemanal.dia("monday")).isEqualTo(-1);
+        assertThat(AgendaSemanal.dia(null)).isEqualTo(-1);
+    }
+}